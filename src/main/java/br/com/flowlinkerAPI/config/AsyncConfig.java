@@ -1,5 +1,6 @@
 package br.com.flowlinkerAPI.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.task.AsyncTaskExecutor;
@@ -7,6 +8,8 @@ import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.task.DelegatingSecurityContextAsyncTaskExecutor;
 
+import java.util.concurrent.ThreadPoolExecutor;
+
 @Configuration
 @EnableAsync
 public class AsyncConfig {
@@ -21,6 +24,20 @@ public class AsyncConfig {
         delegate.initialize();
         return new DelegatingSecurityContextAsyncTaskExecutor(delegate);
     }
+
+    // Pool dos chunks de extração: cada worker segura uma conexão, então o limite deve ficar abaixo do pool do Hikari.
+    // Fila cheia roda no chamador (backpressure em vez de rejeição).
+    @Bean("extractionChunkExecutor")
+    public AsyncTaskExecutor extractionChunkExecutor(@Value("${extraction.chunk.workers:4}") int workers) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Math.max(1, workers));
+        executor.setMaxPoolSize(Math.max(1, workers));
+        executor.setQueueCapacity(Math.max(1, workers) * 2);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("extraction-chunk-");
+        executor.initialize();
+        return executor;
+    }
 }
 
 
@@ -14,6 +14,11 @@ import org.springframework.amqp.core.QueueBuilder;
 import org.springframework.amqp.core.Declarables;
 import org.springframework.amqp.core.AmqpAdmin;
 import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import java.util.ArrayList;
+import java.util.List;
 
 @Configuration
 public class EventIngestionRabbitConfig {
@@ -22,7 +27,32 @@ public class EventIngestionRabbitConfig {
 	public static final String QUEUE_ACTIVITY = "events.activity";
 	public static final String QUEUE_CAMPAIGN = "events.campaign";
 	public static final String QUEUE_SECURITY = "events.security";
-    
+
+	// Topologia particionada opcional (events.partitions > 0): N filas por categoria, uma partição por cliente
+	public static final String EXCHANGE_EVENTS_PARTITIONED = "events.partitioned";
+	public static final String HEADER_PARTITION_KEY = "partitionKey";
+	public static final String HEADER_PARTITION = "partition";
+	private static final String[] CATEGORIES = {"activity", "campaign", "security"};
+
+	@Value("${events.partitions:0}")
+	private int partitions;
+
+	// Cópia dos eventos de atividade/campanha para os rollups locais (metrics.rollup.enabled)
+	public static final String QUEUE_ROLLUP = "events.rollup";
+
+	@Value("${metrics.rollup.enabled:false}")
+	private boolean rollupEnabled;
+
+	public static String shardQueue(String category, int partition) {
+		return "events." + category + "." + partition;
+	}
+
+	/** Partição estável do cliente: todos os eventos de um customerId caem na mesma fila, em ordem. */
+	public static int partitionFor(Long customerId, int partitions) {
+		if (customerId == null || partitions <= 1) return 0;
+		// mistura os bits para ids sequenciais se espalharem entre as partições
+		return Math.floorMod(Long.hashCode(customerId * 0x9E3779B97F4A7C15L), partitions);
+	}
 
     @Bean
 	public TopicExchange eventsExchange() {
@@ -71,6 +101,22 @@ public class EventIngestionRabbitConfig {
 		return tpl;
 	}
 
+	@Bean
+	public SimpleRabbitListenerContainerFactory rollupListenerContainerFactory(ConnectionFactory cf,
+	                                                                         Jackson2JsonMessageConverter converter,
+	                                                                         @Value("${metrics.rollup.batch-size:500}") int batchSize) {
+		SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+		factory.setConnectionFactory(cf);
+		factory.setMessageConverter(converter);
+		// entrega lotes de até batchSize mensagens ao listener (ou o que chegou em 1s)
+		factory.setBatchListener(true);
+		factory.setConsumerBatchEnabled(true);
+		factory.setBatchSize(batchSize);
+		factory.setPrefetchCount(batchSize * 2);
+		factory.setReceiveTimeout(1000L);
+		return factory;
+	}
+
 	// Garante que exchange/queues/bindings sejam declarados no broker ao subir a aplicação
 	@Bean
 	public AmqpAdmin amqpAdmin(ConnectionFactory connectionFactory) {
@@ -87,10 +133,32 @@ public class EventIngestionRabbitConfig {
 	                                 Binding bindActivity,
 	                                 Binding bindCampaign,
 	                                 Binding bindSecurity) {
-		return new Declarables(
+		List<Declarable> declarables = new ArrayList<>(List.of(
 				eventsExchange,
 				activityQueue, campaignQueue, securityQueue,
 				bindActivity, bindCampaign, bindSecurity
-		);
+		));
+		TopicExchange partitioned = ExchangeBuilder.topicExchange(EXCHANGE_EVENTS_PARTITIONED).durable(true).build();
+		if (partitions > 0) {
+			// Routing key "<partição>.<eventType>"; single-active-consumer mantém a ordem por fila
+			// mesmo com várias instâncias do consumidor escutando a mesma partição
+			declarables.add(partitioned);
+			for (String category : CATEGORIES) {
+				for (int p = 0; p < partitions; p++) {
+					Queue shard = QueueBuilder.durable(shardQueue(category, p)).singleActiveConsumer().build();
+					declarables.add(shard);
+					declarables.add(BindingBuilder.bind(shard).to(partitioned).with(p + ".#." + category + ".#"));
+				}
+			}
+		}
+		if (rollupEnabled) {
+			// liga na exchange em que o publisher está publicando
+			TopicExchange source = partitions > 0 ? partitioned : eventsExchange;
+			Queue rollup = QueueBuilder.durable(QUEUE_ROLLUP).build();
+			declarables.add(rollup);
+			declarables.add(BindingBuilder.bind(rollup).to(source).with("#.activity.#"));
+			declarables.add(BindingBuilder.bind(rollup).to(source).with("#.campaign.#"));
+		}
+		return new Declarables(declarables);
 	}
 }
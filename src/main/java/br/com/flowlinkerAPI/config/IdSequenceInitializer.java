@@ -0,0 +1,124 @@
+package br.com.flowlinkerAPI.config;
+
+import br.com.flowlinkerAPI.model.IdSequences;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Migração das tabelas que usavam AUTO_INCREMENT para ids em bloco (id_sequences). Roda após o schema e
+ * antes do servidor web/listeners subirem, e é idempotente: nunca diminui uma sequência.
+ * <p>
+ * Deploy gradual: enquanto nós antigos ainda inserem com AUTO_INCREMENT, os dois geradores não podem
+ * disputar a mesma faixa. Na primeira subida o AUTO_INCREMENT da tabela é empurrado para
+ * MAX(id) + ids.sequence.reserve e a sequência passa a entregar ids da faixa reservada abaixo desse limite
+ * (gravado em id_sequences como {@code <sequência>:limit}). Ids explícitos abaixo do contador não o movem,
+ * então as faixas continuam disjuntas. Quando a faixa está perto do fim (último décimo), o deploy daquele
+ * momento já não tem nós antigos: a sequência salta para acima de MAX(id) e o limite é removido.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+@Slf4j
+public class IdSequenceInitializer implements SmartInitializingSingleton {
+
+    private static final String LIMIT_SUFFIX = ":limit";
+
+    // sequência -> tabela da entidade
+    private static final Map<String, String> SEQUENCES = Map.of(
+            IdSequences.CAMPAIGN_ACCOUNT, "campaign_account",
+            IdSequences.DEVICE, "device"
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${ids.sequence.reserve:1000000}")
+    private long reserve;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        SEQUENCES.forEach(this::align);
+    }
+
+    private void align(String sequence, String table) {
+        Long limit = limitOf(sequence);
+        Long current = read(sequence);
+        if (limit == null && (current == null || current <= maxId(table))) {
+            // sequência nunca alinhada (ausente ou só com o valor inicial): migração ainda não aconteceu
+            limit = reserveRange(sequence, table);
+        }
+        if (limit != null && current != null && current + reserve / 10 >= limit) {
+            // faixa quase esgotada: sem nós antigos desde o deploy que a criou, volta ao MAX(id) da tabela inteira
+            jdbcTemplate.update("DELETE FROM " + IdSequences.TABLE + " WHERE " + IdSequences.PK_COLUMN + " = ?", sequence + LIMIT_SUFFIX);
+            log.info("Faixa reservada de {} encerrada (limite {})", sequence, limit);
+            limit = null;
+        }
+
+        // o otimizador pooled entrega ids a partir de (valor lido - allocationSize + 1): deixa essa margem
+        Long floor = limit == null
+                ? jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) + ? FROM " + table, Long.class, IdSequences.ALLOCATION_SIZE + 1)
+                : jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) + ? FROM " + table + " WHERE id < ?", Long.class, IdSequences.ALLOCATION_SIZE + 1, limit);
+        upsert(sequence, floor);
+        log.info("Sequência {} alinhada com {} (próximo bloco >= {}{})", sequence, table, floor,
+                limit == null ? "" : ", faixa reservada até " + limit);
+    }
+
+    /**
+     * Primeira subida com ids em bloco: reserva [MAX(id), MAX(id) + reserve) para a sequência e move o
+     * AUTO_INCREMENT (usado pelos nós antigos) para depois dela. O INSERT do limite é o claim: se outro nó
+     * novo chegou antes, usa o limite dele.
+     */
+    private Long reserveRange(String sequence, String table) {
+        long limit = maxId(table) + IdSequences.ALLOCATION_SIZE + 1 + reserve;
+        try {
+            jdbcTemplate.update("INSERT INTO " + IdSequences.TABLE + " (" + IdSequences.PK_COLUMN + ", " + IdSequences.VALUE_COLUMN + ") VALUES (?, ?)",
+                    sequence + LIMIT_SUFFIX, limit);
+        } catch (DuplicateKeyException e) {
+            // outro nó novo fez o claim; repete o ALTER caso ele ainda não tenha chegado lá (não reduz o contador)
+            limit = limitOf(sequence);
+        }
+        // MySQL só aceita AUTO_INCREMENT acima do maior id existente; o que nós antigos inserirem daqui em diante fica acima do limite
+        jdbcTemplate.execute("ALTER TABLE " + table + " AUTO_INCREMENT = " + limit);
+        log.info("Faixa de ids reservada para {} abaixo de {}; AUTO_INCREMENT de {} movido para o limite", sequence, limit, table);
+        return limit;
+    }
+
+    private void upsert(String sequence, long floor) {
+        int updated = jdbcTemplate.update(
+                "UPDATE " + IdSequences.TABLE + " SET " + IdSequences.VALUE_COLUMN + " = GREATEST(" + IdSequences.VALUE_COLUMN + ", ?)"
+                        + " WHERE " + IdSequences.PK_COLUMN + " = ?",
+                floor, sequence);
+        if (updated == 0) {
+            try {
+                jdbcTemplate.update(
+                        "INSERT INTO " + IdSequences.TABLE + " (" + IdSequences.PK_COLUMN + ", " + IdSequences.VALUE_COLUMN + ") VALUES (?, ?)",
+                        sequence, floor);
+            } catch (DuplicateKeyException e) {
+                upsert(sequence, floor);
+            }
+        }
+    }
+
+    private long maxId(String table) {
+        Long max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+        return max == null ? 0 : max;
+    }
+
+    private Long limitOf(String sequence) {
+        return read(sequence + LIMIT_SUFFIX);
+    }
+
+    private Long read(String name) {
+        List<Long> values = jdbcTemplate.queryForList(
+                "SELECT " + IdSequences.VALUE_COLUMN + " FROM " + IdSequences.TABLE + " WHERE " + IdSequences.PK_COLUMN + " = ?", Long.class, name);
+        return values.isEmpty() ? null : values.get(0);
+    }
+}
@@ -5,6 +5,13 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import br.com.flowlinkerAPI.config.security.AccessTokenService;
+import br.com.flowlinkerAPI.config.security.TokenPrincipalCache;
+import br.com.flowlinkerAPI.config.security.DeviceNearCache;
+import br.com.flowlinkerAPI.repository.GroupCatalogKeyCache;
+import br.com.flowlinkerAPI.service.EntitlementSnapshotService;
 
 @Configuration
 public class RedisConfig {
@@ -24,6 +31,24 @@ public class RedisConfig {
         return template;
     }
 
+    // Pub/sub para invalidar caches locais (autenticação/revogação/device/entitlement/catálogo) em todos os nós
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       TokenPrincipalCache tokenPrincipalCache,
+                                                                       DeviceNearCache deviceNearCache,
+                                                                       EntitlementSnapshotService entitlementSnapshotService,
+                                                                       AccessTokenService accessTokenService,
+                                                                       GroupCatalogKeyCache groupCatalogKeyCache) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(tokenPrincipalCache, new ChannelTopic(TokenPrincipalCache.INVALIDATION_CHANNEL));
+        container.addMessageListener(deviceNearCache, new ChannelTopic(DeviceNearCache.INVALIDATION_CHANNEL));
+        container.addMessageListener(entitlementSnapshotService, new ChannelTopic(EntitlementSnapshotService.INVALIDATION_CHANNEL));
+        container.addMessageListener(accessTokenService, new ChannelTopic(AccessTokenService.REVOCATION_CHANNEL));
+        container.addMessageListener(groupCatalogKeyCache, new ChannelTopic(GroupCatalogKeyCache.INVALIDATION_CHANNEL));
+        return container;
+    }
+
     @Bean
     public ApplicationRunner redisConnectionValidator(RedisTemplate<String, Object> redisTemplate) {
         return (args) -> {
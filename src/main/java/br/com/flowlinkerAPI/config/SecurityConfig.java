@@ -15,12 +15,14 @@ import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
-import org.springframework.beans.factory.annotation.Value;
 import br.com.flowlinkerAPI.config.filter.RequestLoggingFilter;
+import br.com.flowlinkerAPI.config.security.AccessTokenService;
 import br.com.flowlinkerAPI.config.security.CurrentRequest;
+import br.com.flowlinkerAPI.config.security.TokenPrincipalCache;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.web.cors.CorsConfigurationSource;
 import br.com.flowlinkerAPI.config.filter.ActiveSubscriptionFilter;
-import br.com.flowlinkerAPI.repository.CustomerRepository;
+import br.com.flowlinkerAPI.service.EntitlementSnapshotService;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import java.util.Arrays; 
@@ -34,27 +36,33 @@ public class SecurityConfig {
     @Bean
     public JwtAuthenticationFilter jwtAuthenticationFilter(AuthenticationManager authenticationManager,
                                                         @Qualifier("stringRedisTemplate") RedisTemplate<String, String> redisTemplate,
-                                                        @Value("${jwt.secret}") String jwtSecret) {
-        return new JwtAuthenticationFilter(authenticationManager, redisTemplate, jwtSecret);
+                                                        AccessTokenService accessTokenService,
+                                                        TokenPrincipalCache tokenPrincipalCache,
+                                                        MeterRegistry meterRegistry) {
+        return new JwtAuthenticationFilter(authenticationManager, redisTemplate, accessTokenService, tokenPrincipalCache, meterRegistry);
     }
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http, AuthenticationManager authenticationManager, JwtAuthenticationFilter jwtAuthenticationFilter, RequestLoggingFilter requestLoggingFilter, CurrentRequest currentRequest, CustomerRepository customerRepository) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, AuthenticationManager authenticationManager, JwtAuthenticationFilter jwtAuthenticationFilter, RequestLoggingFilter requestLoggingFilter, CurrentRequest currentRequest, EntitlementSnapshotService entitlementSnapshotService) throws Exception {
         http
         .cors(cors -> cors.configurationSource(corsConfigurationSource()))
         .csrf(AbstractHttpConfigurer::disable)
             .authorizeHttpRequests(authz -> authz
             .requestMatchers("/stripe/**").permitAll()
             .requestMatchers("/auth/login").permitAll()
+            .requestMatchers("/auth/refresh", "/auth/public-key").permitAll()
+            // logout valida o próprio token (inclusive expirado) e só encerra a sessão que ele identifica
+            .requestMatchers("/auth/logout").permitAll()
             .requestMatchers("/auth/password/**").permitAll()
             .requestMatchers("/v3/api-docs/**", "/swagger-ui.html", "/swagger-ui/**").permitAll()
             .requestMatchers("/admin/releases/quick/**").permitAll()
             .requestMatchers("/devices/limits").permitAll()
+            .requestMatchers("/actuator/health").permitAll()
             .anyRequest().authenticated())
             .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
             .addFilterAfter(requestLoggingFilter, JwtAuthenticationFilter.class)
             .addFilterAfter(new InactiveDeviceFilter(currentRequest), JwtAuthenticationFilter.class)
-            .addFilterAfter(new ActiveSubscriptionFilter(currentRequest, customerRepository), InactiveDeviceFilter.class);  
+            .addFilterAfter(new ActiveSubscriptionFilter(currentRequest, entitlementSnapshotService), InactiveDeviceFilter.class);  
         return http
         .build();
     }
@@ -2,7 +2,8 @@ package br.com.flowlinkerAPI.config.filter;
 
 import br.com.flowlinkerAPI.config.security.CurrentRequest;
 import br.com.flowlinkerAPI.model.Customer;
-import br.com.flowlinkerAPI.repository.CustomerRepository;
+import br.com.flowlinkerAPI.service.EntitlementSnapshotService;
+import br.com.flowlinkerAPI.service.EntitlementSnapshotService.EntitlementSnapshot;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -16,11 +17,11 @@ import org.springframework.lang.NonNull;
 public class ActiveSubscriptionFilter extends OncePerRequestFilter {
 
     private final CurrentRequest currentRequest;
-    private final CustomerRepository customerRepository;
+    private final EntitlementSnapshotService entitlementSnapshotService;
 
-    public ActiveSubscriptionFilter(CurrentRequest currentRequest, CustomerRepository customerRepository) {
+    public ActiveSubscriptionFilter(CurrentRequest currentRequest, EntitlementSnapshotService entitlementSnapshotService) {
         this.currentRequest = currentRequest;
-        this.customerRepository = customerRepository;
+        this.entitlementSnapshotService = entitlementSnapshotService;
     }
 
     @Override
@@ -31,26 +32,14 @@ public class ActiveSubscriptionFilter extends OncePerRequestFilter {
             return;
         }
 
-        Customer customer = customerRepository.findById(customerId).orElse(null);
-        if (customer == null) {
+        EntitlementSnapshot entitlement = entitlementSnapshotService.get(customerId);
+        if (entitlement == null) {
             deny(response, "SUBSCRIPTION_REQUIRED", "Assinatura necessária para acessar este recurso.");
             return;
         }
 
-        Customer.SubscriptionStatus status = customer.getSubscriptionStatus();
-        Instant now = Instant.now();
-        Instant end = customer.getSubscriptionEndDate();
-
-        boolean allowed = false;
-
-        if (status == Customer.SubscriptionStatus.ACTIVE) {
-            allowed = true;
-        } else if (status == Customer.SubscriptionStatus.TRIALING) {
-            allowed = end != null && !now.isAfter(end);
-        } else if (status == Customer.SubscriptionStatus.CANCELED) {
-            // Mantém acesso até a data de término do período vigente
-            allowed = end != null && !now.isAfter(end);
-        }
+        Customer.SubscriptionStatus status = entitlement.status();
+        boolean allowed = entitlement.allowsAccess(Instant.now());
 
         if (!allowed) {
             String code = (status == Customer.SubscriptionStatus.TRIALING) ? "TRIAL_EXPIRED" : "SUBSCRIPTION_INACTIVE";
@@ -1,7 +1,7 @@
 package br.com.flowlinkerAPI.config.filter;
 
 import br.com.flowlinkerAPI.config.security.CurrentRequest;
-import br.com.flowlinkerAPI.model.Device;
+import br.com.flowlinkerAPI.config.security.DeviceNearCache.DeviceSnapshot;
 import br.com.flowlinkerAPI.model.DeviceStatus;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -21,8 +21,8 @@ public class InactiveDeviceFilter extends OncePerRequestFilter {
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
-        Device device = currentRequest.getDevice();
-        if (device != null && device.getStatus() == DeviceStatus.INACTIVE) {
+        DeviceSnapshot device = currentRequest.getDeviceSnapshot();
+        if (device != null && device.status() == DeviceStatus.INACTIVE) {
             response.setStatus(HttpStatus.FORBIDDEN.value());
             response.setContentType("application/json");
             response.getWriter().write("{\"code\":\"DEVICE_INACTIVE\",\"message\":\"Este dispositivo está inativo. Reative para continuar.\"}");
@@ -1,19 +1,22 @@
 package br.com.flowlinkerAPI.config.filter;
 
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.ExpiredJwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
-import javax.crypto.SecretKey;
+import java.util.concurrent.TimeUnit;
+import br.com.flowlinkerAPI.config.security.AccessTokenService;
+import br.com.flowlinkerAPI.config.security.AccessTokenService.ParsedToken;
 import br.com.flowlinkerAPI.config.security.CurrentUser;
+import br.com.flowlinkerAPI.config.security.TokenPrincipalCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -26,13 +29,21 @@ import org.springframework.security.web.authentication.www.BasicAuthenticationFi
 public class JwtAuthenticationFilter extends BasicAuthenticationFilter {
 
     private final RedisTemplate<String, String> redisTemplate;
-   
-    private String jwtSecret;
-
-    public JwtAuthenticationFilter(AuthenticationManager authenticationManager, RedisTemplate<String, String> redisTemplate, String jwtSecret) {
+    private final TokenPrincipalCache tokenCache;
+    private final AccessTokenService accessTokenService;
+    private final Timer cacheHitTimer;
+    private final Timer cacheMissTimer;
+    private final Timer statelessTimer;
+
+    public JwtAuthenticationFilter(AuthenticationManager authenticationManager, RedisTemplate<String, String> redisTemplate,
+                                   AccessTokenService accessTokenService, TokenPrincipalCache tokenCache, MeterRegistry meterRegistry) {
         super(authenticationManager);
         this.redisTemplate = redisTemplate;
-        this.jwtSecret = jwtSecret;
+        this.accessTokenService = accessTokenService;
+        this.tokenCache = tokenCache;
+        this.cacheHitTimer = Timer.builder("auth.jwt.resolve").tag("cache", "hit").register(meterRegistry);
+        this.cacheMissTimer = Timer.builder("auth.jwt.resolve").tag("cache", "miss").register(meterRegistry);
+        this.statelessTimer = Timer.builder("auth.jwt.resolve").tag("cache", "stateless").register(meterRegistry);
     }
 
     @Override
@@ -60,7 +71,23 @@ public class JwtAuthenticationFilter extends BasicAuthenticationFilter {
             return;
         }
 
-        UsernamePasswordAuthenticationToken authentication = getAuthentication(request, token);
+        UsernamePasswordAuthenticationToken authentication;
+        try {
+            authentication = getAuthentication(request, token);
+        } catch (ExpiredJwtException e) {
+            if (!accessTokenService.isStatelessHeader(e.getHeader())) throw e;
+            if ("/auth/logout".equals(request.getServletPath())) {
+                // logout com access expirado segue sem autenticação: UserService.logout usa as claims expiradas
+                // para revogar a sessão e o refresh token
+                chain.doFilter(request, response);
+                return;
+            }
+            // Access token curto expirado: 401 explícito para o cliente chamar /auth/refresh
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            response.setContentType("application/json");
+            response.getWriter().write("{\"code\":\"ACCESS_TOKEN_EXPIRED\",\"message\":\"Access token expirado. Renove via /auth/refresh.\"}");
+            return;
+        }
         SecurityContextHolder.getContext().setAuthentication(authentication);
         chain.doFilter(request, response);
     }
@@ -70,16 +97,41 @@ public class JwtAuthenticationFilter extends BasicAuthenticationFilter {
         String type = request.getHeader("X-Auth-Type"); 
         String fingerprint = request.getHeader("X-Fingerprint"); 
 
-       
-        SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        long started = System.nanoTime();
+        CurrentUser cached = tokenCache.get(token, type, fingerprint);
+        if (cached != null) {
+            UsernamePasswordAuthenticationToken auth = toAuthentication(cached);
+            cacheHitTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            return auth;
+        }
+        ParsedToken parsed = accessTokenService.parse(token);
+        if (parsed.stateless()) {
+            try {
+                return resolveStateless(parsed.claims(), fingerprint);
+            } finally {
+                statelessTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            }
+        }
+        try {
+            return resolveAndCache(token, parsed.claims(), type, fingerprint);
+        } finally {
+            cacheMissTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
 
-       
-        Claims claims = Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    // Access token RS256 de vida curta: validado só pela assinatura, sem Redis
+    private UsernamePasswordAuthenticationToken resolveStateless(Claims claims, String fingerprint) {
+        if (claims.getSubject() == null || accessTokenService.isRevoked(claims)) {
+            return null;
+        }
+        if ("device".equals(claims.get("type"))
+                && (fingerprint == null || !fingerprint.equals(claims.get("fingerprint")) || claims.get("customerId") == null)) {
+            return null;
+        }
+        return toAuthentication(toPrincipal(claims, fingerprint));
+    }
 
+    private UsernamePasswordAuthenticationToken resolveAndCache(String token, Claims claims, String type, String fingerprint) {
         String redisKey;
         if ("device".equals(claims.get("type"))) {
             if (fingerprint == null || !fingerprint.equals(claims.get("fingerprint"))) {
@@ -98,33 +150,44 @@ public class JwtAuthenticationFilter extends BasicAuthenticationFilter {
 
         if (storedToken != null && storedToken.equals(token)) {
             if (claims.getSubject() != null) {
-                String username = claims.getSubject();
-                Long customerId = null;
-                Object cid = claims.get("customerId");
-                if (cid instanceof Number) {
-                    customerId = ((Number) cid).longValue();
-                } else if (cid instanceof String) {
-                    try { customerId = Long.parseLong((String) cid); } catch (Exception ignored) {}
-                }
-                String tokenType = String.valueOf(claims.get("type"));
-                String deviceFp = "device".equals(tokenType) ? fingerprint : null;
-                String role = claims.get("role") != null ? String.valueOf(claims.get("role")) : "USER";
-                List<GrantedAuthority> authorities = new ArrayList<>();
-                if (role != null && !role.isBlank()) {
-                    authorities.add(new SimpleGrantedAuthority("ROLE_" + role.toUpperCase()));
-                }
-                CurrentUser principal = new CurrentUser(username, customerId, deviceFp, role);
-                return new UsernamePasswordAuthenticationToken(principal, null, authorities);
+                CurrentUser principal = toPrincipal(claims, fingerprint);
+                tokenCache.put(token, type, fingerprint, redisKey, principal, claims.getExpiration());
+                return toAuthentication(principal);
             }
         }
         return null;
     }
 
+    private CurrentUser toPrincipal(Claims claims, String fingerprint) {
+        Long customerId = null;
+        Object cid = claims.get("customerId");
+        if (cid instanceof Number) {
+            customerId = ((Number) cid).longValue();
+        } else if (cid instanceof String) {
+            try { customerId = Long.parseLong((String) cid); } catch (Exception ignored) {}
+        }
+        String tokenType = String.valueOf(claims.get("type"));
+        String deviceFp = "device".equals(tokenType) ? fingerprint : null;
+        String role = claims.get("role") != null ? String.valueOf(claims.get("role")) : "USER";
+        return new CurrentUser(claims.getSubject(), customerId, deviceFp, role);
+    }
+
+    private UsernamePasswordAuthenticationToken toAuthentication(CurrentUser principal) {
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        String role = principal.role();
+        if (role != null && !role.isBlank()) {
+            authorities.add(new SimpleGrantedAuthority("ROLE_" + role.toUpperCase()));
+        }
+        return new UsernamePasswordAuthenticationToken(principal, null, authorities);
+    }
+
   
     @Override
 protected boolean shouldNotFilter(HttpServletRequest request) {
     String path = request.getServletPath();
     return path.startsWith("/auth/login")
+        || path.startsWith("/auth/refresh")
+        || path.startsWith("/auth/public-key")
         || path.startsWith("/auth/password/")
         || path.startsWith("/stripe/")
         || "OPTIONS".equalsIgnoreCase(request.getMethod());
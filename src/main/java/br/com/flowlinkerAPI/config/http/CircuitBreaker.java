@@ -0,0 +1,65 @@
+package br.com.flowlinkerAPI.config.http;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker simples por host: abre após N falhas consecutivas, rejeita chamadas enquanto aberto
+ * e, passado o tempo de abertura, deixa passar uma única chamada de teste (half-open).
+ * Sucesso no teste fecha o circuito; falha reabre pelo mesmo tempo.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openMillis;
+    private final LongSupplier clock;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicBoolean probeInFlight = new AtomicBoolean();
+    private volatile long openedAt;
+    private volatile State state = State.CLOSED;
+
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        this(failureThreshold, openMillis, System::currentTimeMillis);
+    }
+
+    /** {@code clock} em milissegundos; os testes avançam o tempo sem dormir. */
+    public CircuitBreaker(int failureThreshold, long openMillis, LongSupplier clock) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMillis = openMillis;
+        this.clock = clock;
+    }
+
+    /** true se a chamada pode seguir; com o circuito aberto só a chamada de teste passa. */
+    public boolean tryAcquire() {
+        if (state == State.CLOSED) return true;
+        if (clock.getAsLong() - openedAt < openMillis) return false;
+        if (probeInFlight.compareAndSet(false, true)) {
+            state = State.HALF_OPEN;
+            return true;
+        }
+        return false;
+    }
+
+    public void onSuccess() {
+        consecutiveFailures.set(0);
+        if (state != State.CLOSED) {
+            state = State.CLOSED;
+            probeInFlight.set(false);
+        }
+    }
+
+    public void onFailure() {
+        if (state == State.HALF_OPEN || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            openedAt = clock.getAsLong();
+            state = State.OPEN;
+            probeInFlight.set(false);
+        }
+    }
+
+    public State getState() {
+        return state;
+    }
+}
@@ -0,0 +1,57 @@
+package br.com.flowlinkerAPI.config.http;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * Clientes HTTP de saída. Cada cliente tem seu java.net.http.HttpClient (pool de conexões keep-alive),
+ * versão HTTP, timeouts próprios e circuit breaker por host. Sem versão configurada vale o padrão do
+ * HttpClient; HTTP_1_1 evita o upgrade h2c em texto puro para hosts/proxies que não o aceitam.
+ */
+@Configuration
+public class OutboundHttpConfig {
+
+    @Value("${http.client.circuit.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${http.client.circuit.open-ms:30000}")
+    private long openMillis;
+
+    @Bean("metricsRestTemplate")
+    public RestTemplate metricsRestTemplate(MeterRegistry meterRegistry,
+                                            @Value("${http.client.metrics.connect-timeout-ms:2000}") long connectTimeoutMs,
+                                            @Value("${http.client.metrics.read-timeout-ms:5000}") long readTimeoutMs,
+                                            @Value("${http.client.metrics.version:}") String version) {
+        return build("metrics", meterRegistry, connectTimeoutMs, readTimeoutMs, version);
+    }
+
+    @Bean("smtp2goRestTemplate")
+    public RestTemplate smtp2goRestTemplate(MeterRegistry meterRegistry,
+                                            @Value("${http.client.smtp2go.connect-timeout-ms:3000}") long connectTimeoutMs,
+                                            @Value("${http.client.smtp2go.read-timeout-ms:10000}") long readTimeoutMs,
+                                            @Value("${http.client.smtp2go.version:}") String version) {
+        return build("smtp2go", meterRegistry, connectTimeoutMs, readTimeoutMs, version);
+    }
+
+    private RestTemplate build(String client, MeterRegistry meterRegistry, long connectTimeoutMs, long readTimeoutMs, String version) {
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NORMAL);
+        // HTTP_1_1 ou HTTP_2; valor inválido falha na subida em vez de cair num padrão silencioso
+        if (version != null && !version.isBlank()) builder.version(HttpClient.Version.valueOf(version.trim()));
+        HttpClient httpClient = builder.build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        restTemplate.getInterceptors().add(new OutboundHttpInterceptor(client, meterRegistry, failureThreshold, openMillis));
+        return restTemplate;
+    }
+}
@@ -0,0 +1,75 @@
+package br.com.flowlinkerAPI.config.http;
+
+import br.com.flowlinkerAPI.exceptions.UpstreamUnavailableException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.lang.NonNull;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mede latência/erros por host ({@code http.client.outbound}) e aplica o circuit breaker do host:
+ * com o circuito aberto a chamada falha na hora com UpstreamUnavailableException, sem abrir conexão.
+ * Erros de I/O (timeout, conexão recusada) e respostas 5xx contam como falha; 4xx não.
+ */
+public class OutboundHttpInterceptor implements ClientHttpRequestInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboundHttpInterceptor.class);
+
+    private final String client;
+    private final MeterRegistry meterRegistry;
+    private final int failureThreshold;
+    private final long openMillis;
+    private final ConcurrentHashMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    public OutboundHttpInterceptor(String client, MeterRegistry meterRegistry, int failureThreshold, long openMillis) {
+        this.client = client;
+        this.meterRegistry = meterRegistry;
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    @Override
+    @NonNull
+    public ClientHttpResponse intercept(@NonNull HttpRequest request, @NonNull byte[] body, @NonNull ClientHttpRequestExecution execution) throws IOException {
+        String host = request.getURI().getHost();
+        CircuitBreaker breaker = breakers.computeIfAbsent(host, this::newBreaker);
+        if (!breaker.tryAcquire()) {
+            meterRegistry.counter("http.client.outbound.rejected", "client", client, "host", host).increment();
+            throw new UpstreamUnavailableException("Circuito aberto para " + host);
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "io_error";
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            int status = response.getStatusCode().value();
+            outcome = status >= 500 ? "server_error" : status >= 400 ? "client_error" : "success";
+            if (status >= 500) breaker.onFailure(); else breaker.onSuccess();
+            return response;
+        } catch (IOException | RuntimeException e) {
+            breaker.onFailure();
+            throw e;
+        } finally {
+            sample.stop(meterRegistry.timer("http.client.outbound", "client", client, "host", host, "outcome", outcome));
+        }
+    }
+
+    private CircuitBreaker newBreaker(String host) {
+        CircuitBreaker breaker = new CircuitBreaker(failureThreshold, openMillis);
+        Gauge.builder("http.client.circuit.open", breaker, b -> b.getState() == CircuitBreaker.State.CLOSED ? 0 : 1)
+                .tag("client", client)
+                .tag("host", host)
+                .register(meterRegistry);
+        logger.debug("Circuit breaker criado client={} host={}", client, host);
+        return breaker;
+    }
+}
@@ -0,0 +1,184 @@
+package br.com.flowlinkerAPI.config.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Header;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.security.Keys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Emissão/validação de JWTs. Aceita os dois formatos lado a lado:
+ * - legado: HS512 com jwt.secret, validado também contra o Redis pelo filtro;
+ * - stateless (auth.token.mode=stateless): access token RS256 de vida curta, validado só pela
+ *   assinatura (a chave pública pode ser usada pelo serviço de eventos).
+ * Revogações de access token (logout) são propagadas por pub/sub e mantidas em memória até o exp.
+ */
+@Component
+public class AccessTokenService implements MessageListener {
+
+    public static final String REVOCATION_CHANNEL = "auth:access:revoked";
+    public static final String ACCESS_ALGORITHM = "RS256";
+
+    private static final Logger logger = LoggerFactory.getLogger(AccessTokenService.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final boolean stateless;
+    private final Duration accessTtl;
+    private final String keyId;
+    private final PrivateKey privateKey;
+    private final PublicKey publicKey;
+    private final JwtParser parser;
+    private final Cache<String, Boolean> revokedJtis;
+
+    public AccessTokenService(@Qualifier("stringRedisTemplate") RedisTemplate<String, String> redisTemplate,
+                              @Value("${jwt.secret}") String jwtSecret,
+                              @Value("${auth.token.mode:legacy}") String mode,
+                              @Value("${auth.access-token.ttl-seconds:300}") long accessTtlSeconds,
+                              @Value("${auth.access-token.key-id:flowlinker-1}") String keyId,
+                              @Value("${auth.access-token.private-key:}") String privateKeyValue,
+                              @Value("${auth.access-token.public-key:}") String publicKeyValue) {
+        this.redisTemplate = redisTemplate;
+        this.stateless = "stateless".equalsIgnoreCase(mode);
+        this.accessTtl = Duration.ofSeconds(accessTtlSeconds);
+        this.keyId = keyId;
+        this.privateKey = isBlank(privateKeyValue) ? null : parsePrivateKey(privateKeyValue);
+        this.publicKey = isBlank(publicKeyValue) ? null : parsePublicKey(publicKeyValue);
+        if (stateless && (privateKey == null || publicKey == null)) {
+            throw new IllegalStateException("auth.access-token.private-key/public-key são obrigatórios com auth.token.mode=stateless");
+        }
+        SecretKey hmacKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        // Escolhe a chave pelo alg do header: RS256 → chave pública, demais → segredo legado
+        this.parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(JwsHeader header) {
+                        return ACCESS_ALGORITHM.equals(header.getAlgorithm()) ? publicKey : hmacKey;
+                    }
+                })
+                .build();
+        this.revokedJtis = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(accessTtl)
+                .build();
+    }
+
+    public boolean isStateless() {
+        return stateless;
+    }
+
+    public Duration getAccessTtl() {
+        return accessTtl;
+    }
+
+    public String issueAccessToken(String subject, Map<String, Object> claims) {
+        Date now = new Date();
+        return Jwts.builder()
+                .header().keyId(keyId).and()
+                .claims(claims)
+                .subject(subject)
+                .id(UUID.randomUUID().toString())
+                .issuedAt(now)
+                .expiration(new Date(now.getTime() + accessTtl.toMillis()))
+                .signWith(privateKey, Jwts.SIG.RS256)
+                .compact();
+    }
+
+    /**
+     * Valida assinatura/exp de um token legado ou stateless.
+     * Lança as exceções do jjwt (ex.: ExpiredJwtException) quando inválido.
+     */
+    public ParsedToken parse(String token) {
+        var jws = parser.parseSignedClaims(token);
+        return new ParsedToken(jws.getPayload(), isStatelessHeader(jws.getHeader()));
+    }
+
+    public boolean isStatelessHeader(Header header) {
+        return header instanceof JwsHeader jh && ACCESS_ALGORITHM.equals(jh.getAlgorithm());
+    }
+
+    public boolean isRevoked(Claims claims) {
+        String jti = claims.getId();
+        return jti != null && revokedJtis.getIfPresent(jti) != null;
+    }
+
+    /** Revoga um access token stateless em todos os nós até ele expirar naturalmente. */
+    public void revoke(Claims claims) {
+        String jti = claims.getId();
+        if (jti == null) return;
+        revokedJtis.put(jti, Boolean.TRUE);
+        try {
+            redisTemplate.convertAndSend(REVOCATION_CHANNEL, jti);
+        } catch (Exception e) {
+            logger.warn("Falha ao publicar revogação de access token jti={}: {}", jti, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(@NonNull Message message, byte[] pattern) {
+        revokedJtis.put(new String(message.getBody(), StandardCharsets.UTF_8), Boolean.TRUE);
+    }
+
+    /** Chave pública (X.509, base64) para validação externa dos access tokens. */
+    public Map<String, String> publicKeyInfo() {
+        if (publicKey == null) return Map.of();
+        return Map.of(
+                "alg", ACCESS_ALGORITHM,
+                "kid", keyId,
+                "publicKey", Base64.getEncoder().encodeToString(publicKey.getEncoded())
+        );
+    }
+
+    public record ParsedToken(Claims claims, boolean stateless) {}
+
+    private static boolean isBlank(String s) {
+        return s == null || s.isBlank();
+    }
+
+    private static byte[] decodePem(String value) {
+        String base64 = value.replaceAll("-----[A-Z ]+-----", "").replaceAll("\\s", "");
+        return Base64.getDecoder().decode(base64);
+    }
+
+    private static PrivateKey parsePrivateKey(String value) {
+        try {
+            return KeyFactory.getInstance("RSA").generatePrivate(new PKCS8EncodedKeySpec(decodePem(value)));
+        } catch (Exception e) {
+            throw new IllegalStateException("auth.access-token.private-key inválida (esperado RSA PKCS#8)", e);
+        }
+    }
+
+    private static PublicKey parsePublicKey(String value) {
+        try {
+            return KeyFactory.getInstance("RSA").generatePublic(new X509EncodedKeySpec(decodePem(value)));
+        } catch (Exception e) {
+            throw new IllegalStateException("auth.access-token.public-key inválida (esperado RSA X.509)", e);
+        }
+    }
+}
@@ -3,7 +3,10 @@ package br.com.flowlinkerAPI.config.security;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 import lombok.RequiredArgsConstructor;
+import br.com.flowlinkerAPI.config.security.DeviceNearCache.DeviceSnapshot;
 import br.com.flowlinkerAPI.model.Device;
 import br.com.flowlinkerAPI.repository.DeviceRepository;
 
@@ -11,7 +14,11 @@ import br.com.flowlinkerAPI.repository.DeviceRepository;
 @RequiredArgsConstructor
 public class CurrentRequest {
 
+    private static final String DEVICE_ATTR = CurrentRequest.class.getName() + ".device";
+    private static final Object NO_DEVICE = new Object();
+
     private final DeviceRepository deviceRepository;
+    private final DeviceNearCache deviceNearCache;
 
     public CurrentUser get() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -50,12 +57,43 @@ public class CurrentRequest {
         return getDeviceFingerprint() != null;
     }
 
+    /**
+     * Device autenticado carregado do banco no máximo uma vez por request
+     * (memoizado nos atributos da request). Fora de uma request (ex.: @Async) consulta direto.
+     */
     public Device getDevice() {
         Long customerId = getCustomerId();
         String fp = getDeviceFingerprint();
         if (customerId == null || fp == null) return null;
-        return deviceRepository.findByCustomerIdAndFingerprint(customerId, fp).orElse(null);
-    }
-}
 
+        RequestAttributes attrs = RequestContextHolder.getRequestAttributes();
+        if (attrs != null) {
+            Object memo = attrs.getAttribute(DEVICE_ATTR, RequestAttributes.SCOPE_REQUEST);
+            if (memo != null) {
+                return memo == NO_DEVICE ? null : (Device) memo;
+            }
+        }
+        Device device = deviceRepository.findByCustomerIdAndFingerprint(customerId, fp).orElse(null);
+        if (device != null) {
+            deviceNearCache.put(DeviceSnapshot.of(device));
+        }
+        if (attrs != null) {
+            attrs.setAttribute(DEVICE_ATTR, device != null ? device : NO_DEVICE, RequestAttributes.SCOPE_REQUEST);
+        }
+        return device;
+    }
 
+    /**
+     * Id/status do device autenticado servidos pelo near cache; só vai ao banco em miss.
+     * Use quando a entidade completa não é necessária (filtros, ingestão de eventos).
+     */
+    public DeviceSnapshot getDeviceSnapshot() {
+        Long customerId = getCustomerId();
+        String fp = getDeviceFingerprint();
+        if (customerId == null || fp == null) return null;
+        DeviceSnapshot cached = deviceNearCache.get(customerId, fp);
+        if (cached != null) return cached;
+        Device device = getDevice();
+        return device != null ? DeviceSnapshot.of(device) : null;
+    }
+}
@@ -0,0 +1,124 @@
+package br.com.flowlinkerAPI.config.security;
+
+import br.com.flowlinkerAPI.model.Device;
+import br.com.flowlinkerAPI.model.DeviceStatus;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Near cache (por nó, TTL curto) do device autenticado, chaveado por (customerId, fingerprint).
+ * Guarda apenas um snapshot imutável (id/status), nunca a entidade JPA, para não
+ * compartilhar objetos gerenciados entre threads. Alterações de status publicam
+ * invalidação via Redis pub/sub para os demais nós.
+ */
+@Component
+public class DeviceNearCache implements MessageListener {
+
+    public static final String INVALIDATION_CHANNEL = "device:cache:invalidate";
+    private static final String ALL_FINGERPRINTS = "*";
+
+    private static final Logger logger = LoggerFactory.getLogger(DeviceNearCache.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final boolean enabled;
+    private final Cache<String, DeviceSnapshot> cache;
+
+    public record DeviceSnapshot(Long id, Long customerId, String fingerprint, DeviceStatus status) {
+        public static DeviceSnapshot of(Device device) {
+            Long customerId = device.getCustomer() != null ? device.getCustomer().getId() : null;
+            return new DeviceSnapshot(device.getId(), customerId, device.getFingerprint(), device.getStatus());
+        }
+    }
+
+    public DeviceNearCache(@Qualifier("stringRedisTemplate") RedisTemplate<String, String> redisTemplate,
+                           MeterRegistry meterRegistry,
+                           @Value("${device.cache.enabled:true}") boolean enabled,
+                           @Value("${device.cache.max-size:20000}") long maxSize,
+                           @Value("${device.cache.ttl-seconds:30}") long ttlSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "device.near");
+    }
+
+    public DeviceSnapshot get(Long customerId, String fingerprint) {
+        if (!enabled || customerId == null || fingerprint == null) return null;
+        return cache.getIfPresent(key(customerId, fingerprint));
+    }
+
+    public void put(DeviceSnapshot snapshot) {
+        if (!enabled || snapshot == null || snapshot.customerId() == null || snapshot.fingerprint() == null) return;
+        cache.put(key(snapshot.customerId(), snapshot.fingerprint()), snapshot);
+    }
+
+    public void invalidate(Long customerId, String fingerprint) {
+        if (customerId == null || fingerprint == null) return;
+        afterCommit(key(customerId, fingerprint));
+    }
+
+    public void invalidateCustomer(Long customerId) {
+        if (customerId == null) return;
+        afterCommit(key(customerId, ALL_FINGERPRINTS));
+    }
+
+    @Override
+    public void onMessage(@NonNull Message message, byte[] pattern) {
+        evictLocal(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    // Invalida só após o commit para que outra thread não recarregue o status antigo do banco
+    private void afterCommit(String key) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictAndPublish(key);
+                }
+            });
+        } else {
+            evictAndPublish(key);
+        }
+    }
+
+    private void evictAndPublish(String key) {
+        evictLocal(key);
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, key);
+        } catch (Exception e) {
+            logger.warn("Falha ao publicar invalidação de device key={}: {}", key, e.getMessage());
+        }
+    }
+
+    private void evictLocal(String key) {
+        if (key.endsWith(":" + ALL_FINGERPRINTS)) {
+            String prefix = key.substring(0, key.length() - ALL_FINGERPRINTS.length());
+            cache.asMap().keySet().removeIf(k -> k.startsWith(prefix));
+        } else {
+            cache.invalidate(key);
+        }
+    }
+
+    private static String key(Long customerId, String fingerprint) {
+        return customerId + ":" + fingerprint;
+    }
+}
@@ -0,0 +1,157 @@
+package br.com.flowlinkerAPI.config.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache local (por nó) de principals já validados pelo JwtAuthenticationFilter.
+ * Chave = SHA-256 do token; o valor guarda a chave Redis que validou o token
+ * (device:token:{cid}:{fp} / {type}:token:{user}) para permitir invalidação
+ * em todos os nós via pub/sub quando login/logout substitui essa chave.
+ * Um índice secundário chave Redis → hashes de token deixa a invalidação O(1), sem varrer o cache.
+ */
+@Component
+public class TokenPrincipalCache implements MessageListener {
+
+    public static final String INVALIDATION_CHANNEL = "auth:token:invalidate";
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenPrincipalCache.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final Cache<String, CachedPrincipal> cache;
+    private final ConcurrentHashMap<String, Set<String>> tokensByRedisKey = new ConcurrentHashMap<>();
+
+    record CachedPrincipal(CurrentUser principal, String redisKey, String authType, String fingerprint, long expiresAtMillis) {}
+
+    public TokenPrincipalCache(@Qualifier("stringRedisTemplate") RedisTemplate<String, String> redisTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${auth.token-cache.enabled:true}") boolean enabled,
+                               @Value("${auth.token-cache.max-size:10000}") long maxSize,
+                               @Value("${auth.token-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.ttlNanos = Duration.ofSeconds(ttlSeconds).toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, CachedPrincipal>() {
+                    @Override
+                    public long expireAfterCreate(@NonNull String key, @NonNull CachedPrincipal value, long currentTime) {
+                        // Nunca mantém além do exp do próprio JWT
+                        long untilExp = Duration.ofMillis(value.expiresAtMillis() - System.currentTimeMillis()).toNanos();
+                        return Math.max(0, Math.min(ttlNanos, untilExp));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(@NonNull String key, @NonNull CachedPrincipal value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(@NonNull String key, @NonNull CachedPrincipal value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                // mantém o índice em dia quando a entrada sai por TTL/tamanho/invalidação (substituição mantém o hash)
+                .removalListener((String tokenHash, CachedPrincipal value, RemovalCause cause) -> {
+                    if (tokenHash != null && value != null && cause != RemovalCause.REPLACED) {
+                        unindex(value.redisKey(), tokenHash);
+                    }
+                })
+                .executor(Runnable::run)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "auth.token.principal");
+    }
+
+    /**
+     * Retorna o principal já validado para o token, desde que os headers
+     * X-Auth-Type / X-Fingerprint sejam os mesmos usados na validação original.
+     */
+    public CurrentUser get(String token, String authType, String fingerprint) {
+        if (!enabled || token == null) return null;
+        CachedPrincipal cached = cache.getIfPresent(hash(token));
+        if (cached == null) return null;
+        if (!Objects.equals(cached.authType(), authType) || !Objects.equals(cached.fingerprint(), fingerprint)) {
+            return null;
+        }
+        return cached.principal();
+    }
+
+    public void put(String token, String authType, String fingerprint, String redisKey, CurrentUser principal, Date expiration) {
+        if (!enabled || token == null || principal == null || redisKey == null) return;
+        long exp = expiration != null ? expiration.getTime() : Long.MAX_VALUE;
+        String tokenHash = hash(token);
+        tokensByRedisKey.computeIfAbsent(redisKey, k -> ConcurrentHashMap.newKeySet()).add(tokenHash);
+        cache.put(tokenHash, new CachedPrincipal(principal, redisKey, authType, fingerprint, exp));
+        // uma invalidação entre o índice e o put levou o hash do índice, mas não a entrada (ainda ausente):
+        // sem o hash no índice a entrada não seria mais alcançada por invalidações, então sai agora
+        Set<String> indexed = tokensByRedisKey.get(redisKey);
+        if (indexed == null || !indexed.contains(tokenHash)) cache.invalidate(tokenHash);
+    }
+
+    /**
+     * Remove localmente e avisa os demais nós que tokens validados contra a chave
+     * Redis informada não são mais válidos (logout ou novo login para a mesma chave).
+     */
+    public void invalidate(String redisKey) {
+        if (redisKey == null) return;
+        evictLocal(redisKey);
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, redisKey);
+        } catch (Exception e) {
+            // Sem pub/sub os demais nós expiram a entrada pelo TTL curto
+            logger.warn("Falha ao publicar invalidação de token key={}: {}", redisKey, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(@NonNull Message message, byte[] pattern) {
+        evictLocal(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    private void evictLocal(String redisKey) {
+        Set<String> tokenHashes = tokensByRedisKey.remove(redisKey);
+        if (tokenHashes != null) cache.invalidateAll(tokenHashes);
+    }
+
+    private void unindex(String redisKey, String tokenHash) {
+        tokensByRedisKey.computeIfPresent(redisKey, (k, hashes) -> {
+            hashes.remove(tokenHash);
+            return hashes.isEmpty() ? null : hashes;
+        });
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+}
@@ -15,6 +15,9 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import br.com.flowlinkerAPI.dto.auth.ForgotPasswordRequestDTO;
 import br.com.flowlinkerAPI.dto.auth.ResetPasswordRequestDTO;
+import br.com.flowlinkerAPI.dto.auth.TokenPairDTO;
+import br.com.flowlinkerAPI.config.security.AccessTokenService;
+import java.util.Map;
 
 
 @RestController
@@ -24,19 +27,22 @@ public class AuthController {
 
     private final UserService userService;
     private final PasswordResetService passwordResetService;
+    private final AccessTokenService accessTokenService;
 
     private final Logger logger = LoggerFactory.getLogger(AuthController.class);
 
-    public AuthController(UserService userService, PasswordResetService passwordResetService) {
+    public AuthController(UserService userService, PasswordResetService passwordResetService, AccessTokenService accessTokenService) {
         this.userService = userService;
         this.passwordResetService = passwordResetService;
+        this.accessTokenService = accessTokenService;
     }
 
     @Operation(
         summary = "Login",
-        description = "Realiza a autenticação. Para `type=web`, o JWT é gravado em cookie httpOnly `jwtToken` e retorna 204. Para `type=device`, retorna o token no corpo."
+        description = "Realiza a autenticação. Para `type=web`, o JWT é gravado em cookie httpOnly `jwtToken` e retorna 204. Para `type=device`, retorna o token no corpo. "
+            + "Com `auth.token.mode=stateless`, o device recebe `{accessToken, refreshToken, tokenType, expiresIn}` e o web também recebe o cookie httpOnly `refreshToken`."
     )
-    @ApiResponse(responseCode = "200", description = "Autenticado (fluxo device)", content = @Content(mediaType = "text/plain"))
+    @ApiResponse(responseCode = "200", description = "Autenticado (fluxo device)", content = {@Content(mediaType = "text/plain"), @Content(mediaType = "application/json")})
     @ApiResponse(responseCode = "204", description = "Autenticado (fluxo web, cookie definido)")
     @ApiResponse(responseCode = "401", description = "Credenciais inválidas")
     @PostMapping("/login")
@@ -55,18 +61,46 @@ public class AuthController {
                                    HttpServletRequest request,
                                    HttpServletResponse response) {
         logger.info("Login request received for username: {}", username);
-        String token = userService.loginAndGenerateToken(
+        TokenPairDTO tokens = userService.loginAndGenerateToken(
             username, password, type, fingerprint, deviceId, hwHash,
             osName, osVersion, arch, hostname, appVersion,
             request, response
         );
         if("web".equals(type)) {
             return ResponseEntity.status(204).build();
+        } else if (tokens.refreshToken() != null) {
+            return ResponseEntity.ok(tokens);
         } else {
-            return ResponseEntity.ok(token);
+            return ResponseEntity.ok(tokens.accessToken());
         }
     }
 
+    @Operation(
+        summary = "Renovar access token",
+        description = "Somente com `auth.token.mode=stateless`. Consome o refresh token (uso único) e emite um novo par. "
+            + "Device envia `X-Refresh-Token`; web usa o cookie httpOnly `refreshToken` e recebe os novos cookies (204)."
+    )
+    @ApiResponse(responseCode = "200", description = "Novo par de tokens (fluxo device)")
+    @ApiResponse(responseCode = "204", description = "Cookies renovados (fluxo web)")
+    @ApiResponse(responseCode = "401", description = "Refresh token inválido, expirado ou já utilizado")
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestHeader(value = "X-Refresh-Token", required = false) String refreshToken,
+                                     HttpServletRequest request,
+                                     HttpServletResponse response) {
+        TokenPairDTO tokens = userService.refresh(refreshToken, request, response);
+        return tokens == null ? ResponseEntity.status(204).build() : ResponseEntity.ok(tokens);
+    }
+
+    @Operation(
+        summary = "Chave pública dos access tokens",
+        description = "Chave RSA (X.509/base64) para serviços externos validarem os access tokens RS256 sem consultar a API."
+    )
+    @GetMapping("/public-key")
+    public ResponseEntity<Map<String, String>> publicKey() {
+        Map<String, String> info = accessTokenService.publicKeyInfo();
+        return info.isEmpty() ? ResponseEntity.notFound().build() : ResponseEntity.ok(info);
+    }
+
     @Operation(
         summary = "Solicitar redefinição de senha",
         description = "Envia um e-mail com link contendo JWT para redefinição de senha. Não revela se o e-mail existe."
@@ -92,7 +126,7 @@ public class AuthController {
 
     @Operation(
         summary = "Logout",
-        description = "Invalida o token atual. Para web, também limpa o cookie httpOnly `jwtToken`. Requer envio do token por Authorization: Bearer ou cookie."
+        description = "Invalida o token atual (e o refresh token da sessão, no modo stateless). Para web, também limpa os cookies httpOnly `jwtToken`/`refreshToken`. Requer envio do token por Authorization: Bearer ou cookie."
     )
     @ApiResponse(responseCode = "204", description = "Logout efetuado")
     @PostMapping("/logout")
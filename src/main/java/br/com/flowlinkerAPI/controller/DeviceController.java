@@ -1,6 +1,7 @@
 package br.com.flowlinkerAPI.controller;
 
 import br.com.flowlinkerAPI.config.security.CurrentRequest;
+import br.com.flowlinkerAPI.config.security.DeviceNearCache;
 import br.com.flowlinkerAPI.dto.device.HeartbeatRequest;
 import br.com.flowlinkerAPI.dto.device.HeartbeatResponse;
 import br.com.flowlinkerAPI.model.AppRelease;
@@ -39,19 +40,22 @@ public class DeviceController {
     private final CustomerRepository customerRepository;
     private final DevicePolicyService devicePolicyService;
     private final DeviceService deviceService;
+    private final DeviceNearCache deviceNearCache;
 
     public DeviceController(DeviceRepository deviceRepository,
                             AppReleaseRepository appReleaseRepository,
                             CurrentRequest currentRequest,
                             CustomerRepository customerRepository,
                             DevicePolicyService devicePolicyService,
-                            DeviceService deviceService) {
+                            DeviceService deviceService,
+                            DeviceNearCache deviceNearCache) {
         this.deviceRepository = deviceRepository;
         this.appReleaseRepository = appReleaseRepository;
         this.currentRequest = currentRequest;
         this.customerRepository = customerRepository;
         this.devicePolicyService = devicePolicyService;
         this.deviceService = deviceService;
+        this.deviceNearCache = deviceNearCache;
     }
 
     @Operation(summary = "Heartbeat (GET)", description = "Endpoint legado de heartbeat para dispositivos.")
@@ -235,6 +239,9 @@ public class DeviceController {
         device.setLastIp(ip);
         device.setLastSeenAt(Instant.now());
         deviceRepository.save(device);
+        if (body != null && body.status != null && device.getCustomer() != null) {
+            deviceNearCache.invalidate(device.getCustomer().getId(), device.getFingerprint());
+        }
 
         String currentVersion = (body != null && body.appVersion != null) ? body.appVersion : device.getAppVersion();
         HeartbeatResponse resp = new HeartbeatResponse();
@@ -2,23 +2,27 @@
 package br.com.flowlinkerAPI.controller;
 
 import br.com.flowlinkerAPI.config.security.CurrentRequest;
-import br.com.flowlinkerAPI.dto.event.EnrichedEventDTO;
-import br.com.flowlinkerAPI.dto.event.IngestEventDTO;
+import br.com.flowlinkerAPI.config.security.DeviceNearCache.DeviceSnapshot;
 import br.com.flowlinkerAPI.dto.event.IngestEventsRequest;
-import br.com.flowlinkerAPI.model.Device;
+import br.com.flowlinkerAPI.exceptions.EventPublishException;
+import br.com.flowlinkerAPI.exceptions.IngestBackpressureException;
 import br.com.flowlinkerAPI.service.EventPublisherService;
+import br.com.flowlinkerAPI.service.EventStreamIngestionService;
+import br.com.flowlinkerAPI.service.EventStreamIngestionService.StreamIngestResult;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.Instant;
-import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.UUID;
 
 @RestController
 @RequestMapping("/ingest")
@@ -27,11 +31,14 @@ public class EventIngestionController {
 
 	private final EventPublisherService publisher;
 	private final CurrentRequest currentRequest;
+	private final EventStreamIngestionService streamIngestionService;
 	private static final Logger logger = LoggerFactory.getLogger(EventIngestionController.class);
 
-	public EventIngestionController(EventPublisherService publisher, CurrentRequest currentRequest) {
+	public EventIngestionController(EventPublisherService publisher, CurrentRequest currentRequest,
+	                                EventStreamIngestionService streamIngestionService) {
 		this.publisher = publisher;
 		this.currentRequest = currentRequest;
+		this.streamIngestionService = streamIngestionService;
 	}
 
 	@PostMapping("/events")
@@ -41,44 +48,86 @@ public class EventIngestionController {
 			return ResponseEntity.status(401).body(Map.of("code","UNAUTHENTICATED","message","Autenticação requerida"));
 		}
 
-		Device device = currentRequest.getDevice(); 
+		DeviceSnapshot device = currentRequest.getDeviceSnapshot();
 		Long customerId = currentRequest.getCustomerId();
 
 		String ip = extractIp(req);
 
-		List<IngestEventDTO> events = body.events();
 		Instant receivedAt = Instant.now();
 
-		for (IngestEventDTO e : events) {
-			if (e == null) {
-				continue;
-			}
-			// Loga apenas o tipo do evento recebido
-			if (e.eventType() != null) {
-				logger.info("ingest eventType={}", e.eventType());
-			}
-			String eventId = (e.eventId() != null && !e.eventId().isBlank()) ? e.eventId() : UUID.randomUUID().toString();
-
-			EnrichedEventDTO enriched = new EnrichedEventDTO(
-					eventId,
-					e.eventType(),
-					e.eventAt(),
-					receivedAt,
-					e.payload(),
-					customerId,
-					device != null ? device.getId() : null,
-					ip
-			);
-
-			publisher.publish(enriched);
-		}
+		// 202 só depois que o broker confirmou o lote inteiro
+		EventPublisherService.PublishResult result = publisher.publishBatch(body, customerId, device != null ? device.id() : null, ip, receivedAt);
 
+		// accepted = publicados de fato; reenvios já vistos saem em duplicates
 		return ResponseEntity.accepted().body(Map.of(
-				"accepted", events.size(),
+				"accepted", result.published(),
+				"duplicates", result.duplicates(),
 				"receivedAt", receivedAt.toString()
 		));
 	}
 
+	/**
+	 * Backlogs grandes: um evento JSON por linha (application/x-ndjson), opcionalmente com
+	 * Content-Encoding: gzip. Publica em micro-lotes enquanto lê; em 400 (JSON inválido) ou 429/503
+	 * o cliente retoma a partir do evento {@code processed}.
+	 */
+	@PostMapping(value = "/events/stream", consumes = "application/x-ndjson")
+	public ResponseEntity<?> ingestStream(HttpServletRequest req) throws IOException {
+		var cu = currentRequest.get();
+		if (cu == null) {
+			return ResponseEntity.status(401).body(Map.of("code","UNAUTHENTICATED","message","Autenticação requerida"));
+		}
+
+		DeviceSnapshot device = currentRequest.getDeviceSnapshot();
+		Long customerId = currentRequest.getCustomerId();
+		Instant receivedAt = Instant.now();
+
+		StreamIngestResult result;
+		try (InputStream in = openBody(req)) {
+			result = streamIngestionService.ingest(in, customerId, device != null ? device.id() : null, extractIp(req), receivedAt);
+		}
+
+		Map<String, Object> body = new LinkedHashMap<>();
+		body.put("accepted", result.accepted());
+		body.put("rejected", result.rejected());
+		body.put("duplicates", result.duplicates());
+		body.put("processed", result.processed());
+		body.put("errors", result.errors());
+		body.put("receivedAt", receivedAt.toString());
+
+		RuntimeException failure = result.failure();
+		if (failure == null) {
+			if (result.malformed()) {
+				// o que veio antes da linha inválida já foi publicado; o cliente corrige e retoma de processed
+				body.put("code", "INVALID_NDJSON");
+				body.put("message", "JSON inválido na linha " + (result.processed() + 1) + "; leitura interrompida");
+				return ResponseEntity.badRequest().body(body);
+			}
+			return ResponseEntity.accepted().body(body);
+		}
+		body.put("message", failure.getMessage());
+		if (failure instanceof IngestBackpressureException bp) {
+			body.put("code", "INGEST_BACKPRESSURE");
+			return ResponseEntity.status(429)
+					.header(HttpHeaders.RETRY_AFTER, String.valueOf(bp.getRetryAfterSeconds()))
+					.body(body);
+		}
+		if (failure instanceof EventPublishException) {
+			body.put("code", "EVENTS_NOT_CONFIRMED");
+			return ResponseEntity.status(503).body(body);
+		}
+		throw failure;
+	}
+
+	private InputStream openBody(HttpServletRequest req) throws IOException {
+		String encoding = req.getHeader(HttpHeaders.CONTENT_ENCODING);
+		InputStream in = req.getInputStream();
+		if (encoding != null && encoding.toLowerCase().contains("gzip")) {
+			return new java.util.zip.GZIPInputStream(in, 8192);
+		}
+		return in;
+	}
+
 	private String extractIp(HttpServletRequest req) {
 		String xf = req.getHeader("X-Forwarded-For");
 		if (xf != null && !xf.isBlank()) {
@@ -1,8 +1,15 @@
 package br.com.flowlinkerAPI.controller;
 
 import br.com.flowlinkerAPI.dto.desktop.GroupExtractionRequestDTO;
+import br.com.flowlinkerAPI.dto.desktop.CursorPageDTO;
 import br.com.flowlinkerAPI.dto.desktop.ExtractionSummaryDTO;
 import br.com.flowlinkerAPI.dto.desktop.ExtractionGroupDTO;
+import br.com.flowlinkerAPI.dto.desktop.ExtractionChunkDTO;
+import br.com.flowlinkerAPI.dto.desktop.ExtractionUploadSessionDTO;
+import br.com.flowlinkerAPI.dto.desktop.ExtractionSetOperationRequestDTO;
+import br.com.flowlinkerAPI.dto.desktop.ExtractionSetOperationResultDTO;
+import br.com.flowlinkerAPI.service.ExtractionSetService;
+import br.com.flowlinkerAPI.service.ExtractionUploadService;
 import br.com.flowlinkerAPI.service.GroupExtractionService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -15,6 +22,8 @@ import org.springframework.data.domain.Page;
 public class ExtractionController {
 
     private final GroupExtractionService groupExtractionService;
+    private final ExtractionUploadService extractionUploadService;
+    private final ExtractionSetService extractionSetService;
 
     @PostMapping
     public ResponseEntity<Void> createExtraction(@RequestBody GroupExtractionRequestDTO payload) {
@@ -22,6 +31,35 @@ public class ExtractionController {
         return ResponseEntity.accepted().build();
     }
 
+    // Upload em sessão para extrações grandes: abre, envia chunks numerados (retomável) e conclui
+    @PostMapping("/sessions")
+    public ResponseEntity<ExtractionUploadSessionDTO> openUploadSession(@RequestBody GroupExtractionRequestDTO header) {
+        return ResponseEntity.ok(extractionUploadService.open(header));
+    }
+
+    @PutMapping("/sessions/{sessionId}/chunks/{index}")
+    public ResponseEntity<ExtractionUploadSessionDTO> putChunk(@PathVariable String sessionId,
+                                                               @PathVariable int index,
+                                                               @RequestBody ExtractionChunkDTO chunk) {
+        return ResponseEntity.ok(extractionUploadService.putChunk(sessionId, index, chunk.getGroups()));
+    }
+
+    @GetMapping("/sessions/{sessionId}")
+    public ResponseEntity<ExtractionUploadSessionDTO> uploadSessionStatus(@PathVariable String sessionId) {
+        return ResponseEntity.ok(extractionUploadService.status(sessionId));
+    }
+
+    @PostMapping("/sessions/{sessionId}/commit")
+    public ResponseEntity<ExtractionUploadSessionDTO> commitUploadSession(@PathVariable String sessionId) {
+        return ResponseEntity.ok(extractionUploadService.commit(sessionId));
+    }
+
+    // União/interseção/diferença entre extrações; com save=true o resultado vira uma nova extração
+    @PostMapping("/sets")
+    public ResponseEntity<ExtractionSetOperationResultDTO> setOperation(@RequestBody ExtractionSetOperationRequestDTO req) {
+        return ResponseEntity.ok(extractionSetService.compute(req));
+    }
+
     
 
     @DeleteMapping("/{extractionId}")
@@ -36,6 +74,22 @@ public class ExtractionController {
         return ResponseEntity.ok(groupExtractionService.listSummaries(page, size));
     }
 
+    // Paginação por cursor: custo constante em páginas profundas; total só com withTotal=true
+    @GetMapping("/summaries/cursor")
+    public ResponseEntity<CursorPageDTO<ExtractionSummaryDTO>> listSummariesCursor(@RequestParam(required = false) String cursor,
+                                                                                  @RequestParam(defaultValue = "20") int size,
+                                                                                  @RequestParam(defaultValue = "false") boolean withTotal) {
+        return ResponseEntity.ok(groupExtractionService.listSummariesAfter(cursor, size, withTotal));
+    }
+
+    @GetMapping("/{extractionId}/groups/cursor")
+    public ResponseEntity<CursorPageDTO<ExtractionGroupDTO>> listGroupsCursor(@PathVariable Long extractionId,
+                                                                              @RequestParam(required = false) String cursor,
+                                                                              @RequestParam(defaultValue = "50") int size,
+                                                                              @RequestParam(defaultValue = "false") boolean withTotal) {
+        return ResponseEntity.ok(groupExtractionService.listGroupsAfter(extractionId, cursor, size, withTotal));
+    }
+
     @GetMapping("/{extractionId}/groups")
     public ResponseEntity<Page<ExtractionGroupDTO>> listGroups(@PathVariable Long extractionId,
                                                                @RequestParam(defaultValue = "0") int page,
@@ -0,0 +1,132 @@
+package br.com.flowlinkerAPI.controller;
+
+import br.com.flowlinkerAPI.config.security.CurrentUser;
+import br.com.flowlinkerAPI.service.MetricsRollupService;
+import br.com.flowlinkerAPI.service.RealtimeMetricsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Métricas calculadas localmente, com formato próprio (não é o do serviço de eventos): os endpoints
+ * de proxy em /metrics continuam sempre repassando o upstream. Janela fora dos dados locais responde 404.
+ */
+@RestController
+@RequestMapping("/metrics")
+@Tag(name = "Metrics (local)", description = "Métricas calculadas pela própria API a partir do stream de eventos")
+public class LocalMetricsController {
+
+    private static final int MAX_ROLLUP_DAYS = 366;
+
+    private final MetricsRollupService rollupService;
+    private final RealtimeMetricsService realtimeMetrics;
+
+    public LocalMetricsController(MetricsRollupService rollupService, RealtimeMetricsService realtimeMetrics) {
+        this.rollupService = rollupService;
+        this.realtimeMetrics = realtimeMetrics;
+    }
+
+    @Operation(summary = "Overview (contadores em tempo real)", description = "{events, shares, campaigns, peopleReached, groupsReached, hours, source}.")
+    @GetMapping("/realtime/overview")
+    public ResponseEntity<Object> realtimeOverview(@AuthenticationPrincipal CurrentUser user,
+                                                   @Parameter(description = "Janela em horas") @RequestParam(defaultValue = "24") Integer hours) {
+        return realtime(hours, h -> realtimeMetrics.overview(user.customerId(), h));
+    }
+
+    @Operation(summary = "Compartilhamentos (contadores em tempo real)", description = "{count, hours, source}.")
+    @GetMapping("/realtime/shares/count")
+    public ResponseEntity<Object> realtimeSharesCount(@AuthenticationPrincipal CurrentUser user,
+                                                      @Parameter(description = "Janela em horas") @RequestParam(defaultValue = "24") Integer hours) {
+        return realtime(hours, h -> realtimeMetrics.sharesCount(user.customerId(), h));
+    }
+
+    @Operation(summary = "Pessoas alcançadas (contadores em tempo real)", description = "{peopleReached, groupsReached, hours, source}; contagem aproximada (HyperLogLog).")
+    @GetMapping("/realtime/people-reached")
+    public ResponseEntity<Object> realtimePeopleReached(@AuthenticationPrincipal CurrentUser user,
+                                                        @Parameter(description = "Janela em horas") @RequestParam(defaultValue = "24") Integer hours) {
+        return realtime(hours, h -> realtimeMetrics.peopleReached(user.customerId(), h));
+    }
+
+    @Operation(summary = "Campanhas iniciadas (contadores em tempo real)", description = "{count, hours, source}.")
+    @GetMapping("/realtime/campaigns/count")
+    public ResponseEntity<Object> realtimeCampaignsCount(@AuthenticationPrincipal CurrentUser user,
+                                                         @Parameter(description = "Janela em horas") @RequestParam(defaultValue = "24") Integer hours) {
+        return realtime(hours, h -> realtimeMetrics.campaignsCount(user.customerId(), h));
+    }
+
+    @Operation(summary = "Séries diárias (rollups locais)", description = "Total de eventos por dia UTC: {days, series: [{date, count}]}.")
+    @GetMapping("/rollups/daily")
+    public ResponseEntity<Object> rollupDaily(@AuthenticationPrincipal CurrentUser user,
+                                              @Parameter(description = "Quantidade de dias") @RequestParam(defaultValue = "7") Integer days) {
+        int d = requireWindow(days, MAX_ROLLUP_DAYS, "days");
+        return rollup(() -> rollupService.daily(user.customerId(), d));
+    }
+
+    @Operation(summary = "Heatmap horário (rollups locais)", description = "Matriz 7x24 (segunda a domingo, hora UTC): {days, matrix}.")
+    @GetMapping("/rollups/heatmap")
+    public ResponseEntity<Object> rollupHeatmap(@AuthenticationPrincipal CurrentUser user,
+                                                @Parameter(description = "Quantidade de dias") @RequestParam(defaultValue = "7") Integer days) {
+        int d = requireWindow(days, MAX_ROLLUP_DAYS, "days");
+        return rollup(() -> rollupService.heatmap(user.customerId(), d));
+    }
+
+    @Operation(summary = "Distribuição por rede social (rollups locais)", description = "{hours, items: [{platform, count}]}.")
+    @GetMapping("/rollups/distribution/social")
+    public ResponseEntity<Object> rollupDistributionSocial(@AuthenticationPrincipal CurrentUser user,
+                                                           @Parameter(description = "Janela em horas") @RequestParam(defaultValue = "24") Integer hours) {
+        int h = requireWindow(hours, MAX_ROLLUP_DAYS * 24, "hours");
+        return rollup(() -> rollupService.distributionSocial(user.customerId(), h));
+    }
+
+    @Operation(summary = "Ranking de personas (rollups locais)", description = "{hours, items: [{persona, count}]}.")
+    @GetMapping("/rollups/ranking/personas")
+    public ResponseEntity<Object> rollupRankingPersonas(@AuthenticationPrincipal CurrentUser user,
+                                                        @Parameter(description = "Janela em horas") @RequestParam(defaultValue = "24") Integer hours,
+                                                        @Parameter(description = "Quantidade") @RequestParam(defaultValue = "10") Integer limit) {
+        int h = requireWindow(hours, MAX_ROLLUP_DAYS * 24, "hours");
+        int lim = limit != null ? Math.max(1, Math.min(limit, 100)) : 10;
+        return rollup(() -> rollupService.rankingPersonas(user.customerId(), h, lim));
+    }
+
+    private ResponseEntity<Object> realtime(Integer hours, IntFunction<Map<String, Object>> query) {
+        if (!realtimeMetrics.isEnabled()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Contadores em tempo real desligados");
+        }
+        int h = requireWindow(hours, realtimeMetrics.maxHours(), "hours");
+        Map<String, Object> body = query.apply(h);
+        if (body == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Janela anterior ao início dos contadores em tempo real");
+        }
+        return ResponseEntity.ok(body);
+    }
+
+    private ResponseEntity<Object> rollup(Supplier<Map<String, Object>> query) {
+        if (!rollupService.isEnabled()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Rollups locais desligados");
+        }
+        Map<String, Object> body = query.get();
+        if (body == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Janela anterior ao início dos rollups locais");
+        }
+        return ResponseEntity.ok(body);
+    }
+
+    private static int requireWindow(Integer value, int max, String name) {
+        if (value == null || value < 1 || value > max) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, name + " deve estar entre 1 e " + max);
+        }
+        return value;
+    }
+}
@@ -1,26 +1,48 @@
 package br.com.flowlinkerAPI.controller;
 
 import br.com.flowlinkerAPI.config.security.CurrentUser;
+import br.com.flowlinkerAPI.service.MetricsDashboardService;
 import br.com.flowlinkerAPI.service.MetricsProxyService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/metrics")
 @Tag(name = "Metrics", description = "Proxy dos endpoints do serviço externo de métricas/eventos")
 public class MetricsProxyController {
 
     private final MetricsProxyService service;
+    private final MetricsDashboardService dashboardService;
 
-    public MetricsProxyController(MetricsProxyService service) {
+    public MetricsProxyController(MetricsProxyService service, MetricsDashboardService dashboardService) {
         this.service = service;
+        this.dashboardService = dashboardService;
+    }
+
+    @Operation(summary = "Painel agregado", description = "Consulta vários widgets em paralelo e retorna um único documento; widgets com erro ou timeout vêm em \"errors\".")
+    @GetMapping("/dashboard")
+    public ResponseEntity<Object> dashboard(@AuthenticationPrincipal CurrentUser user,
+                                            @Parameter(description = "Widgets (ex.: overview,daily,heatmap). Vazio = conjunto padrão") @RequestParam(required = false) List<String> widgets,
+                                            @Parameter(description = "Janela em horas") @RequestParam(defaultValue = "24") Integer hours,
+                                            @Parameter(description = "Quantidade de dias") @RequestParam(defaultValue = "7") Integer days,
+                                            @Parameter(description = "Quantidade máxima de itens") @RequestParam(defaultValue = "10") Integer limit,
+                                            @Parameter(description = "Timezone (ex.: America/Sao_Paulo)") @RequestParam(required = false) String tz) {
+        MetricsDashboardService.DashboardParams params = new MetricsDashboardService.DashboardParams(hours, days, limit, tz);
+        return ResponseEntity.ok(dashboardService.load(user.customerId(), widgets, params));
     }
 
     @Operation(summary = "Overview", description = "Proxy para o endpoint /metrics/overview da API de eventos.")
@@ -39,18 +61,20 @@ public class MetricsProxyController {
 
     @Operation(summary = "Atividades recentes (formatado)", description = "Proxy para /metrics/recent com formatação compatível com o painel.")
     @GetMapping("/recent")
-    public ResponseEntity<Object> recent(@AuthenticationPrincipal CurrentUser user,
+    public ResponseEntity<byte[]> recent(@AuthenticationPrincipal CurrentUser user,
                                          @Parameter(description = "Quantidade máxima de eventos") @RequestParam(defaultValue = "20") Integer limit,
-                                         @Parameter(description = "Timezone (ex.: America/Sao_Paulo)") @RequestParam(required = false) String tz) {
-        return ResponseEntity.ok(service.getRecent(user.customerId(), limit, tz));
+                                         @Parameter(description = "Timezone (ex.: America/Sao_Paulo)") @RequestParam(required = false) String tz,
+                                         @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return passthrough(service.getRecentBytes(user.customerId(), limit, tz), ifNoneMatch);
     }
 
     @Operation(summary = "Atividades recentes (raw)", description = "Repassa exatamente o retorno do /metrics/recent da API de eventos.")
     @GetMapping("/recent/raw")
-    public ResponseEntity<Object> recentRaw(@AuthenticationPrincipal CurrentUser user,
+    public ResponseEntity<byte[]> recentRaw(@AuthenticationPrincipal CurrentUser user,
                                             @Parameter(description = "Quantidade máxima de eventos") @RequestParam(defaultValue = "20") Integer limit,
-                                            @Parameter(description = "Timezone desejada") @RequestParam(required = false) String tz) {
-        return ResponseEntity.ok(service.getRecentRaw(user.customerId(), limit, tz));
+                                            @Parameter(description = "Timezone desejada") @RequestParam(required = false) String tz,
+                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return passthrough(service.getRecentBytes(user.customerId(), limit, tz), ifNoneMatch);
     }
 
     @Operation(summary = "Resumo de ações", description = "Proxy para /metrics/actions/summary.")
@@ -99,16 +123,18 @@ public class MetricsProxyController {
 
     @Operation(summary = "Séries diárias", description = "Proxy para /metrics/daily.")
     @GetMapping("/daily")
-    public ResponseEntity<Object> daily(@AuthenticationPrincipal CurrentUser user,
-                                        @Parameter(description = "Quantidade de dias") @RequestParam(defaultValue = "7") Integer days) {
-        return ResponseEntity.ok(service.getDaily(user.customerId(), days));
+    public ResponseEntity<byte[]> daily(@AuthenticationPrincipal CurrentUser user,
+                                        @Parameter(description = "Quantidade de dias") @RequestParam(defaultValue = "7") Integer days,
+                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return passthrough(service.getDailyBytes(user.customerId(), days), ifNoneMatch);
     }
 
     @Operation(summary = "Heatmap horário", description = "Proxy para /metrics/heatmap.")
     @GetMapping("/heatmap")
-    public ResponseEntity<Object> heatmap(@AuthenticationPrincipal CurrentUser user,
-                                          @Parameter(description = "Quantidade de dias") @RequestParam(defaultValue = "7") Integer days) {
-        return ResponseEntity.ok(service.getHeatmap(user.customerId(), days));
+    public ResponseEntity<byte[]> heatmap(@AuthenticationPrincipal CurrentUser user,
+                                          @Parameter(description = "Quantidade de dias") @RequestParam(defaultValue = "7") Integer days,
+                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return passthrough(service.getHeatmapBytes(user.customerId(), days), ifNoneMatch);
     }
 
     @Operation(summary = "Ranking de personas", description = "Proxy para /metrics/ranking/personas.")
@@ -148,6 +174,17 @@ public class MetricsProxyController {
         Long cid = user.customerId();
         return ResponseEntity.ok(service.getAccountSuspensionStatus(cid, account, tz));
     }
-}
-
 
+    /** Repassa os bytes do upstream com o content type original; If-None-Match igual ao ETag responde 304 sem corpo. */
+    private ResponseEntity<byte[]> passthrough(MetricsProxyService.RawResponse raw, String ifNoneMatch) {
+        CacheControl revalidate = CacheControl.noCache().cachePrivate();
+        if (raw.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(raw.etag()).cacheControl(revalidate).build();
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(raw.contentType()))
+                .cacheControl(revalidate);
+        if (raw.etag() != null) builder.eTag(raw.etag());
+        return builder.body(raw.body());
+    }
+}
@@ -0,0 +1,16 @@
+package br.com.flowlinkerAPI.dto.auth;
+
+/**
+ * Resposta de login/refresh no modo stateless (auth.token.mode=stateless).
+ * No modo legado o device continua recebendo apenas o JWT em texto.
+ */
+public record TokenPairDTO(
+        String accessToken,
+        String refreshToken,
+        String tokenType,
+        long expiresIn
+) {
+    public static TokenPairDTO bearer(String accessToken, String refreshToken, long expiresInSeconds) {
+        return new TokenPairDTO(accessToken, refreshToken, "Bearer", expiresInSeconds);
+    }
+}
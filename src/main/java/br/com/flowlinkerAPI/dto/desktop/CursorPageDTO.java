@@ -0,0 +1,14 @@
+package br.com.flowlinkerAPI.dto.desktop;
+
+import lombok.*;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDTO<T> {
+    private List<T> items;
+    private String nextCursor; // opaco; null quando não há mais páginas
+    private Long total;        // só quando pedido (withTotal=true)
+}
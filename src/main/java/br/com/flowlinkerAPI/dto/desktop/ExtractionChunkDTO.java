@@ -0,0 +1,12 @@
+package br.com.flowlinkerAPI.dto.desktop;
+
+import lombok.*;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExtractionChunkDTO {
+    private List<GroupExtractionRequestDTO.SimpleGroupDTO> groups;
+}
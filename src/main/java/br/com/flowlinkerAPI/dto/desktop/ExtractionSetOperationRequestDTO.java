@@ -0,0 +1,14 @@
+package br.com.flowlinkerAPI.dto.desktop;
+
+import lombok.*;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExtractionSetOperationRequestDTO {
+    private String operation;          // UNION | INTERSECTION | DIFFERENCE (primeira menos as demais)
+    private List<Long> extractionIds;  // extrações do próprio cliente
+    private boolean save;              // grava o resultado como nova extração (usável em campanhas)
+}
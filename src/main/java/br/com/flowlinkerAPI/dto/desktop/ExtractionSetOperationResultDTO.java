@@ -0,0 +1,15 @@
+package br.com.flowlinkerAPI.dto.desktop;
+
+import lombok.*;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExtractionSetOperationResultDTO {
+    private String operation;
+    private List<Long> sourceExtractionIds;
+    private Integer groupsCount;
+    private Long extractionId; // extração derivada quando save=true; grupos via GET /extractions/{id}/groups
+}
@@ -11,6 +11,7 @@ public class ExtractionSummaryDTO {
     private Long id;
     private Instant extractedAt;
     private Integer groupsCount;
+    private String status; // PROCESSING enquanto os chunks são gravados (groupsCount cresce), depois COMPLETED/FAILED
     private String keywords; // texto simples
     private String socialAccountUsername;
     private String socialAccountPlatform;
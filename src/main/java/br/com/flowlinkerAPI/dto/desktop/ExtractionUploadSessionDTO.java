@@ -0,0 +1,16 @@
+package br.com.flowlinkerAPI.dto.desktop;
+
+import lombok.*;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExtractionUploadSessionDTO {
+    private String sessionId;
+    private Long extractionId;
+    private String status;               // UPLOADING | COMPLETED
+    private List<Integer> receivedChunks; // chunks já gravados (para retomar após falha de rede)
+    private Long groupsReceived;         // grupos válidos recebidos até agora
+}
@@ -0,0 +1,11 @@
+package br.com.flowlinkerAPI.exceptions;
+
+public class EventPublishException extends RuntimeException {
+    public EventPublishException(String message) {
+        super(message);
+    }
+
+    public EventPublishException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
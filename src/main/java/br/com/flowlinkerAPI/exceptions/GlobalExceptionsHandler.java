@@ -2,6 +2,7 @@ package br.com.flowlinkerAPI.exceptions;
 
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.MediaType;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import br.com.flowlinkerAPI.exceptions.dto.CustomerNotFoundDTO;
@@ -87,5 +88,50 @@ public class GlobalExceptionsHandler {
         ));
     }
 
+    @ExceptionHandler(EventPublishException.class)
+    public ResponseEntity<Map<String, String>> handleEventPublish(EventPublishException e) {
+        logger.error("Events not confirmed by broker: {}", e.getMessage());
+        return ResponseEntity.status(503)
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(Map.of(
+            "code", "EVENTS_NOT_CONFIRMED",
+            "message", e.getMessage()
+        ));
+    }
+
+    @ExceptionHandler(IngestBackpressureException.class)
+    public ResponseEntity<Map<String, String>> handleIngestBackpressure(IngestBackpressureException e) {
+        logger.warn("Ingest backpressure: {}", e.getMessage());
+        return ResponseEntity.status(429)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(Map.of(
+            "code", "INGEST_BACKPRESSURE",
+            "message", e.getMessage()
+        ));
+    }
+
+    @ExceptionHandler(UploadSessionNotFoundException.class)
+    public ResponseEntity<Map<String, String>> handleUploadSessionNotFound(UploadSessionNotFoundException e) {
+        logger.warn("Upload session not found: {}", e.getMessage());
+        return ResponseEntity.status(404)
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(Map.of(
+            "code", "UPLOAD_SESSION_NOT_FOUND",
+            "message", e.getMessage()
+        ));
+    }
+
+    @ExceptionHandler(UpstreamUnavailableException.class)
+    public ResponseEntity<Map<String, String>> handleUpstreamUnavailable(UpstreamUnavailableException e) {
+        logger.warn("Upstream unavailable: {}", e.getMessage());
+        return ResponseEntity.status(503)
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(Map.of(
+            "code", "UPSTREAM_UNAVAILABLE",
+            "message", e.getMessage()
+        ));
+    }
+
 
 }
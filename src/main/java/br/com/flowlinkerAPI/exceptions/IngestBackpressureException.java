@@ -0,0 +1,14 @@
+package br.com.flowlinkerAPI.exceptions;
+
+public class IngestBackpressureException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public IngestBackpressureException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
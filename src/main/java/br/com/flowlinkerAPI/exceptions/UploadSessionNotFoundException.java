@@ -0,0 +1,7 @@
+package br.com.flowlinkerAPI.exceptions;
+
+public class UploadSessionNotFoundException extends RuntimeException {
+    public UploadSessionNotFoundException(String message) {
+        super(message);
+    }
+}
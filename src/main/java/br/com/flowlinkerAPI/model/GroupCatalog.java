@@ -10,7 +10,8 @@ import java.time.Instant;
     name = "group_catalog",
     uniqueConstraints = {
         @UniqueConstraint(name = "uk_group_external_id", columnNames = {"external_id"}),
-        @UniqueConstraint(name = "uk_group_url", columnNames = {"url"})
+        // url (700 chars) não tem mais índice próprio: unicidade e busca pelo hash da url normalizada
+        @UniqueConstraint(name = "uk_group_url_hash", columnNames = {"url_hash"})
     }
 )
 @Getter
@@ -31,7 +32,10 @@ public class GroupCatalog {
     private String name;
 
 	@Column(nullable = false, length = 700)
-    private String url;
+    private String url; // normalizada (GroupCatalogUrls.normalize)
+
+    @Column(name = "url_hash", columnDefinition = "BINARY(16)")
+    private byte[] urlHash; // GroupCatalogUrls.hash(url); null em linhas antigas até o backfill
 
     @Column(name = "member_count")
     private Long memberCount; // quantidade de pessoas no grupo (quando informada)
@@ -0,0 +1,30 @@
+package br.com.flowlinkerAPI.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Linha do catálogo fundida em outra pelo backfill do url_hash. Enquanto as listas compactadas
+ * (group_extraction_groups) que ainda citam o id removido não são reescritas, a leitura troca
+ * loser_id por survivor_id; a linha sai quando a reescrita termina.
+ */
+@Entity
+@Table(name = "group_catalog_merge")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroupCatalogMerge {
+
+    @Id
+    @Column(name = "loser_id")
+    private Long loserId;
+
+    @Column(name = "survivor_id", nullable = false)
+    private Long survivorId;
+
+    @Column(name = "merged_at", nullable = false)
+    private Instant mergedAt;
+}
@@ -0,0 +1,90 @@
+package br.com.flowlinkerAPI.model;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Normalização e hash das urls do group_catalog. A mesma página chega com variações
+ * (http/https, m./mobile./web. do Facebook, barra final, parâmetros de rastreamento do Facebook),
+ * então a url é canonizada antes de gravar. Os prefixos de host só são unificados em www. para facebook.com;
+ * nos demais hosts o subdomínio pode ser outro site e fica como veio e a busca/unicidade usa url_hash (16 bytes do SHA-256)
+ * em vez da string de até 700 chars.
+ */
+public final class GroupCatalogUrls {
+
+    public static final int HASH_LENGTH = 16;
+
+    private static final String FACEBOOK_HOST = "facebook.com";
+    private static final List<String> FACEBOOK_PREFIXES = List.of("www.", "m.", "mobile.", "mbasic.", "web.", "touch.");
+    private static final Set<String> TRACKING_PARAMS = Set.of(
+            "fbclid", "ref", "refid", "ref_source", "ref_type", "mibextid", "rdid", "share_url", "_rdr",
+            "paipv", "eav", "acontext", "notif_id", "notif_t", "sfnsn", "extid", "locale");
+
+    private GroupCatalogUrls() {}
+
+    public static String normalize(String raw) {
+        if (raw == null) return null;
+        String value = raw.trim();
+        if (value.isEmpty()) return value;
+        if (!value.contains("://")) value = "https://" + value;
+        try {
+            URI uri = new URI(value);
+            String host = uri.getHost();
+            if (host == null) return raw.trim();
+            host = canonicalHost(host.toLowerCase(Locale.ROOT));
+
+            String path = uri.getRawPath() == null ? "" : uri.getRawPath().replaceAll("/{2,}", "/");
+            while (path.endsWith("/")) path = path.substring(0, path.length() - 1);
+
+            StringBuilder out = new StringBuilder("https://").append(host);
+            if (uri.getPort() > 0 && uri.getPort() != 80 && uri.getPort() != 443) out.append(':').append(uri.getPort());
+            out.append(path);
+            String query = canonicalQuery(uri.getRawQuery());
+            if (!query.isEmpty()) out.append('?').append(query);
+            return out.toString();
+        } catch (URISyntaxException e) {
+            return raw.trim();
+        }
+    }
+
+    // m.facebook.com, web.facebook.com, facebook.com... → www.facebook.com
+    private static String canonicalHost(String host) {
+        if (host.equals(FACEBOOK_HOST)) return "www." + FACEBOOK_HOST;
+        for (String prefix : FACEBOOK_PREFIXES) {
+            if (host.startsWith(prefix) && host.substring(prefix.length()).equals(FACEBOOK_HOST)) return "www." + FACEBOOK_HOST;
+        }
+        return host;
+    }
+
+    /** Hash da url já normalizada. */
+    public static byte[] hash(String normalizedUrl) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(normalizedUrl.getBytes(StandardCharsets.UTF_8));
+            return Arrays.copyOf(digest, HASH_LENGTH);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Remove rastreamento (utm_*, __tn__, __cft__[0]...) e ordena o restante para que a ordem não gere urls distintas
+    private static String canonicalQuery(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) return "";
+        List<String> kept = new ArrayList<>();
+        for (String pair : rawQuery.split("&")) {
+            if (pair.isEmpty()) continue;
+            String name = pair.split("=", 2)[0].toLowerCase(Locale.ROOT);
+            if (TRACKING_PARAMS.contains(name) || name.startsWith("utm_") || name.startsWith("__")) continue;
+            kept.add(pair);
+        }
+        kept.sort(null);
+        return String.join("&", kept);
+    }
+}
@@ -10,7 +10,8 @@ import java.util.List;
 @Entity
 @Table(name = "group_extraction", indexes = {
     @Index(name = "idx_ge_customer", columnList = "customer_id"),
-    @Index(name = "idx_ge_extracted_at", columnList = "extracted_at")
+    @Index(name = "idx_ge_extracted_at", columnList = "extracted_at"),
+    @Index(name = "idx_ge_customer_extracted_id", columnList = "customer_id, extracted_at, id") // paginação por cursor
 })
 @Getter
 @Setter
@@ -18,6 +19,11 @@ import java.util.List;
 @AllArgsConstructor
 public class GroupExtraction {
 
+    public static final String STATUS_UPLOADING = "UPLOADING";
+    public static final String STATUS_PROCESSING = "PROCESSING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_FAILED = "FAILED";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -43,8 +49,20 @@ public class GroupExtraction {
     @JoinColumn(name = "social_account_id")
     private SocialMediaAccount socialAccount; // conta que realizou a extração (opcional)
 
+    @Column(name = "status", length = 20)
+    private String status; // UPLOADING enquanto uma sessão de upload está aberta; null/COMPLETED = concluída
+
+    @Column(name = "updated_at")
+    private Instant updatedAt; // última atividade (criação, chunk gravado, mudança de status); limpeza de uploads abandonados
+
     @OneToMany(mappedBy = "extraction", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<GroupExtractionItem> items = new ArrayList<>();
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        updatedAt = Instant.now();
+    }
 }
 
 
@@ -0,0 +1,28 @@
+package br.com.flowlinkerAPI.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Grupos de uma extração concluída em uma única linha (ver {@link PackedGroupIds}).
+ * group_extraction_item fica só como área de staging enquanto a extração é gravada.
+ */
+@Entity
+@Table(name = "group_extraction_groups")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroupExtractionGroups {
+
+    @Id
+    @Column(name = "extraction_id")
+    private Long extractionId;
+
+    @Column(name = "group_count", nullable = false)
+    private Integer groupCount;
+
+    @Lob
+    @Column(name = "group_ids", nullable = false, columnDefinition = "MEDIUMBLOB")
+    private byte[] groupIds; // delta zigzag + varint, na ordem de chegada, com índice de saltos (ver PackedGroupIds)
+}
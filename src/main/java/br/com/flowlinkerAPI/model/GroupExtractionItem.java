@@ -25,6 +25,9 @@ public class GroupExtractionItem {
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "group_id", nullable = false)
     private GroupCatalog group;
+
+    @Column(name = "item_position")
+    private Long position; // ordem de chegada na extração; nulo nas linhas antigas (ordem pelo id)
 }
 
 
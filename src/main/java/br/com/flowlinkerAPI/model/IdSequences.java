@@ -0,0 +1,21 @@
+package br.com.flowlinkerAPI.model;
+
+/**
+ * Geração de ids em blocos (hi/lo "pooled") pela tabela id_sequences, para entidades inseridas em volume via JPA.
+ * Com IDENTITY o Hibernate precisa do insert para saber o id e desliga o batch de inserts;
+ * com a tabela ele reserva ALLOCATION_SIZE ids por ida ao banco e agrupa os inserts.
+ * O IdSequenceInitializer alinha cada sequência com o MAX(id) existente ao subir a aplicação.
+ */
+public final class IdSequences {
+
+    public static final String TABLE = "id_sequences";
+    public static final String PK_COLUMN = "sequence_name";
+    public static final String VALUE_COLUMN = "next_val";
+    public static final int ALLOCATION_SIZE = 50;
+
+    public static final String CAMPAIGN_ACCOUNT = "campaign_account";
+    public static final String DEVICE = "device";
+
+    private IdSequences() {
+    }
+}
@@ -0,0 +1,30 @@
+package br.com.flowlinkerAPI.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Eventos já somados em metrics_rollup_hourly, gravados na mesma transação do upsert para que a
+ * reentrega de um lote pelo RabbitMQ não conte o evento duas vezes. Removidos após a retenção
+ * (metrics.rollup.processed-retention-hours).
+ */
+@Entity
+@Table(
+    name = "metrics_rollup_event",
+    indexes = {
+        @Index(name = "idx_rollup_event_processed", columnList = "processed_hour")
+    }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class MetricsRollupEvent {
+
+    @Id
+    @Column(name = "event_key")
+    private Long eventKey; // 64 bits do SHA-256 de "customerId:eventId"
+
+    @Column(name = "processed_hour", nullable = false)
+    private Long processedHour; // horas desde 1970-01-01T00:00Z
+}
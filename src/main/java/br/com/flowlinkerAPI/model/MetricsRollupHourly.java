@@ -0,0 +1,45 @@
+package br.com.flowlinkerAPI.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Rollup horário dos eventos de atividade/campanha por cliente (mantido pelo MetricsRollupConsumer
+ * via INSERT ... ON DUPLICATE KEY UPDATE). Dimensões ausentes no payload ficam como string vazia
+ * para que a chave única continue válida.
+ */
+@Entity
+@Table(
+    name = "metrics_rollup_hourly",
+    uniqueConstraints = {
+        @UniqueConstraint(name = "uk_rollup_bucket", columnNames = {"customer_id", "hour_epoch", "event_type", "platform", "persona"})
+    }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class MetricsRollupHourly {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "customer_id", nullable = false)
+    private Long customerId;
+
+    @Column(name = "hour_epoch", nullable = false)
+    private Long hourEpoch; // horas desde 1970-01-01T00:00Z
+
+    @Column(name = "event_type", nullable = false, length = 100)
+    private String eventType;
+
+    @Column(nullable = false, length = 40)
+    private String platform;
+
+    @Column(nullable = false, length = 150)
+    private String persona;
+
+    @Column(name = "event_count", nullable = false)
+    private Long eventCount;
+}
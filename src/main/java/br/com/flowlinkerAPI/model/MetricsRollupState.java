@@ -0,0 +1,24 @@
+package br.com.flowlinkerAPI.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Marco de início dos rollups: gravado uma única vez (INSERT IGNORE) no primeiro lote do
+ * MetricsRollupConsumer. Janelas que começam a partir de started_hour têm dados completos.
+ */
+@Entity
+@Table(name = "metrics_rollup_state")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class MetricsRollupState {
+
+    @Id
+    @Column(length = 40)
+    private String name;
+
+    @Column(name = "started_hour", nullable = false)
+    private Long startedHour; // primeira hora cheia (horas desde 1970-01-01T00:00Z) após o início do consumidor
+}
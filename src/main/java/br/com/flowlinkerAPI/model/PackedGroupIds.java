@@ -0,0 +1,173 @@
+package br.com.flowlinkerAPI.model;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Lista de ids de grupos de uma extração compactada, na ordem em que os grupos chegaram: cada id é gravado
+ * como diferença para o anterior (zigzag, já que a diferença pode ser negativa) em varint de 7 bits por byte.
+ * <p>
+ * Formato atual: {@code [versão][total int32][intervalo int32][índice int32 × (blocos + 1)][dados]}.
+ * A cada {@link #SKIP_INTERVAL} ids começa um bloco, cuja primeira diferença é contra zero; o índice guarda
+ * o byte de início de cada bloco nos dados (e o fim, na última entrada). Uma página na posição p decodifica
+ * só a partir do bloco de p, então o custo não cresce com a profundidade. A versão 1 (sem índice) ainda é lida.
+ */
+public final class PackedGroupIds {
+
+    public static final int SKIP_INTERVAL = 128;
+    /** Versão, total e intervalo; o índice começa logo depois. */
+    public static final int HEADER_BYTES = 9;
+
+    private static final int VERSION_PLAIN = 1;
+    private static final int VERSION_INDEXED = 2;
+
+    private PackedGroupIds() {}
+
+    /** Ids já sem repetição (ver {@link #distinct}); a ordem é preservada. */
+    public static byte[] encode(long[] ids) {
+        int blocks = blocks(ids.length, SKIP_INTERVAL);
+        int[] offsets = new int[blocks + 1];
+        ByteArrayOutputStream data = new ByteArrayOutputStream(ids.length * 3);
+        long previous = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (i % SKIP_INTERVAL == 0) {
+                offsets[i / SKIP_INTERVAL] = data.size();
+                previous = 0;
+            }
+            long delta = ids[i] - previous;
+            previous = ids[i];
+            long zigzag = (delta << 1) ^ (delta >> 63);
+            while ((zigzag & ~0x7FL) != 0) {
+                data.write((int) ((zigzag & 0x7F) | 0x80));
+                zigzag >>>= 7;
+            }
+            data.write((int) zigzag);
+        }
+        offsets[blocks] = data.size();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(HEADER_BYTES + offsets.length * 4 + data.size());
+        out.write(VERSION_INDEXED);
+        writeInt(out, ids.length);
+        writeInt(out, SKIP_INTERVAL);
+        for (int offset : offsets) writeInt(out, offset);
+        out.writeBytes(data.toByteArray());
+        return out.toByteArray();
+    }
+
+    /** Remove repetições mantendo a primeira ocorrência de cada id. */
+    public static long[] distinct(long[] ids) {
+        Set<Long> seen = new HashSet<>(ids.length * 2);
+        long[] out = new long[ids.length];
+        int count = 0;
+        for (long id : ids) {
+            if (seen.add(id)) out[count++] = id;
+        }
+        return count == ids.length ? out : Arrays.copyOf(out, count);
+    }
+
+    public static long[] decodeAll(byte[] packed) {
+        return decode(packed, 0, Integer.MAX_VALUE);
+    }
+
+    /** Ids nas posições [from, from + limit). */
+    public static long[] decode(byte[] packed, int from, int limit) {
+        if (packed.length == 0) return new long[0];
+        if (packed[0] == VERSION_PLAIN) return decodeRun(packed, 1, packed.length, 0, from, limit);
+        requireIndexed(packed);
+        int count = readInt(packed, 1);
+        int step = readInt(packed, 5);
+        if (from >= count) return new long[0];
+        int block = from / step;
+        int dataStart = indexPosition(blocks(count, step) + 1);
+        return decodeRun(packed, dataStart + readInt(packed, indexPosition(block)), packed.length, step, from - block * step, limit);
+    }
+
+    // ---- leitura por fatias (SUBSTRING no banco, sem trazer o blob inteiro) ----
+
+    /** Se o cabeçalho (primeiros {@link #HEADER_BYTES}) é do formato com índice e intervalo {@link #SKIP_INTERVAL}. */
+    public static boolean isIndexed(byte[] header) {
+        return header.length >= HEADER_BYTES && header[0] == VERSION_INDEXED && readInt(header, 5) == SKIP_INTERVAL;
+    }
+
+    public static int count(byte[] header) {
+        return readInt(header, 1);
+    }
+
+    /** Bloco da posição. */
+    public static int blockOf(int position) {
+        return position / SKIP_INTERVAL;
+    }
+
+    /** Byte (base 0) da entrada {@code block} do índice. */
+    public static int indexPosition(int block) {
+        return HEADER_BYTES + block * 4;
+    }
+
+    /** Byte (base 0) onde começam os dados de uma lista com {@code count} ids. */
+    public static int dataStart(int count) {
+        return indexPosition(blocks(count, SKIP_INTERVAL) + 1);
+    }
+
+    /** Último bloco cuja entrada no índice existe (a entrada final marca o fim dos dados). */
+    public static int lastIndexEntry(int count) {
+        return blocks(count, SKIP_INTERVAL);
+    }
+
+    /** Entrada {@code i} de um trecho do índice lido a partir de {@link #indexPosition}. */
+    public static int indexEntry(byte[] index, int i) {
+        return readInt(index, i * 4);
+    }
+
+    /**
+     * Decodifica um trecho dos dados que começa no início de um bloco: pula {@code skip} ids
+     * (menos que um bloco, em geral) e devolve até {@code limit}.
+     */
+    public static long[] decodeBlocks(byte[] data, int skip, int limit) {
+        return decodeRun(data, 0, data.length, SKIP_INTERVAL, skip, limit);
+    }
+
+    // step 0 = sem blocos (versão 1): a diferença só volta a zero no início
+    private static long[] decodeRun(byte[] buf, int pos, int end, int step, int skip, int limit) {
+        long[] out = new long[Math.max(0, Math.min(limit, end - pos))];
+        int count = 0;
+        int index = 0;
+        long current = 0;
+        while (pos < end && count < limit) {
+            if (step > 0 && index % step == 0) current = 0;
+            long zigzag = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buf[pos++];
+                zigzag |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            current += (zigzag >>> 1) ^ -(zigzag & 1);
+            if (index++ >= skip) out[count++] = current;
+        }
+        return Arrays.copyOf(out, count);
+    }
+
+    private static void requireIndexed(byte[] packed) {
+        if (packed[0] != VERSION_INDEXED || packed.length < HEADER_BYTES) {
+            throw new IllegalStateException("Formato de lista compactada desconhecido: " + packed[0]);
+        }
+    }
+
+    private static int blocks(int count, int step) {
+        return (count + step - 1) / step;
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    private static int readInt(byte[] buf, int pos) {
+        return (buf[pos] & 0xff) << 24 | (buf[pos + 1] & 0xff) << 16 | (buf[pos + 2] & 0xff) << 8 | (buf[pos + 3] & 0xff);
+    }
+}
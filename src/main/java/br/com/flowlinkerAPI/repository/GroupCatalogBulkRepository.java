@@ -0,0 +1,219 @@
+package br.com.flowlinkerAPI.repository;
+
+import br.com.flowlinkerAPI.model.GroupCatalogUrls;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Escrita em massa de group_catalog/group_extraction_item via JDBC em lote.
+ * Com IDENTITY o Hibernate não agrupa inserts, então uma extração de milhares de grupos
+ * virava milhares de statements; aqui são poucos batches de INSERT ... ON DUPLICATE KEY UPDATE
+ * (com rewriteBatchedStatements o driver os envia como inserts multi-linha).
+ * Os ids por external_id são resolvidos primeiro no {@link GroupCatalogKeyCache}; só as chaves ausentes vão ao banco.
+ * Urls vão sempre ao banco (url_hash), porque a url de um external_id muda no upsert.
+ * A resolução vem antes do upsert para tirar do lote os grupos cujo external_id e url já estão em linhas diferentes.
+ */
+@Repository
+public class GroupCatalogBulkRepository {
+
+    private static final String UPSERT_GROUP = """
+            INSERT INTO group_catalog (external_id, name, url, url_hash, member_count, last_seen_at)
+            VALUES (?, ?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE name = VALUES(name), url = VALUES(url), url_hash = VALUES(url_hash),
+                member_count = VALUES(member_count), last_seen_at = VALUES(last_seen_at)""";
+
+    private static final String INSERT_ITEM =
+            "INSERT IGNORE INTO group_extraction_item (extraction_id, group_id, item_position) VALUES (?, ?, ?)";
+
+    private static final Logger logger = LoggerFactory.getLogger(GroupCatalogBulkRepository.class);
+    private static final int MAX_LOGGED_CONFLICTS = 20;
+
+    private static final Calendar UTC = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final GroupCatalogKeyCache keyCache;
+    private final int batchSize;
+
+    /** {@code url} já normalizada por {@link GroupCatalogUrls#normalize}. */
+    public record GroupRow(String externalId, String name, String url, Long memberCount) {}
+
+    /** Ids resolvidos após o upsert, por external_id e por url (mesma ordem de busca do fluxo JPA). */
+    public record ResolvedIds(Map<String, Long> byExternalId, Map<String, Long> byUrl) {
+        public Long idFor(String externalId, String url) {
+            Long id = externalId != null ? byExternalId.get(externalId) : null;
+            return id != null ? id : (url != null ? byUrl.get(url) : null);
+        }
+    }
+
+    public GroupCatalogBulkRepository(JdbcTemplate jdbcTemplate,
+                                      GroupCatalogKeyCache keyCache,
+                                      @Value("${extraction.jdbc.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.keyCache = keyCache;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public ResolvedIds upsertGroups(List<GroupRow> rows, Instant seenAt) {
+        if (rows.isEmpty()) return new ResolvedIds(Map.of(), Map.of());
+        try {
+            return upsertResolved(rows, seenAt);
+        } catch (DuplicateKeyException e) {
+            // outra transação gravou a mesma url com outro external_id entre a resolução e o upsert
+            logger.warn("Conflito concorrente no upsert do catálogo, resolvendo de novo: {}", e.getMessage());
+            return upsertResolved(rows, seenAt);
+        }
+    }
+
+    /**
+     * Resolve external_id e url antes de gravar. O ODKU só consegue atualizar uma linha: se o external_id
+     * e a url do grupo pertencem a linhas diferentes, o UPDATE da url colide com uk_group_url_hash e derruba o lote.
+     * Essas linhas não são gravadas: o id vem do external_id (ou da url, quando o external_id é novo).
+     */
+    private ResolvedIds upsertResolved(List<GroupRow> rows, Instant seenAt) {
+        List<String> externalIds = new ArrayList<>(rows.size());
+        List<String> urls = new ArrayList<>(rows.size());
+        for (GroupRow row : rows) {
+            externalIds.add(row.externalId());
+            urls.add(row.url());
+        }
+        Map<String, Long> byExternalId = new HashMap<>(resolve(externalIds, GroupCatalogKeyCache::externalKey, this::selectByExternalId));
+        Map<String, Long> byUrl = selectByUrlHash(new ArrayList<>(new LinkedHashSet<>(urls)));
+
+        List<GroupRow> writable = new ArrayList<>(rows.size());
+        List<String> created = new ArrayList<>();
+        int skipped = 0;
+        for (GroupRow row : rows) {
+            Long idByExternal = byExternalId.get(row.externalId());
+            Long idByUrl = byUrl.get(row.url());
+            if (idByUrl != null && !idByUrl.equals(idByExternal)) {
+                if (skipped++ < MAX_LOGGED_CONFLICTS) {
+                    logger.warn("Grupo externalId={} não gravado: url já pertence ao grupo id={} (id por external_id={})",
+                            row.externalId(), idByUrl, idByExternal);
+                }
+                continue;
+            }
+            writable.add(row);
+            if (idByExternal == null) created.add(row.externalId());
+        }
+        if (skipped > MAX_LOGGED_CONFLICTS) {
+            logger.warn("{} grupos não gravados por url de outro grupo", skipped);
+        }
+
+        Timestamp ts = Timestamp.from(seenAt);
+        jdbcTemplate.batchUpdate(UPSERT_GROUP, writable, batchSize, (ps, row) -> {
+            ps.setString(1, row.externalId());
+            ps.setString(2, row.name());
+            ps.setString(3, row.url());
+            ps.setBytes(4, GroupCatalogUrls.hash(row.url()));
+            if (row.memberCount() != null) ps.setLong(5, row.memberCount()); else ps.setNull(5, java.sql.Types.BIGINT);
+            // mesmo fuso que o Hibernate usa (hibernate.jdbc.time_zone=UTC)
+            ps.setTimestamp(6, ts, (Calendar) UTC.clone());
+        });
+
+        // só os recém-inseridos precisam de uma segunda ida ao banco
+        if (!created.isEmpty()) {
+            byExternalId.putAll(resolve(created, GroupCatalogKeyCache::externalKey, this::selectByExternalId));
+        }
+        return new ResolvedIds(byExternalId, byUrl);
+    }
+
+    public void insertItems(Long extractionId, Collection<Long> groupIds) {
+        insertItems(extractionId, groupIds, 0);
+    }
+
+    /** Itens na ordem da coleção, com posições a partir de {@code firstPosition}. */
+    public void insertItems(Long extractionId, Collection<Long> groupIds, long firstPosition) {
+        if (groupIds.isEmpty()) return;
+        long[] position = {firstPosition};
+        jdbcTemplate.batchUpdate(INSERT_ITEM, groupIds, batchSize, (ps, groupId) -> {
+            ps.setLong(1, extractionId);
+            ps.setLong(2, groupId);
+            ps.setLong(3, position[0]++);
+        });
+    }
+
+    /** Ids de grupo em staging (group_extraction_item) de uma extração, na ordem de chegada. */
+    public long[] itemGroupIds(Long extractionId) {
+        return jdbcTemplate.queryForList("SELECT group_id FROM group_extraction_item WHERE extraction_id = ? ORDER BY item_position, id", Long.class, extractionId)
+                .stream().mapToLong(Long::longValue).toArray();
+    }
+
+    public int deleteItems(Long extractionId) {
+        return jdbcTemplate.update("DELETE FROM group_extraction_item WHERE extraction_id = ?", extractionId);
+    }
+
+    private Map<String, Long> resolve(List<String> values, ToLongFunction<String> keyFn,
+                                      Function<List<String>, Map<String, Long>> loader) {
+        Map<Long, String> byKey = new HashMap<>(values.size() * 2);
+        for (String value : values) byKey.put(keyFn.applyAsLong(value), value);
+
+        Map<String, Long> ids = new HashMap<>(values.size() * 2);
+        keyCache.getAll(byKey.keySet()).forEach((key, id) -> ids.put(byKey.get(key), id));
+        List<String> misses = new ArrayList<>();
+        for (String value : byKey.values()) {
+            if (!ids.containsKey(value)) misses.add(value);
+        }
+        if (misses.isEmpty()) return ids;
+
+        Map<String, Long> loaded = loader.apply(misses);
+        Map<Long, Long> fresh = new HashMap<>(loaded.size() * 2);
+        loaded.forEach((value, id) -> fresh.put(keyFn.applyAsLong(value), id));
+        keyCache.putAll(fresh);
+        ids.putAll(loaded);
+        return ids;
+    }
+
+    private Map<String, Long> selectByExternalId(List<String> externalIds) {
+        Map<String, Long> ids = new HashMap<>(externalIds.size() * 2);
+        for (int from = 0; from < externalIds.size(); from += batchSize) {
+            List<String> chunk = externalIds.subList(from, Math.min(externalIds.size(), from + batchSize));
+            namedJdbcTemplate.query("SELECT id, external_id FROM group_catalog WHERE external_id IN (:values)",
+                    new MapSqlParameterSource("values", chunk),
+                    rs -> { ids.put(rs.getString(2), rs.getLong(1)); });
+        }
+        return ids;
+    }
+
+    private Map<String, Long> selectByUrlHash(List<String> urls) {
+        Map<String, String> urlByHash = new HashMap<>(urls.size() * 2);
+        List<byte[]> hashes = new ArrayList<>(urls.size());
+        for (String url : urls) {
+            byte[] hash = GroupCatalogUrls.hash(url);
+            urlByHash.put(HexFormat.of().formatHex(hash), url);
+            hashes.add(hash);
+        }
+        Map<String, Long> ids = new HashMap<>(urls.size() * 2);
+        for (int from = 0; from < hashes.size(); from += batchSize) {
+            List<byte[]> chunk = hashes.subList(from, Math.min(hashes.size(), from + batchSize));
+            namedJdbcTemplate.query("SELECT id, url_hash FROM group_catalog WHERE url_hash IN (:values)",
+                    new MapSqlParameterSource("values", chunk),
+                    rs -> {
+                        String url = urlByHash.get(HexFormat.of().formatHex(rs.getBytes(2)));
+                        if (url != null) ids.put(url, rs.getLong(1));
+                    });
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,199 @@
+package br.com.flowlinkerAPI.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache em dois níveis das chaves externalId → id do group_catalog: Caffeine por nó e Redis
+ * compartilhado entre nós. As chaves são hashes de 64 bits em vez das strings, o que mantém o footprint
+ * por entrada fixo. Urls não entram: o upsert reescreve a url de um external_id conhecido, e uma url antiga
+ * em cache apontaria para o grupo errado; elas são resolvidas pelo url_hash no banco.
+ * O id de um external_id só deixa de valer quando o backfill do url_hash funde duplicatas; aí {@link #evict}
+ * remove as chaves do Redis e avisa os demais nós via pub/sub.
+ * Escrita só depois do commit do upsert, para não cachear id de linha revertida.
+ */
+@Component
+public class GroupCatalogKeyCache implements MessageListener {
+
+    public static final String INVALIDATION_CHANNEL = "catalog:cache:invalidate";
+
+    private static final Logger logger = LoggerFactory.getLogger(GroupCatalogKeyCache.class);
+    private static final String PREFIX = "catalog:id:";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final boolean enabled;
+    private final Duration redisTtl;
+    private final Cache<Long, Long> local;
+    private final Counter redisHits;
+    private final Counter redisMisses;
+
+    public GroupCatalogKeyCache(@Qualifier("stringRedisTemplate") RedisTemplate<String, String> redisTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${catalog.cache.enabled:true}") boolean enabled,
+                                @Value("${catalog.cache.max-size:200000}") long maxSize,
+                                @Value("${catalog.cache.redis-ttl-hours:168}") long redisTtlHours) {
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.redisTtl = Duration.ofHours(redisTtlHours);
+        this.local = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, local, "catalog.keys");
+        this.redisHits = Counter.builder("catalog.keys.redis").tag("result", "hit").register(meterRegistry);
+        this.redisMisses = Counter.builder("catalog.keys.redis").tag("result", "miss").register(meterRegistry);
+    }
+
+    public static long externalKey(String externalId) {
+        return hash64("x:" + externalId);
+    }
+
+    /** Ids em cache (local, depois Redis); chaves ausentes ficam fora do mapa. */
+    public Map<Long, Long> getAll(Collection<Long> keys) {
+        if (!enabled || keys.isEmpty()) return new HashMap<>();
+        Map<Long, Long> found = new HashMap<>(local.getAllPresent(keys));
+        List<Long> misses = new ArrayList<>();
+        for (Long key : keys) {
+            if (!found.containsKey(key)) misses.add(key);
+        }
+        if (misses.isEmpty()) return found;
+
+        try {
+            List<String> redisKeys = new ArrayList<>(misses.size());
+            for (Long key : misses) redisKeys.add(redisKey(key));
+            List<String> values = redisTemplate.opsForValue().multiGet(redisKeys);
+            int hits = 0;
+            for (int i = 0; values != null && i < misses.size(); i++) {
+                String value = values.get(i);
+                if (value == null) continue;
+                Long id = Long.valueOf(value);
+                found.put(misses.get(i), id);
+                local.put(misses.get(i), id);
+                hits++;
+            }
+            redisHits.increment(hits);
+            redisMisses.increment(misses.size() - hits);
+        } catch (Exception e) {
+            logger.warn("Cache de chaves do catálogo indisponível (Redis): {}", e.getMessage());
+        }
+        return found;
+    }
+
+    /** Registra ids resolvidos no banco; dentro de transação, só após o commit. */
+    public void putAll(Map<Long, Long> entries) {
+        if (!enabled || entries.isEmpty()) return;
+        Map<Long, Long> copy = new HashMap<>(entries);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    store(copy);
+                }
+            });
+        } else {
+            store(copy);
+        }
+    }
+
+    private void store(Map<Long, Long> entries) {
+        local.putAll(entries);
+        try {
+            Expiration expiration = Expiration.from(redisTtl);
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (Map.Entry<Long, Long> e : entries.entrySet()) {
+                    connection.stringCommands().set(
+                            redisKey(e.getKey()).getBytes(StandardCharsets.UTF_8),
+                            String.valueOf(e.getValue()).getBytes(StandardCharsets.UTF_8),
+                            expiration,
+                            RedisStringCommands.SetOption.upsert());
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            logger.warn("Falha ao gravar chaves do catálogo no Redis: {}", e.getMessage());
+        }
+    }
+
+    /** Remove as chaves em todos os níveis (e nos outros nós) após o commit da transação corrente. */
+    public void evict(Collection<Long> keys) {
+        if (!enabled || keys.isEmpty()) return;
+        List<Long> copy = new ArrayList<>(keys);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictAndPublish(copy);
+                }
+            });
+        } else {
+            evictAndPublish(copy);
+        }
+    }
+
+    @Override
+    public void onMessage(@NonNull Message message, byte[] pattern) {
+        for (String hex : new String(message.getBody(), StandardCharsets.UTF_8).split(",")) {
+            if (!hex.isBlank()) local.invalidate(Long.parseUnsignedLong(hex, 16));
+        }
+    }
+
+    private void evictAndPublish(List<Long> keys) {
+        local.invalidateAll(keys);
+        try {
+            List<String> redisKeys = new ArrayList<>(keys.size());
+            List<String> hexKeys = new ArrayList<>(keys.size());
+            for (Long key : keys) {
+                redisKeys.add(redisKey(key));
+                hexKeys.add(Long.toHexString(key));
+            }
+            redisTemplate.delete(redisKeys);
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, String.join(",", hexKeys));
+        } catch (Exception e) {
+            logger.warn("Falha ao invalidar chaves do catálogo: {}", e.getMessage());
+        }
+    }
+
+    private static String redisKey(long key) {
+        return PREFIX + Long.toHexString(key);
+    }
+
+    // FNV-1a 64 sobre UTF-8 com finalização do MurmurHash3 (fmix64) para espalhar os bits
+    private static long hash64(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= (b & 0xff);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
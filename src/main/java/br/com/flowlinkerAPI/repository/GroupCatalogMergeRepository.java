@@ -0,0 +1,7 @@
+package br.com.flowlinkerAPI.repository;
+
+import br.com.flowlinkerAPI.model.GroupCatalogMerge;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface GroupCatalogMergeRepository extends JpaRepository<GroupCatalogMerge, Long> {
+}
@@ -9,10 +9,10 @@ import java.util.Optional;
 
 public interface GroupCatalogRepository extends JpaRepository<GroupCatalog, Long> {
     Optional<GroupCatalog> findByExternalId(String externalId);
-    Optional<GroupCatalog> findByUrl(String url);
+    Optional<GroupCatalog> findByUrlHash(byte[] urlHash);
 
     List<GroupCatalog> findByExternalIdIn(Collection<String> externalIds);
-    List<GroupCatalog> findByUrlIn(Collection<String> urls);
+    List<GroupCatalog> findByUrlHashIn(Collection<byte[]> urlHashes);
 }
 
 
@@ -0,0 +1,19 @@
+package br.com.flowlinkerAPI.repository;
+
+import br.com.flowlinkerAPI.model.GroupExtractionGroups;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface GroupExtractionGroupsRepository extends JpaRepository<GroupExtractionGroups, Long> {
+
+    // Total de grupos sem carregar o blob (paginação lê só as fatias via PackedGroupIdsReader)
+    @Query("select g.groupCount from GroupExtractionGroups g where g.extractionId = :extractionId")
+    Integer findGroupCount(@Param("extractionId") Long extractionId);
+
+    // Remove sem carregar o blob
+    @Modifying
+    @Query("delete from GroupExtractionGroups g where g.extractionId = :extractionId")
+    int deleteByExtractionId(@Param("extractionId") Long extractionId);
+}
@@ -2,7 +2,10 @@ package br.com.flowlinkerAPI.repository;
 
 import br.com.flowlinkerAPI.model.GroupExtractionItem;
 import br.com.flowlinkerAPI.model.GroupExtraction;
+import br.com.flowlinkerAPI.model.GroupCatalog;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -11,6 +14,11 @@ import java.util.List;
 public interface GroupExtractionItemRepository extends JpaRepository<GroupExtractionItem, Long> {
     List<GroupExtractionItem> findByExtraction(GroupExtraction extraction);
     Page<GroupExtractionItem> findByExtraction(GroupExtraction extraction, Pageable pageable);
+    long countByExtraction_Id(Long extractionId);
+
+    // Paginação por cursor no índice (extraction_id, group_id)
+    @Query("select i.group from GroupExtractionItem i where i.extraction.id = :extractionId and i.group.id > :afterGroupId order by i.group.id")
+    List<GroupCatalog> findGroupsAfter(@Param("extractionId") Long extractionId, @Param("afterGroupId") Long afterGroupId, Pageable pageable);
 }
 
 
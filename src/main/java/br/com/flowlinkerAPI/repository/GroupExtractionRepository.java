@@ -4,9 +4,13 @@ import br.com.flowlinkerAPI.model.GroupExtraction;
 import br.com.flowlinkerAPI.model.Customer;
 import br.com.flowlinkerAPI.model.Device;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.time.Instant;
 import java.util.List;
 
 public interface GroupExtractionRepository extends JpaRepository<GroupExtraction, Long> {
@@ -14,6 +18,51 @@ public interface GroupExtractionRepository extends JpaRepository<GroupExtraction
     List<GroupExtraction> findByDeviceOrderByExtractedAtDesc(Device device);
 
     Page<GroupExtraction> findByCustomerOrderByExtractedAtDesc(Customer customer, Pageable pageable);
+
+    // Extrações com upload em andamento não aparecem na listagem
+    @Query("select e from GroupExtraction e where e.customer = :customer and (e.status is null or e.status <> 'UPLOADING')")
+    Page<GroupExtraction> findVisibleByCustomer(@Param("customer") Customer customer, Pageable pageable);
+
+    // Paginação por cursor (extractedAt, id) desc: sem OFFSET e sem COUNT
+    @Query("select e from GroupExtraction e where e.customer = :customer and (e.status is null or e.status <> 'UPLOADING')"
+        + " order by e.extractedAt desc, e.id desc")
+    List<GroupExtraction> findVisibleByCustomerFirst(@Param("customer") Customer customer, Pageable pageable);
+
+    @Query("select e from GroupExtraction e where e.customer = :customer and (e.status is null or e.status <> 'UPLOADING')"
+        + " and (e.extractedAt < :extractedAt or (e.extractedAt = :extractedAt and e.id < :id))"
+        + " order by e.extractedAt desc, e.id desc")
+    List<GroupExtraction> findVisibleByCustomerAfter(@Param("customer") Customer customer,
+                                                     @Param("extractedAt") Instant extractedAt,
+                                                     @Param("id") Long id,
+                                                     Pageable pageable);
+
+    @Query("select count(e) from GroupExtraction e where e.customer = :customer and (e.status is null or e.status <> 'UPLOADING')")
+    long countVisibleByCustomer(@Param("customer") Customer customer);
+
+    // Progresso do processamento em chunks: cada chunk soma o que gravou na mesma transação
+    @Modifying
+    @Query("update GroupExtraction e set e.groupsCount = coalesce(e.groupsCount, 0) + :delta, e.updatedAt = :now where e.id = :id")
+    int incrementGroupsCount(@Param("id") Long id, @Param("delta") int delta, @Param("now") Instant now);
+
+    // Chunk de upload: só com a extração no status esperado; a linha fica travada até o fim da transação do chunk
+    @Modifying
+    @Query("update GroupExtraction e set e.updatedAt = :now where e.id = :id and e.status = :status")
+    int touchIfStatus(@Param("id") Long id, @Param("status") String status, @Param("now") Instant now);
+
+    // Compare-and-set do status (ex.: UPLOADING -> PROCESSING no commit do upload)
+    @Modifying
+    @Query("update GroupExtraction e set e.status = :to, e.updatedAt = :now where e.id = :id and e.status = :from")
+    int transitionStatus(@Param("id") Long id, @Param("from") String from, @Param("to") String to, @Param("now") Instant now);
+
+    // Extrações não concluídas sem atividade desde o corte (sessões de upload abandonadas, processamento interrompido)
+    @Query("select e.id from GroupExtraction e where e.status in :statuses and e.updatedAt < :cutoff and e.id > :afterId order by e.id")
+    List<Long> findStaleIds(@Param("statuses") List<String> statuses, @Param("cutoff") Instant cutoff,
+                            @Param("afterId") Long afterId, Pageable pageable);
+
+    // Linhas anteriores à coluna updated_at: o relógio da limpeza começa agora
+    @Modifying
+    @Query("update GroupExtraction e set e.updatedAt = :now where e.updatedAt is null and e.status in :statuses")
+    int startClock(@Param("statuses") List<String> statuses, @Param("now") Instant now);
 }
 
 
@@ -0,0 +1,55 @@
+package br.com.flowlinkerAPI.repository;
+
+import br.com.flowlinkerAPI.model.PackedGroupIds;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Páginas da lista compactada (group_extraction_groups) sem trazer o MEDIUMBLOB inteiro: uma ida lê o
+ * cabeçalho e as entradas do índice que delimitam os blocos da página, a outra só os bytes desses blocos
+ * (SUBSTRING no banco). Duas consultas pequenas por página, qualquer que seja a posição.
+ * Chame dentro de uma transação para que as duas leituras vejam a mesma versão da lista.
+ */
+@Repository
+public class PackedGroupIdsReader {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private record Head(byte[] header, byte[] index) {}
+
+    public PackedGroupIdsReader(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** Ids nas posições [from, from + limit) da lista da extração; vazio se não houver lista. */
+    public long[] page(Long extractionId, int from, int limit) {
+        if (from < 0 || limit <= 0) return new long[0];
+        int firstBlock = PackedGroupIds.blockOf(from);
+        int lastBlock = PackedGroupIds.blockOf((int) Math.min(Integer.MAX_VALUE, (long) from + limit - 1));
+        Head head = jdbcTemplate.query(
+                "SELECT SUBSTRING(group_ids, 1, ?), SUBSTRING(group_ids, ?, ?) FROM group_extraction_groups WHERE extraction_id = ?",
+                rs -> rs.next() ? new Head(rs.getBytes(1), rs.getBytes(2)) : null,
+                PackedGroupIds.HEADER_BYTES, PackedGroupIds.indexPosition(firstBlock) + 1, (lastBlock - firstBlock + 2) * 4, extractionId);
+        if (head == null) return new long[0];
+        if (!PackedGroupIds.isIndexed(head.header())) return whole(extractionId, from, limit);
+
+        int count = PackedGroupIds.count(head.header());
+        if (from >= count) return new long[0];
+        int endEntry = Math.min(lastBlock + 1, PackedGroupIds.lastIndexEntry(count)) - firstBlock;
+        int start = PackedGroupIds.indexEntry(head.index(), 0);
+        int end = PackedGroupIds.indexEntry(head.index(), endEntry);
+        byte[] data = jdbcTemplate.query(
+                "SELECT SUBSTRING(group_ids, ?, ?) FROM group_extraction_groups WHERE extraction_id = ?",
+                rs -> rs.next() ? rs.getBytes(1) : null,
+                PackedGroupIds.dataStart(count) + start + 1, end - start, extractionId);
+        if (data == null) return new long[0];
+        return PackedGroupIds.decodeBlocks(data, from - firstBlock * PackedGroupIds.SKIP_INTERVAL, limit);
+    }
+
+    // Listas no formato sem índice: decodifica do início
+    private long[] whole(Long extractionId, int from, int limit) {
+        byte[] packed = jdbcTemplate.query("SELECT group_ids FROM group_extraction_groups WHERE extraction_id = ?",
+                rs -> rs.next() ? rs.getBytes(1) : null, extractionId);
+        return packed == null ? new long[0] : PackedGroupIds.decode(packed, from, limit);
+    }
+}
@@ -20,12 +20,15 @@ public class CustomerService {
     private final Logger logger = LoggerFactory.getLogger(CustomerService.class);
     private final DeviceService deviceService; 
     private final DevicePolicyService devicePolicyService;
+    private final EntitlementSnapshotService entitlementSnapshotService;
 
     
-    public CustomerService(CustomerRepository customerRepository, DeviceService deviceService, DevicePolicyService devicePolicyService) {
+    public CustomerService(CustomerRepository customerRepository, DeviceService deviceService, DevicePolicyService devicePolicyService,
+                           EntitlementSnapshotService entitlementSnapshotService) {
         this.customerRepository = customerRepository;
         this.deviceService = deviceService;
         this.devicePolicyService = devicePolicyService;
+        this.entitlementSnapshotService = entitlementSnapshotService;
     }
 
     @Transactional
@@ -77,7 +80,9 @@ public class CustomerService {
         target.setStripeSubscriptionId(stripeSubscriptionId);
         target.setCountry(country);
         logger.info("Customer created: {}", target.getEmail());
-        return customerRepository.save(target);
+        Customer saved = customerRepository.save(target);
+        entitlementSnapshotService.refresh(saved.getId());
+        return saved;
     }
 
 
@@ -159,6 +164,7 @@ public class CustomerService {
         }
 
         customerRepository.save(customer);
+        entitlementSnapshotService.refresh(customer.getId());
         logger.info("Customer updated from invoice: {}", customer.getEmail());
     }
 
@@ -283,6 +289,7 @@ public class CustomerService {
         }
   
         saveCustomer(customer);
+        entitlementSnapshotService.refresh(customer.getId());
         logger.info("Customer updated from subscription: {}", customer.getEmail());
     }
 
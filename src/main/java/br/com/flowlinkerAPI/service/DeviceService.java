@@ -1,5 +1,6 @@
 package br.com.flowlinkerAPI.service;
 
+import br.com.flowlinkerAPI.config.security.DeviceNearCache;
 import br.com.flowlinkerAPI.dto.AddDeviceRequestDTO;
 import br.com.flowlinkerAPI.dto.AddDeviceResponseDTO;
 import br.com.flowlinkerAPI.dto.device.DeviceCountsDTO;
@@ -25,11 +26,14 @@ public class DeviceService {
     private final CustomerRepository customerRepository;
     private final Logger logger = LoggerFactory.getLogger(DeviceService.class);
     private final DevicePolicyService devicePolicyService;
+    private final DeviceNearCache deviceNearCache;
    
-    public DeviceService(DeviceRepository deviceRepository, CustomerRepository customerRepository, DevicePolicyService devicePolicyService) {
+    public DeviceService(DeviceRepository deviceRepository, CustomerRepository customerRepository, DevicePolicyService devicePolicyService,
+                         DeviceNearCache deviceNearCache) {
         this.deviceRepository = deviceRepository;
         this.customerRepository = customerRepository;
         this.devicePolicyService = devicePolicyService;
+        this.deviceNearCache = deviceNearCache;
     }
 
     @Transactional
@@ -66,6 +70,7 @@ public class DeviceService {
         }
         if (!devices.isEmpty()) {
             deviceRepository.saveAll(devices);
+            deviceNearCache.invalidateCustomer(customerId);
         }
     }
 
@@ -118,6 +123,7 @@ public class DeviceService {
         }
         device.setStatus(newStatus);
         deviceRepository.save(Objects.requireNonNull(device));
+        deviceNearCache.invalidate(customerId, device.getFingerprint());
         return toSummary(device);
     }
 
@@ -0,0 +1,214 @@
+package br.com.flowlinkerAPI.service;
+
+import br.com.flowlinkerAPI.model.Customer;
+import br.com.flowlinkerAPI.repository.CustomerRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Snapshot compacto do direito de acesso do cliente (status, fim do período, devices, plano)
+ * usado pelo ActiveSubscriptionFilter sem ir ao banco. Dois níveis: cache local (Caffeine)
+ * e Redis. As entradas expiram no subscriptionEndDate (ou no TTL máximo, o que vier antes)
+ * e são reconstruídas após o commit de qualquer alteração de cobrança.
+ */
+@Service
+public class EntitlementSnapshotService implements MessageListener {
+
+    public static final String INVALIDATION_CHANNEL = "entitlement:invalidate";
+    private static final String REDIS_PREFIX = "entitlement:snapshot:";
+    private static final Duration MIN_TTL = Duration.ofSeconds(1);
+
+    private static final Logger logger = LoggerFactory.getLogger(EntitlementSnapshotService.class);
+
+    private final CustomerRepository customerRepository;
+    private final DevicePolicyService devicePolicyService;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readTx;
+    private final Duration maxTtl;
+    private final Cache<Long, EntitlementSnapshot> cache;
+
+    public record EntitlementSnapshot(Long customerId,
+                                      Customer.SubscriptionStatus status,
+                                      Instant subscriptionEndDate,
+                                      int allowedDevices,
+                                      Customer.OfferType offerType) {
+
+        public boolean allowsAccess(Instant now) {
+            if (status == Customer.SubscriptionStatus.ACTIVE) {
+                return true;
+            }
+            if (status == Customer.SubscriptionStatus.TRIALING || status == Customer.SubscriptionStatus.CANCELED) {
+                // CANCELED mantém acesso até a data de término do período vigente
+                return subscriptionEndDate != null && !now.isAfter(subscriptionEndDate);
+            }
+            return false;
+        }
+    }
+
+    public EntitlementSnapshotService(CustomerRepository customerRepository,
+                                      DevicePolicyService devicePolicyService,
+                                      @Qualifier("stringRedisTemplate") RedisTemplate<String, String> redisTemplate,
+                                      ObjectMapper objectMapper,
+                                      MeterRegistry meterRegistry,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${entitlement.cache.max-size:20000}") long maxSize,
+                                      @Value("${entitlement.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.customerRepository = customerRepository;
+        this.devicePolicyService = devicePolicyService;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        // Transação própria: o filtro roda fora do open-in-view e o rebuild roda em afterCommit
+        this.readTx = new TransactionTemplate(transactionManager);
+        this.readTx.setReadOnly(true);
+        this.readTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxTtl = Duration.ofSeconds(ttlSeconds);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<Long, EntitlementSnapshot>() {
+                    @Override
+                    public long expireAfterCreate(@NonNull Long key, @NonNull EntitlementSnapshot value, long currentTime) {
+                        return ttlFor(value).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(@NonNull Long key, @NonNull EntitlementSnapshot value, long currentTime, long currentDuration) {
+                        return ttlFor(value).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(@NonNull Long key, @NonNull EntitlementSnapshot value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "entitlement.snapshot");
+    }
+
+    /**
+     * Snapshot do cliente: local → Redis → banco. Retorna null se o cliente não existe.
+     */
+    public EntitlementSnapshot get(Long customerId) {
+        if (customerId == null) return null;
+        EntitlementSnapshot local = cache.getIfPresent(customerId);
+        if (local != null) return local;
+
+        EntitlementSnapshot shared = readShared(customerId);
+        if (shared != null) {
+            cache.put(customerId, shared);
+            return shared;
+        }
+
+        EntitlementSnapshot loaded = load(customerId);
+        if (loaded != null) {
+            store(loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * Reconstrói o snapshot após o commit da transação corrente (ou imediatamente, se não houver)
+     * e avisa os demais nós para descartarem a cópia local.
+     */
+    public void refresh(Long customerId) {
+        if (customerId == null) return;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    rebuild(customerId);
+                }
+            });
+        } else {
+            rebuild(customerId);
+        }
+    }
+
+    @Override
+    public void onMessage(@NonNull Message message, byte[] pattern) {
+        try {
+            cache.invalidate(Long.parseLong(new String(message.getBody(), StandardCharsets.UTF_8)));
+        } catch (NumberFormatException ignored) {}
+    }
+
+    private void rebuild(Long customerId) {
+        try {
+            cache.invalidate(customerId);
+            EntitlementSnapshot snapshot = load(customerId);
+            if (snapshot != null) {
+                store(snapshot);
+            } else {
+                redisTemplate.delete(REDIS_PREFIX + customerId);
+            }
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, String.valueOf(customerId));
+        } catch (Exception e) {
+            // Sem Redis os demais nós convergem pelo TTL
+            logger.warn("Falha ao reconstruir entitlement cid={}: {}", customerId, e.getMessage());
+        }
+    }
+
+    private EntitlementSnapshot load(Long customerId) {
+        return readTx.execute(status -> {
+            Customer customer = customerRepository.findById(customerId).orElse(null);
+            if (customer == null) return null;
+            int allowed = devicePolicyService.getAllowedDevices(customerId, customer.getOfferType());
+            return new EntitlementSnapshot(customerId, customer.getSubscriptionStatus(), customer.getSubscriptionEndDate(),
+                    allowed, customer.getOfferType());
+        });
+    }
+
+    private void store(EntitlementSnapshot snapshot) {
+        cache.put(snapshot.customerId(), snapshot);
+        try {
+            redisTemplate.opsForValue().set(REDIS_PREFIX + snapshot.customerId(),
+                    objectMapper.writeValueAsString(snapshot), ttlFor(snapshot));
+        } catch (Exception e) {
+            logger.warn("Falha ao gravar entitlement no Redis cid={}: {}", snapshot.customerId(), e.getMessage());
+        }
+    }
+
+    private EntitlementSnapshot readShared(Long customerId) {
+        try {
+            String json = redisTemplate.opsForValue().get(REDIS_PREFIX + customerId);
+            return json != null ? objectMapper.readValue(json, EntitlementSnapshot.class) : null;
+        } catch (Exception e) {
+            logger.warn("Falha ao ler entitlement do Redis cid={}: {}", customerId, e.getMessage());
+            return null;
+        }
+    }
+
+    // Expira no fim do período para recarregar renovações; o corte em si é feito por allowsAccess(now)
+    private Duration ttlFor(EntitlementSnapshot snapshot) {
+        Instant end = snapshot.subscriptionEndDate();
+        Instant now = Instant.now();
+        if (end != null && end.isAfter(now)) {
+            Duration untilEnd = Duration.between(now, end);
+            if (untilEnd.compareTo(MIN_TTL) < 0) return MIN_TTL;
+            return untilEnd.compareTo(maxTtl) < 0 ? untilEnd : maxTtl;
+        }
+        return maxTtl;
+    }
+}
@@ -0,0 +1,112 @@
+package br.com.flowlinkerAPI.service;
+
+import br.com.flowlinkerAPI.dto.event.IngestEventDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deduplicação de eventos por (customerId, eventId) dentro de uma janela de tempo, antes da publicação.
+ * Usa SET NX com expiração no Redis, em pipeline (um round trip por lote); a chave só guarda "1".
+ * Eventos sem eventId do cliente recebem UUID no servidor e não passam pelo filtro.
+ * Sem Redis, o filtro é ignorado (fail-open) para não bloquear a ingestão.
+ */
+@Service
+public class EventDeduplicationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventDeduplicationService.class);
+    private static final String PREFIX = "event:dedup:";
+    private static final byte[] MARK = "1".getBytes(StandardCharsets.UTF_8);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final boolean enabled;
+    private final Duration window;
+    private final Counter duplicatesCounter;
+
+    /** fresh = eventos a publicar; claimedKeys devem ser liberadas se a publicação falhar. */
+    public record Claim(List<IngestEventDTO> fresh, List<String> claimedKeys, int duplicates) {}
+
+    public EventDeduplicationService(@Qualifier("stringRedisTemplate") RedisTemplate<String, String> redisTemplate,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${events.dedup.enabled:true}") boolean enabled,
+                                     @Value("${events.dedup.window-seconds:86400}") long windowSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.window = Duration.ofSeconds(windowSeconds);
+        this.duplicatesCounter = Counter.builder("events.dedup.dropped").register(meterRegistry);
+    }
+
+    public Claim claim(Long customerId, List<IngestEventDTO> events) {
+        List<IngestEventDTO> candidates = new ArrayList<>(events.size());
+        List<String> keys = new ArrayList<>();
+        List<Integer> keyIndex = new ArrayList<>();
+        for (IngestEventDTO e : events) {
+            if (e == null) continue;
+            if (enabled && e.eventId() != null && !e.eventId().isBlank()) {
+                keys.add(PREFIX + customerId + ":" + e.eventId());
+                keyIndex.add(candidates.size());
+            }
+            candidates.add(e);
+        }
+        if (keys.isEmpty()) {
+            return new Claim(candidates, List.of(), 0);
+        }
+
+        List<Object> results;
+        try {
+            Expiration expiration = Expiration.from(window);
+            results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (String key : keys) {
+                    connection.stringCommands().set(key.getBytes(StandardCharsets.UTF_8), MARK, expiration,
+                            RedisStringCommands.SetOption.ifAbsent());
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            logger.warn("Deduplicação de eventos indisponível (Redis), publicando sem filtro: {}", e.getMessage());
+            return new Claim(candidates, List.of(), 0);
+        }
+
+        boolean[] duplicate = new boolean[candidates.size()];
+        List<String> claimed = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            if (Boolean.TRUE.equals(results.get(i))) {
+                claimed.add(keys.get(i));
+            } else {
+                duplicate[keyIndex.get(i)] = true;
+            }
+        }
+        List<IngestEventDTO> fresh = new ArrayList<>(candidates.size());
+        for (int i = 0; i < candidates.size(); i++) {
+            if (!duplicate[i]) fresh.add(candidates.get(i));
+        }
+        int duplicates = candidates.size() - fresh.size();
+        if (duplicates > 0) {
+            duplicatesCounter.increment(duplicates);
+        }
+        return new Claim(fresh, claimed, duplicates);
+    }
+
+    /** Libera as chaves de um lote que não foi entregue, para que o reenvio do cliente não seja descartado. */
+    public void release(Claim claim) {
+        if (claim.claimedKeys().isEmpty()) return;
+        try {
+            redisTemplate.delete(claim.claimedKeys());
+        } catch (Exception e) {
+            logger.warn("Falha ao liberar chaves de deduplicação ({}): {}", claim.claimedKeys().size(), e.getMessage());
+        }
+    }
+}
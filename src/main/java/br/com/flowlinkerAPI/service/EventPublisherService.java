@@ -1,38 +1,299 @@
-// src/main/java/br/com/flowlinkerAPI/service/EventPublisherService.java
 package br.com.flowlinkerAPI.service;
 
 import br.com.flowlinkerAPI.config.EventIngestionRabbitConfig;
 import br.com.flowlinkerAPI.dto.event.EnrichedEventDTO;
+import br.com.flowlinkerAPI.dto.event.IngestEventDTO;
+import br.com.flowlinkerAPI.dto.event.IngestEventsRequest;
+import br.com.flowlinkerAPI.exceptions.EventPublishException;
+import br.com.flowlinkerAPI.exceptions.IngestBackpressureException;
+import br.com.flowlinkerAPI.service.spool.EventSpool;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
 @Service
 public class EventPublisherService {
 
+	private static final Logger logger = LoggerFactory.getLogger(EventPublisherService.class);
+
 	private final RabbitTemplate rabbitTemplate;
+	private final boolean confirmsEnabled;
+	private final long confirmTimeoutMs;
+	private final DistributionSummary batchSizeSummary;
+	private final Timer confirmLatencyTimer;
+	private final Counter nackCounter;
+	private final Counter confirmTimeoutCounter;
+
+	// Eventos publicados e ainda sem confirmação do broker (global e por device/cliente)
+	private final AtomicLong globalInFlight = new AtomicLong();
+	private final ConcurrentHashMap<String, Integer> deviceInFlight = new ConcurrentHashMap<>();
+	private final long globalMaxInFlight;
+	private final int deviceMaxInFlight;
+	private final long retryAfterSeconds;
+	private final Counter globalRejections;
+	private final Counter deviceRejections;
+
+	private final EventSpool spool;
+	private final EventDeduplicationService deduplicationService;
+	private final long brokerDownBypassMs;
+	// Após falha de conexão, grava direto no spool por um tempo em vez de esperar novo timeout de conexão
+	private volatile long brokerDownUntil;
+	private final Counter spooledCounter;
+	private final int partitions;
+	private final RealtimeMetricsService realtimeMetrics;
 
-	public EventPublisherService(RabbitTemplate eventsRabbitTemplate) {
+	public EventPublisherService(RabbitTemplate eventsRabbitTemplate,
+	                             EventSpool spool,
+	                             EventDeduplicationService deduplicationService,
+	                             RealtimeMetricsService realtimeMetrics,
+	                             MeterRegistry meterRegistry,
+	                             @Value("${events.publish.confirm-timeout-ms:5000}") long confirmTimeoutMs,
+	                             @Value("${events.backpressure.global-max-inflight:5000}") long globalMaxInFlight,
+	                             @Value("${events.backpressure.device-max-inflight:1000}") int deviceMaxInFlight,
+	                             @Value("${events.backpressure.retry-after-seconds:2}") long retryAfterSeconds,
+	                             @Value("${events.spool.broker-down-bypass-ms:5000}") long brokerDownBypassMs,
+	                             @Value("${events.partitions:0}") int partitions) {
 		this.rabbitTemplate = eventsRabbitTemplate;
+		this.spool = spool;
+		this.deduplicationService = deduplicationService;
+		this.partitions = partitions;
+		this.realtimeMetrics = realtimeMetrics;
+		this.brokerDownBypassMs = brokerDownBypassMs;
+		this.confirmsEnabled = eventsRabbitTemplate.getConnectionFactory().isPublisherConfirms();
+		this.confirmTimeoutMs = confirmTimeoutMs;
+		if (!confirmsEnabled) {
+			logger.warn("Publisher confirms desabilitados (spring.rabbitmq.publisher-confirm-type != correlated): lotes de eventos serão aceitos sem confirmação do broker");
+		}
+		this.batchSizeSummary = DistributionSummary.builder("events.publish.batch.size").register(meterRegistry);
+		this.confirmLatencyTimer = Timer.builder("events.publish.confirm.latency").register(meterRegistry);
+		this.nackCounter = Counter.builder("events.publish.nacks").register(meterRegistry);
+		this.confirmTimeoutCounter = Counter.builder("events.publish.confirm.timeouts").register(meterRegistry);
+		this.globalMaxInFlight = globalMaxInFlight;
+		this.deviceMaxInFlight = deviceMaxInFlight;
+		this.retryAfterSeconds = retryAfterSeconds;
+		this.globalRejections = Counter.builder("events.ingest.rejected").tag("scope", "global").register(meterRegistry);
+		this.deviceRejections = Counter.builder("events.ingest.rejected").tag("scope", "device").register(meterRegistry);
+		meterRegistry.gauge("events.publish.inflight", globalInFlight);
+		this.spooledCounter = Counter.builder("events.spool.appended").register(meterRegistry);
 	}
 
 	public void publish(EnrichedEventDTO e) {
-		String routingKey = normalizeRoutingKey(e.eventType());
 		rabbitTemplate.convertAndSend(
-				EventIngestionRabbitConfig.EXCHANGE_EVENTS,
-				routingKey,
+				exchange(),
+				routingKey(e),
 				e,
-				msg -> {
-					msg.getMessageProperties().setHeader("eventId", e.eventId());
-					msg.getMessageProperties().setHeader("customerId", e.customerId());
-					msg.getMessageProperties().setHeader("deviceId", e.deviceId());
-					msg.getMessageProperties().setDeliveryMode(org.springframework.amqp.core.MessageDeliveryMode.PERSISTENT);
-					return msg;
-				}
+				headers(e)
 		);
 	}
 
+	/**
+	 * Enriquece e publica o lote inteiro num único canal (sem checkout por mensagem) e só retorna
+	 * depois que o broker confirmou todas as mensagens. Lança EventPublishException em nack/timeout e
+	 * IngestBackpressureException (429) quando os eventos sem confirmação passam do limite global ou do device.
+	 * Com o spool habilitado, lotes que o broker não aceita (falha/queda) vão para o disco e são reenviados depois;
+	 * lotes estrangulados pelo backpressure são sempre recusados com 429.
+	 * Eventos repetidos (mesmo eventId do cliente dentro da janela) são descartados antes do broker.
+	 */
+	public PublishResult publishBatch(IngestEventsRequest request, Long customerId, Long deviceId, String ip, Instant receivedAt) {
+		EventDeduplicationService.Claim claim = deduplicationService.claim(customerId, request.events());
+		List<EnrichedEventDTO> events = enrich(claim.fresh(), customerId, deviceId, ip, receivedAt);
+		if (events.isEmpty()) return new PublishResult(0, claim.duplicates());
+		batchSizeSummary.record(events.size());
+
+		boolean delivered = false;
+		try {
+			deliver(events, deviceId != null ? "d:" + deviceId : "c:" + customerId);
+			delivered = true;
+		} finally {
+			if (!delivered) {
+				// o cliente vai reenviar: não pode ser tratado como duplicado
+				deduplicationService.release(claim);
+			}
+		}
+		// conta só o que foi aceito (publicado ou no spool), já sem duplicados
+		realtimeMetrics.record(customerId, events);
+		return new PublishResult(events.size(), claim.duplicates());
+	}
+
+	public record PublishResult(int published, int duplicates) {}
+
+	private void deliver(List<EnrichedEventDTO> events, String sourceKey) {
+		if (System.currentTimeMillis() < brokerDownUntil && spool(events)) {
+			return;
+		}
+		// backpressure responde 429 + Retry-After; o spool é só para falha do broker, nunca para absorver excesso
+		acquire(sourceKey, events.size());
+		try {
+			publishAndConfirm(events);
+		} catch (AmqpException | EventPublishException e) {
+			if (e instanceof AmqpConnectException) {
+				brokerDownUntil = System.currentTimeMillis() + brokerDownBypassMs;
+			}
+			logger.warn("Falha ao publicar lote de {} eventos: {}", events.size(), e.getMessage());
+			if (spool(events)) return;
+			throw e instanceof EventPublishException epe ? epe : new EventPublishException("Broker indisponível", e);
+		} finally {
+			release(sourceKey, events.size());
+		}
+	}
+
+	/** Publica e aguarda confirms sem controle de backpressure/spool (usado no replay do spool). */
+	public void publishConfirmed(List<EnrichedEventDTO> events) {
+		publishAndConfirm(events);
+	}
+
+	private boolean spool(List<EnrichedEventDTO> events) {
+		if (!spool.append(events)) return false;
+		spooledCounter.increment(events.size());
+		return true;
+	}
+
+	private void publishAndConfirm(List<EnrichedEventDTO> events) {
+		long started = System.nanoTime();
+		List<CorrelationData> pending = new ArrayList<>(events.size());
+		rabbitTemplate.invoke(ops -> {
+			for (EnrichedEventDTO e : events) {
+				CorrelationData correlation = new CorrelationData(e.eventId());
+				ops.convertAndSend(exchange(), routingKey(e), e, headers(e), correlation);
+				pending.add(correlation);
+			}
+			return null;
+		});
+		if (confirmsEnabled) {
+			awaitConfirms(pending, started);
+		}
+	}
+
+	// Um lote é sempre admitido quando não há nada pendente, para lotes maiores que o limite não travarem
+	private void acquire(String sourceKey, int count) {
+		long global = globalInFlight.addAndGet(count);
+		if (global > count && global > globalMaxInFlight) {
+			globalInFlight.addAndGet(-count);
+			globalRejections.increment();
+			throw new IngestBackpressureException("Ingestão sobrecarregada, tente novamente em instantes", retryAfterSeconds);
+		}
+		boolean[] admitted = {false};
+		deviceInFlight.compute(sourceKey, (k, current) -> {
+			int cur = current != null ? current : 0;
+			if (cur > 0 && cur + count > deviceMaxInFlight) {
+				return current;
+			}
+			admitted[0] = true;
+			return cur + count;
+		});
+		if (!admitted[0]) {
+			globalInFlight.addAndGet(-count);
+			deviceRejections.increment();
+			throw new IngestBackpressureException("Muitos eventos pendentes para este dispositivo, tente novamente em instantes", retryAfterSeconds);
+		}
+	}
+
+	private void release(String sourceKey, int count) {
+		globalInFlight.addAndGet(-count);
+		deviceInFlight.computeIfPresent(sourceKey, (k, cur) -> cur - count <= 0 ? null : cur - count);
+	}
+
+	// Confirms chegam de forma assíncrona no canal; aqui só aguardamos as futures com um prazo único para o lote
+	private void awaitConfirms(List<CorrelationData> pending, long started) {
+		long deadline = started + TimeUnit.MILLISECONDS.toNanos(confirmTimeoutMs);
+		int nacked = 0;
+		String lastReason = null;
+		for (CorrelationData correlation : pending) {
+			try {
+				CorrelationData.Confirm confirm = correlation.getFuture().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+				if (!confirm.isAck()) {
+					nacked++;
+					lastReason = confirm.getReason();
+				}
+			} catch (TimeoutException e) {
+				confirmTimeoutCounter.increment();
+				throw new EventPublishException("Timeout aguardando confirmação do broker para o lote de " + pending.size() + " eventos");
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new EventPublishException("Interrompido aguardando confirmação do broker", e);
+			} catch (ExecutionException e) {
+				nacked++;
+				lastReason = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+			}
+		}
+		confirmLatencyTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+		if (nacked > 0) {
+			nackCounter.increment(nacked);
+			throw new EventPublishException(nacked + " de " + pending.size() + " eventos rejeitados pelo broker: " + lastReason);
+		}
+	}
+
+	private List<EnrichedEventDTO> enrich(List<IngestEventDTO> source, Long customerId, Long deviceId, String ip, Instant receivedAt) {
+		List<EnrichedEventDTO> enriched = new ArrayList<>(source.size());
+		for (IngestEventDTO e : source) {
+			if (e == null) {
+				continue;
+			}
+			// Loga apenas o tipo do evento recebido
+			if (e.eventType() != null) {
+				logger.info("ingest eventType={}", e.eventType());
+			}
+			String eventId = (e.eventId() != null && !e.eventId().isBlank()) ? e.eventId() : UUID.randomUUID().toString();
+			enriched.add(new EnrichedEventDTO(
+					eventId,
+					e.eventType(),
+					e.eventAt(),
+					receivedAt,
+					e.payload(),
+					customerId,
+					deviceId,
+					ip
+			));
+		}
+		return enriched;
+	}
+
+	private MessagePostProcessor headers(EnrichedEventDTO e) {
+		return msg -> {
+			msg.getMessageProperties().setHeader("eventId", e.eventId());
+			msg.getMessageProperties().setHeader("customerId", e.customerId());
+			msg.getMessageProperties().setHeader("deviceId", e.deviceId());
+			if (partitions > 0) {
+				msg.getMessageProperties().setHeader(EventIngestionRabbitConfig.HEADER_PARTITION_KEY, e.customerId());
+				msg.getMessageProperties().setHeader(EventIngestionRabbitConfig.HEADER_PARTITION,
+						EventIngestionRabbitConfig.partitionFor(e.customerId(), partitions));
+			}
+			msg.getMessageProperties().setDeliveryMode(org.springframework.amqp.core.MessageDeliveryMode.PERSISTENT);
+			return msg;
+		};
+	}
+
+	private String exchange() {
+		return partitions > 0 ? EventIngestionRabbitConfig.EXCHANGE_EVENTS_PARTITIONED : EventIngestionRabbitConfig.EXCHANGE_EVENTS;
+	}
+
+	private String routingKey(EnrichedEventDTO e) {
+		String key = normalizeRoutingKey(e.eventType());
+		return partitions > 0 ? EventIngestionRabbitConfig.partitionFor(e.customerId(), partitions) + "." + key : key;
+	}
+
 	private String normalizeRoutingKey(String eventType) {
 
 		return eventType.toLowerCase().replace(' ', '.');
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,137 @@
+package br.com.flowlinkerAPI.service;
+
+import br.com.flowlinkerAPI.dto.event.IngestEventDTO;
+import br.com.flowlinkerAPI.dto.event.IngestEventsRequest;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Ingestão NDJSON em streaming: lê um evento por vez com o parser do Jackson e publica em
+ * micro-lotes à medida que chegam, com memória constante por request independente do tamanho do backlog.
+ * Eventos inválidos são contados como rejeitados e o processamento segue; JSON malformado ou falha de
+ * publicação (backpressure/broker) interrompe a leitura e o chamador retoma a partir de {@code processed}.
+ */
+@Service
+public class EventStreamIngestionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventStreamIngestionService.class);
+    private static final int MAX_REPORTED_ERRORS = 20;
+
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final EventPublisherService publisher;
+    private final int batchSize;
+
+    /**
+     * accepted = eventos publicados (sem as duplicatas, contadas à parte em duplicates).
+     * processed = eventos do início do stream já tratados (aceitos ou rejeitados); ponto de retomada do cliente.
+     * malformed = leitura interrompida por JSON inválido na linha processed + 1.
+     */
+    public record StreamIngestResult(int accepted, int rejected, int duplicates, int processed, boolean malformed,
+                                     List<String> errors, RuntimeException failure) {}
+
+    public EventStreamIngestionService(ObjectMapper objectMapper,
+                                       Validator validator,
+                                       EventPublisherService publisher,
+                                       @Value("${events.stream.batch-size:200}") int batchSize) {
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.publisher = publisher;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public StreamIngestResult ingest(InputStream in, Long customerId, Long deviceId, String ip, Instant receivedAt) throws IOException {
+        int accepted = 0;
+        int rejected = 0;
+        int duplicates = 0;
+        List<String> errors = new ArrayList<>();
+        List<IngestEventDTO> batch = new ArrayList<>(batchSize);
+        int line = 0;
+        int processed = 0;
+        boolean malformed = false;
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(in);
+             MappingIterator<IngestEventDTO> it = objectMapper.readerFor(IngestEventDTO.class).readValues(parser)) {
+            while (true) {
+                IngestEventDTO event;
+                // conta a linha antes de ler: hasNextValue também falha com JSON inválido no início da linha
+                line++;
+                try {
+                    if (!it.hasNextValue()) {
+                        line--;
+                        break;
+                    }
+                    event = it.nextValue();
+                } catch (JsonParseException e) {
+                    // JSON malformado: não há como ressincronizar o stream com segurança
+                    malformed = true;
+                    rejected++;
+                    addError(errors, line, "JSON inválido: " + e.getOriginalMessage());
+                    break;
+                } catch (IOException e) {
+                    // erro de mapeamento (tipo/campo): o iterator pula para o próximo valor
+                    rejected++;
+                    addError(errors, line, e.getMessage());
+                    continue;
+                }
+
+                String violation = validate(event);
+                if (violation != null) {
+                    rejected++;
+                    addError(errors, line, violation);
+                    continue;
+                }
+                batch.add(event);
+                if (batch.size() >= batchSize) {
+                    EventPublisherService.PublishResult published = publisher.publishBatch(new IngestEventsRequest(List.copyOf(batch)), customerId, deviceId, ip, receivedAt);
+                    accepted += published.published();
+                    duplicates += published.duplicates();
+                    batch.clear();
+                    processed = line;
+                }
+            }
+            if (!batch.isEmpty()) {
+                EventPublisherService.PublishResult published = publisher.publishBatch(new IngestEventsRequest(List.copyOf(batch)), customerId, deviceId, ip, receivedAt);
+                accepted += published.published();
+                duplicates += published.duplicates();
+                batch.clear();
+            }
+            // só depois do último flush; a linha malformada não conta para o cliente reenviar a partir dela
+            processed = malformed ? line - 1 : line;
+        } catch (RuntimeException e) {
+            // eventos do micro-lote corrente não foram aceitos; o cliente reenvia a partir de processed
+            logger.warn("Ingestão em streaming interrompida após {} eventos aceitos: {}", accepted, e.getMessage());
+            return new StreamIngestResult(accepted, rejected, duplicates, processed, malformed, errors, e);
+        }
+        return new StreamIngestResult(accepted, rejected, duplicates, processed, malformed, errors, null);
+    }
+
+    private String validate(IngestEventDTO event) {
+        if (event == null) return "evento nulo";
+        Set<ConstraintViolation<IngestEventDTO>> violations = validator.validate(event);
+        if (violations.isEmpty()) return null;
+        ConstraintViolation<IngestEventDTO> v = violations.iterator().next();
+        return v.getPropertyPath() + " " + v.getMessage();
+    }
+
+    private void addError(List<String> errors, int line, String message) {
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add("linha " + line + ": " + message);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package br.com.flowlinkerAPI.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Migração das extrações antigas para a lista compactada: percorre as extrações concluídas que ainda
+ * têm linhas em group_extraction_item (cursor por id) e compacta uma por transação via
+ * {@link GroupExtractionService#packItems}. Extrações em UPLOADING/PROCESSING/FAILED ficam como estão.
+ * Um lock no Redis garante um nó por vez; depois de uma passada sem pendências o job para.
+ */
+@Component
+public class ExtractionPackingBackfill {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExtractionPackingBackfill.class);
+    private static final String LOCK_KEY = "extraction:packing:backfill:lock";
+    private static final Duration LOCK_TTL = Duration.ofMinutes(5);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final GroupExtractionService groupExtractionService;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Counter packed;
+    private volatile boolean done;
+
+    public ExtractionPackingBackfill(JdbcTemplate jdbcTemplate,
+                                     GroupExtractionService groupExtractionService,
+                                     @Qualifier("stringRedisTemplate") RedisTemplate<String, String> redisTemplate,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${extraction.storage.packed:true}") boolean packedStorage,
+                                     @Value("${extraction.storage.packing-backfill.enabled:true}") boolean enabled,
+                                     @Value("${extraction.storage.packing-backfill.batch-size:100}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.groupExtractionService = groupExtractionService;
+        this.redisTemplate = redisTemplate;
+        this.enabled = packedStorage && enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.packed = Counter.builder("extraction.packing.backfill").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${extraction.storage.packing-backfill.interval-ms:60000}", initialDelayString = "${extraction.storage.packing-backfill.initial-delay-ms:45000}")
+    public void run() {
+        if (!enabled || done) return;
+        Boolean locked;
+        try {
+            locked = redisTemplate.opsForValue().setIfAbsent(LOCK_KEY, "1", LOCK_TTL);
+        } catch (Exception e) {
+            logger.warn("Backfill de extrações compactadas: lock indisponível (Redis): {}", e.getMessage());
+            return;
+        }
+        if (!Boolean.TRUE.equals(locked)) return;
+        try {
+            long cursor = 0;
+            int total = 0;
+            while (true) {
+                List<Long> ids = jdbcTemplate.queryForList(
+                        "SELECT e.id FROM group_extraction e WHERE e.id > ? AND (e.status IS NULL OR e.status = 'COMPLETED')"
+                                + " AND EXISTS (SELECT 1 FROM group_extraction_item i WHERE i.extraction_id = e.id)"
+                                + " ORDER BY e.id LIMIT ?",
+                        Long.class, cursor, batchSize);
+                if (ids.isEmpty()) break;
+                for (Long id : ids) {
+                    groupExtractionService.packItems(id);
+                    packed.increment();
+                    cursor = id;
+                }
+                total += ids.size();
+                redisTemplate.expire(LOCK_KEY, LOCK_TTL);
+            }
+            done = true;
+            logger.info("Backfill de extrações compactadas concluído: {} extrações migradas", total);
+        } catch (Exception e) {
+            logger.error("Backfill de extrações compactadas falhou: {}", e.getMessage(), e);
+        } finally {
+            redisTemplate.delete(LOCK_KEY);
+        }
+    }
+}
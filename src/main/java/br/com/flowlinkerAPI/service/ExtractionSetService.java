@@ -0,0 +1,139 @@
+package br.com.flowlinkerAPI.service;
+
+import br.com.flowlinkerAPI.config.security.CurrentRequest;
+import br.com.flowlinkerAPI.dto.desktop.ExtractionSetOperationRequestDTO;
+import br.com.flowlinkerAPI.dto.desktop.ExtractionSetOperationResultDTO;
+import br.com.flowlinkerAPI.model.GroupExtraction;
+import br.com.flowlinkerAPI.repository.GroupExtractionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * União, interseção e diferença entre extrações do cliente ("grupos de A que não estão em B",
+ * "todos os grupos únicos das últimas 10 extrações"). Cada extração vira o array ordenado de ids do
+ * catálogo (a própria lista compactada decodificada), e as operações são merges lineares sobre esses
+ * arrays. O resultado pode ser gravado como uma extração derivada, que serve para iniciar campanhas.
+ */
+@Service
+public class ExtractionSetService {
+
+    public enum Operation { UNION, INTERSECTION, DIFFERENCE }
+
+    private final GroupExtractionService groupExtractionService;
+    private final GroupExtractionRepository groupExtractionRepository;
+    private final CurrentRequest currentRequest;
+    private final MeterRegistry meterRegistry;
+    private final int maxExtractions;
+
+    public ExtractionSetService(GroupExtractionService groupExtractionService,
+                                GroupExtractionRepository groupExtractionRepository,
+                                CurrentRequest currentRequest,
+                                MeterRegistry meterRegistry,
+                                @Value("${extraction.sets.max-extractions:50}") int maxExtractions) {
+        this.groupExtractionService = groupExtractionService;
+        this.groupExtractionRepository = groupExtractionRepository;
+        this.currentRequest = currentRequest;
+        this.meterRegistry = meterRegistry;
+        this.maxExtractions = maxExtractions;
+    }
+
+    @Transactional
+    public ExtractionSetOperationResultDTO compute(ExtractionSetOperationRequestDTO req) {
+        Operation operation = parseOperation(req != null ? req.getOperation() : null);
+        List<Long> ids = req.getExtractionIds() == null ? List.of()
+            : req.getExtractionIds().stream().filter(java.util.Objects::nonNull).distinct().toList();
+        if (ids.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Informe ao menos uma extração");
+        }
+        if (ids.size() > maxExtractions) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Máximo de " + maxExtractions + " extrações por operação");
+        }
+
+        Long customerId = currentRequest.getCustomerId();
+        List<GroupExtraction> extractions = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            GroupExtraction extraction = groupExtractionRepository.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Extração não encontrada"));
+            if (extraction.getCustomer() == null || !extraction.getCustomer().getId().equals(customerId)) {
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Extração não pertence ao cliente");
+            }
+            extractions.add(extraction);
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        long[] result = groupExtractionService.groupIdsOf(ids.get(0));
+        for (int i = 1; i < ids.size(); i++) {
+            long[] other = groupExtractionService.groupIdsOf(ids.get(i));
+            result = switch (operation) {
+                case UNION -> union(result, other);
+                case INTERSECTION -> intersection(result, other);
+                case DIFFERENCE -> difference(result, other);
+            };
+        }
+        sample.stop(meterRegistry.timer("extraction.sets", "operation", operation.name().toLowerCase(Locale.ROOT)));
+
+        Long derivedId = null;
+        if (req.isSave()) {
+            String label = operation.name() + " " + ids.stream().map(String::valueOf).collect(Collectors.joining(", "));
+            derivedId = groupExtractionService.saveDerived(extractions.get(0).getCustomer(), label, result).getId();
+        }
+        return new ExtractionSetOperationResultDTO(operation.name(), ids, result.length, derivedId);
+    }
+
+    private static Operation parseOperation(String value) {
+        if (value == null) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Operação obrigatória");
+        try {
+            return Operation.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Operação inválida: " + value);
+        }
+    }
+
+    // Os arrays chegam ordenados e sem repetição; todas as operações preservam isso
+
+    static long[] union(long[] a, long[] b) {
+        long[] out = new long[a.length + b.length];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) out[n++] = a[i++];
+            else if (a[i] > b[j]) out[n++] = b[j++];
+            else { out[n++] = a[i++]; j++; }
+        }
+        while (i < a.length) out[n++] = a[i++];
+        while (j < b.length) out[n++] = b[j++];
+        return Arrays.copyOf(out, n);
+    }
+
+    static long[] intersection(long[] a, long[] b) {
+        long[] out = new long[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else { out[n++] = a[i++]; j++; }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    static long[] difference(long[] a, long[] b) {
+        long[] out = new long[a.length];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length) {
+            while (j < b.length && b[j] < a[i]) j++;
+            if (j >= b.length || b[j] != a[i]) out[n++] = a[i];
+            i++;
+        }
+        return Arrays.copyOf(out, n);
+    }
+}
@@ -0,0 +1,104 @@
+package br.com.flowlinkerAPI.service;
+
+import br.com.flowlinkerAPI.model.GroupExtraction;
+import br.com.flowlinkerAPI.repository.GroupExtractionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Remove extrações que nunca concluíram: sessões de upload abandonadas (UPLOADING) e processamento
+ * interrompido por restart (PROCESSING), sem atividade há mais que o TTL da sessão de upload.
+ * Extrações FAILED ficam para diagnóstico.
+ * Cada uma sai com a lista compactada e os itens em staging, uma por transação.
+ * Um lock no Redis garante um nó por vez.
+ */
+@Component
+public class ExtractionUploadCleanup {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExtractionUploadCleanup.class);
+    private static final String LOCK_KEY = "extraction:upload:cleanup:lock";
+    private static final Duration LOCK_TTL = Duration.ofMinutes(5);
+    private static final List<String> UNFINISHED = List.of(GroupExtraction.STATUS_UPLOADING, GroupExtraction.STATUS_PROCESSING);
+
+    private final GroupExtractionRepository groupExtractionRepository;
+    private final GroupExtractionService groupExtractionService;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final TransactionTemplate tx;
+    private final boolean enabled;
+    private final Duration maxIdle;
+    private final int batchSize;
+    private final Counter removed;
+
+    public ExtractionUploadCleanup(GroupExtractionRepository groupExtractionRepository,
+                                   GroupExtractionService groupExtractionService,
+                                   @Qualifier("stringRedisTemplate") RedisTemplate<String, String> redisTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${extraction.upload.cleanup.enabled:true}") boolean enabled,
+                                   @Value("${extraction.upload.session-ttl-hours:24}") long sessionTtlHours,
+                                   @Value("${extraction.upload.cleanup.batch-size:100}") int batchSize) {
+        this.groupExtractionRepository = groupExtractionRepository;
+        this.groupExtractionService = groupExtractionService;
+        this.redisTemplate = redisTemplate;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.maxIdle = Duration.ofHours(sessionTtlHours);
+        this.batchSize = Math.max(1, batchSize);
+        this.removed = Counter.builder("extraction.upload.cleanup").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${extraction.upload.cleanup.interval-ms:3600000}", initialDelayString = "${extraction.upload.cleanup.initial-delay-ms:60000}")
+    public void run() {
+        if (!enabled) return;
+        Boolean locked;
+        try {
+            locked = redisTemplate.opsForValue().setIfAbsent(LOCK_KEY, "1", LOCK_TTL);
+        } catch (Exception e) {
+            logger.warn("Limpeza de extrações não concluídas: lock indisponível (Redis): {}", e.getMessage());
+            return;
+        }
+        if (!Boolean.TRUE.equals(locked)) return;
+        try {
+            Instant now = Instant.now();
+            tx.executeWithoutResult(s -> groupExtractionRepository.startClock(UNFINISHED, now));
+            Instant cutoff = now.minus(maxIdle);
+            long afterId = 0;
+            int total = 0;
+            List<Long> ids;
+            do {
+                ids = groupExtractionRepository.findStaleIds(UNFINISHED, cutoff, afterId, PageRequest.of(0, batchSize));
+                for (Long id : ids) {
+                    afterId = id;
+                    try {
+                        groupExtractionService.purgeExtraction(id);
+                        removed.increment();
+                        total++;
+                    } catch (Exception e) {
+                        // ex.: campanha antiga apontando para a extração; fica para a próxima rodada
+                        logger.warn("[Extraction] limpeza não removeu extractionId={}: {}", id, e.getMessage());
+                    }
+                }
+                redisTemplate.expire(LOCK_KEY, LOCK_TTL);
+            } while (ids.size() == batchSize);
+            if (total > 0) logger.info("[Extraction] limpeza removeu {} extrações não concluídas", total);
+        } catch (Exception e) {
+            logger.error("Limpeza de extrações não concluídas falhou: {}", e.getMessage(), e);
+        } finally {
+            redisTemplate.delete(LOCK_KEY);
+        }
+    }
+}
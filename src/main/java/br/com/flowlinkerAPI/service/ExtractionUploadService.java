@@ -0,0 +1,148 @@
+package br.com.flowlinkerAPI.service;
+
+import br.com.flowlinkerAPI.config.security.CurrentRequest;
+import br.com.flowlinkerAPI.dto.desktop.ExtractionUploadSessionDTO;
+import br.com.flowlinkerAPI.dto.desktop.GroupExtractionRequestDTO;
+import br.com.flowlinkerAPI.exceptions.UploadSessionNotFoundException;
+import br.com.flowlinkerAPI.model.GroupExtraction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Upload de extrações grandes em sessões retomáveis: abre a sessão (cabeçalho da extração em UPLOADING),
+ * recebe chunks numerados e conclui no commit. Cada chunk é deduplicado e gravado assim que chega,
+ * então a memória fica limitada ao tamanho do chunk. O estado da sessão fica no Redis:
+ * {@code extraction:upload:{id}} (hash) e {@code extraction:upload:{id}:chunks} (set de índices gravados).
+ * Reenviar um chunk já gravado não reprocessa nada. O commit passa a extração para PROCESSING antes de
+ * compactar; a partir daí chunks novos são recusados (ver {@link GroupExtractionService#closeUpload}).
+ */
+@Service
+public class ExtractionUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExtractionUploadService.class);
+    private static final String PREFIX = "extraction:upload:";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final GroupExtractionService groupExtractionService;
+    private final CurrentRequest currentRequest;
+    private final int maxChunkGroups;
+    private final Duration sessionTtl;
+
+    public ExtractionUploadService(@Qualifier("stringRedisTemplate") RedisTemplate<String, String> redisTemplate,
+                                   GroupExtractionService groupExtractionService,
+                                   CurrentRequest currentRequest,
+                                   @Value("${extraction.upload.max-chunk-groups:2000}") int maxChunkGroups,
+                                   @Value("${extraction.upload.session-ttl-hours:24}") long sessionTtlHours) {
+        this.redisTemplate = redisTemplate;
+        this.groupExtractionService = groupExtractionService;
+        this.currentRequest = currentRequest;
+        this.maxChunkGroups = maxChunkGroups;
+        this.sessionTtl = Duration.ofHours(sessionTtlHours);
+    }
+
+    public ExtractionUploadSessionDTO open(GroupExtractionRequestDTO header) {
+        Long customerId = currentRequest.getCustomerId();
+        GroupExtraction extraction = groupExtractionService.createExtraction(header, 0, GroupExtraction.STATUS_UPLOADING);
+        String sessionId = UUID.randomUUID().toString();
+
+        Map<String, String> data = new HashMap<>();
+        data.put("extractionId", String.valueOf(extraction.getId()));
+        data.put("customerId", String.valueOf(customerId));
+        data.put("status", GroupExtraction.STATUS_UPLOADING);
+        data.put("groups", "0");
+        redisTemplate.opsForHash().putAll(sessionKey(sessionId), data);
+        redisTemplate.expire(sessionKey(sessionId), sessionTtl);
+        logger.info("[Extraction] upload aberto cid={} extractionId={} session={}", customerId, extraction.getId(), sessionId);
+        return status(sessionId);
+    }
+
+    public ExtractionUploadSessionDTO putChunk(String sessionId, int index, List<GroupExtractionRequestDTO.SimpleGroupDTO> groups) {
+        if (index < 0) throw new IllegalArgumentException("Índice de chunk inválido: " + index);
+        if (groups != null && groups.size() > maxChunkGroups) {
+            throw new IllegalArgumentException("Chunk com " + groups.size() + " grupos excede o limite de " + maxChunkGroups);
+        }
+        Map<Object, Object> session = load(sessionId);
+        String chunk = String.valueOf(index);
+        if (Boolean.TRUE.equals(redisTemplate.opsForSet().isMember(chunksKey(sessionId), chunk))) {
+            return status(sessionId); // retry de chunk já gravado
+        }
+        if (!GroupExtraction.STATUS_UPLOADING.equals(session.get("status"))) {
+            throw new IllegalArgumentException("Sessão de upload já concluída");
+        }
+
+        Long extractionId = Long.valueOf((String) session.get("extractionId"));
+        // posição pelo índice do chunk: chunks fora de ordem ou reenviados mantêm a ordem da extração
+        long firstPosition = (long) index * maxChunkGroups;
+        int processed = groups == null ? 0 : groupExtractionService.ingestGroups(extractionId, groups, currentRequest.getCustomerId(), firstPosition);
+        // marca só depois de gravar: um retry concorrente do mesmo chunk é inofensivo (upsert + INSERT IGNORE)
+        Long added = redisTemplate.opsForSet().add(chunksKey(sessionId), chunk);
+        if (added != null && added > 0) {
+            redisTemplate.opsForHash().increment(sessionKey(sessionId), "groups", processed);
+        }
+        touch(sessionId);
+        return status(sessionId);
+    }
+
+    public ExtractionUploadSessionDTO commit(String sessionId) {
+        Map<Object, Object> session = load(sessionId);
+        if (!GroupExtraction.STATUS_COMPLETED.equals(session.get("status"))) {
+            Long extractionId = Long.valueOf((String) session.get("extractionId"));
+            // commit separado: a compactação só começa depois que nenhum chunk pode mais gravar itens
+            groupExtractionService.closeUpload(extractionId);
+            redisTemplate.opsForHash().put(sessionKey(sessionId), "status", GroupExtraction.STATUS_PROCESSING);
+            int count = groupExtractionService.completeExtraction(extractionId);
+            redisTemplate.opsForHash().put(sessionKey(sessionId), "status", GroupExtraction.STATUS_COMPLETED);
+            touch(sessionId);
+            logger.info("[Extraction] upload concluído extractionId={} session={} groups={}", extractionId, sessionId, count);
+        }
+        return status(sessionId);
+    }
+
+    public ExtractionUploadSessionDTO status(String sessionId) {
+        Map<Object, Object> session = load(sessionId);
+        Set<String> chunks = redisTemplate.opsForSet().members(chunksKey(sessionId));
+        List<Integer> received = chunks == null ? List.of()
+                : chunks.stream().map(Integer::valueOf).sorted().toList();
+        return new ExtractionUploadSessionDTO(
+                sessionId,
+                Long.valueOf((String) session.get("extractionId")),
+                (String) session.get("status"),
+                received,
+                Long.valueOf(String.valueOf(session.getOrDefault("groups", "0"))));
+    }
+
+    /** Sessão inexistente, expirada ou de outro cliente: tratada como não encontrada. */
+    private Map<Object, Object> load(String sessionId) {
+        Map<Object, Object> session = redisTemplate.opsForHash().entries(sessionKey(sessionId));
+        if (session == null || session.isEmpty()
+                || !Objects.equals(session.get("customerId"), String.valueOf(currentRequest.getCustomerId()))) {
+            throw new UploadSessionNotFoundException("Sessão de upload não encontrada: " + sessionId);
+        }
+        return session;
+    }
+
+    private void touch(String sessionId) {
+        redisTemplate.expire(sessionKey(sessionId), sessionTtl);
+        redisTemplate.expire(chunksKey(sessionId), sessionTtl);
+    }
+
+    private static String sessionKey(String sessionId) {
+        return PREFIX + sessionId;
+    }
+
+    private static String chunksKey(String sessionId) {
+        return PREFIX + sessionId + ":chunks";
+    }
+}
@@ -75,6 +75,10 @@ public class FacebookGroupShareCampaignService {
         if (extraction.getCustomer() == null || !extraction.getCustomer().getId().equals(customerId)) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Extração não pertence ao cliente");
         }
+        // status nulo = extração anterior às sessões de upload, já concluída
+        if (extraction.getStatus() != null && !GroupExtraction.STATUS_COMPLETED.equals(extraction.getStatus())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Extração ainda não concluída");
+        }
 
         // Valida contas em uso em campanhas RUNNING/PAUSED
         var conflicts = campaignAccountRepository.findByAccountIdsAndCampaignStatuses(
@@ -120,13 +124,16 @@ public class FacebookGroupShareCampaignService {
 
         // Vincula contas
         List<SocialMediaAccount> accounts = socialAccountRepository.findAllById(req.accountIds);
+        List<CampaignAccount> links = new java.util.ArrayList<>(accounts.size());
         for (SocialMediaAccount acc : accounts) {
             if (acc == null || acc.getCustomer() == null || !acc.getCustomer().getId().equals(customerId)) continue;
             CampaignAccount ca = new CampaignAccount();
             ca.setCampaign(campaign);
             ca.setSocialAccount(acc);
-            campaignAccountRepository.save(ca);
+            links.add(ca);
         }
+        // ids em bloco (id_sequences): os inserts saem num único batch
+        campaignAccountRepository.saveAll(links);
 
         FacebookGroupShareStartResponse resp = new FacebookGroupShareStartResponse();
         resp.campaignId = campaign.getId();
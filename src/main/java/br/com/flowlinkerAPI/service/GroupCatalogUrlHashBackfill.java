@@ -0,0 +1,251 @@
+package br.com.flowlinkerAPI.service;
+
+import br.com.flowlinkerAPI.model.GroupCatalogUrls;
+import br.com.flowlinkerAPI.model.PackedGroupIds;
+import br.com.flowlinkerAPI.repository.GroupCatalogKeyCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Backfill do url_hash das linhas antigas do group_catalog. Cada lote normaliza as urls e, quando a
+ * normalização revela duplicatas (mesma url canônica em linhas diferentes), funde tudo na sobrevivente:
+ * a que já tem url_hash ou, na falta, o menor id. Os itens de extração são repontados para ela e
+ * as chaves das linhas removidas saem do {@link GroupCatalogKeyCache}. Cada fusão fica em group_catalog_merge
+ * até as listas compactadas que citam o id removido serem reescritas (a leitura aplica a troca nesse meio tempo).
+ * Um lock no Redis garante um nó por vez. Ao terminar, opcionalmente remove o índice antigo uk_group_url.
+ */
+@Component
+public class GroupCatalogUrlHashBackfill {
+
+    private static final Logger logger = LoggerFactory.getLogger(GroupCatalogUrlHashBackfill.class);
+    private static final String LOCK_KEY = "catalog:url-hash:backfill:lock";
+    private static final Duration LOCK_TTL = Duration.ofMinutes(5);
+    private static final String LEGACY_INDEX = "uk_group_url";
+    private static final int REWRITE_BATCH = 50; // listas compactadas por transação (até MEDIUMBLOB cada)
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate tx;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final GroupCatalogKeyCache keyCache;
+    private final boolean enabled;
+    private final int batchSize;
+    private final boolean dropLegacyIndex;
+    private final Counter hashed;
+    private final Counter merged;
+    private final Counter rewritten;
+    private volatile boolean done;
+
+    private record CatalogRow(long id, String externalId, String url, boolean hasHash) {}
+
+    public GroupCatalogUrlHashBackfill(JdbcTemplate jdbcTemplate,
+                                       PlatformTransactionManager transactionManager,
+                                       @Qualifier("stringRedisTemplate") RedisTemplate<String, String> redisTemplate,
+                                       GroupCatalogKeyCache keyCache,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${catalog.url-hash.backfill.enabled:true}") boolean enabled,
+                                       @Value("${catalog.url-hash.backfill.batch-size:500}") int batchSize,
+                                       @Value("${catalog.url-hash.drop-legacy-index:false}") boolean dropLegacyIndex) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.tx = new TransactionTemplate(transactionManager);
+        this.redisTemplate = redisTemplate;
+        this.keyCache = keyCache;
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.dropLegacyIndex = dropLegacyIndex;
+        this.hashed = Counter.builder("catalog.url_hash.backfill").tag("result", "hashed").register(meterRegistry);
+        this.merged = Counter.builder("catalog.url_hash.backfill").tag("result", "merged").register(meterRegistry);
+        this.rewritten = Counter.builder("catalog.url_hash.backfill").tag("result", "lists_rewritten").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.url-hash.backfill.interval-ms:60000}", initialDelayString = "${catalog.url-hash.backfill.initial-delay-ms:30000}")
+    public void run() {
+        if (!enabled || done) return;
+        Boolean locked;
+        try {
+            locked = redisTemplate.opsForValue().setIfAbsent(LOCK_KEY, "1", LOCK_TTL);
+        } catch (Exception e) {
+            logger.warn("Backfill url_hash: lock indisponível (Redis): {}", e.getMessage());
+            return;
+        }
+        if (!Boolean.TRUE.equals(locked)) return;
+        try {
+            int processed;
+            do {
+                Integer n = tx.execute(s -> backfillBatch());
+                processed = n == null ? 0 : n;
+                redisTemplate.expire(LOCK_KEY, LOCK_TTL);
+            } while (processed > 0);
+            rewriteMergedLists();
+            finish();
+        } catch (Exception e) {
+            logger.error("Backfill url_hash falhou: {}", e.getMessage(), e);
+        } finally {
+            redisTemplate.delete(LOCK_KEY);
+        }
+    }
+
+    private int backfillBatch() {
+        List<CatalogRow> batch = jdbcTemplate.query(
+                "SELECT id, external_id, url FROM group_catalog WHERE url_hash IS NULL ORDER BY id LIMIT ?",
+                (rs, i) -> new CatalogRow(rs.getLong(1), rs.getString(2), rs.getString(3), false),
+                batchSize);
+        if (batch.isEmpty()) return 0;
+
+        Map<String, String> normalized = new HashMap<>();
+        for (CatalogRow row : batch) normalized.put(row.url(), GroupCatalogUrls.normalize(row.url()));
+
+        // candidatas: o lote + quem já tem o mesmo hash + linhas antigas cuja url crua já é a canônica
+        Map<Long, CatalogRow> candidates = new LinkedHashMap<>();
+        batch.forEach(r -> candidates.put(r.id(), r));
+        List<byte[]> hashes = normalized.values().stream().map(GroupCatalogUrls::hash).toList();
+        namedJdbcTemplate.query("SELECT id, external_id, url, url_hash IS NOT NULL FROM group_catalog WHERE url_hash IN (:hashes) OR url IN (:urls)",
+                new MapSqlParameterSource("hashes", hashes).addValue("urls", List.copyOf(normalized.values())),
+                rs -> {
+                    CatalogRow row = new CatalogRow(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getBoolean(4));
+                    candidates.putIfAbsent(row.id(), row);
+                });
+
+        Map<String, List<CatalogRow>> byHash = new LinkedHashMap<>();
+        for (CatalogRow row : candidates.values()) {
+            String url = normalized.computeIfAbsent(row.url(), GroupCatalogUrls::normalize);
+            byHash.computeIfAbsent(HexFormat.of().formatHex(GroupCatalogUrls.hash(url)), k -> new ArrayList<>()).add(row);
+        }
+
+        List<Object[]> updates = new ArrayList<>();
+        List<Long> evicted = new ArrayList<>();
+        int merges = 0;
+        for (List<CatalogRow> group : byHash.values()) {
+            CatalogRow survivor = group.get(0);
+            for (CatalogRow row : group) {
+                if (row.hasHash() != survivor.hasHash() ? row.hasHash() : row.id() < survivor.id()) survivor = row;
+            }
+            for (CatalogRow loser : group) {
+                if (loser == survivor) continue;
+                mergeInto(loser.id(), survivor.id());
+                evicted.add(GroupCatalogKeyCache.externalKey(loser.externalId()));
+                merges++;
+            }
+            if (!survivor.hasHash()) {
+                String url = normalized.get(survivor.url());
+                updates.add(new Object[]{url, GroupCatalogUrls.hash(url), survivor.id()});
+            }
+        }
+        // fusões antes das atualizações: a url canônica pode estar numa linha que acabou de ser removida
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE group_catalog SET url = ?, url_hash = ? WHERE id = ?", updates);
+        }
+        keyCache.evict(evicted);
+        hashed.increment(updates.size());
+        merged.increment(merges);
+        if (merges > 0) logger.info("Backfill url_hash: {} linhas atualizadas, {} duplicatas fundidas", updates.size(), merges);
+        return batch.size();
+    }
+
+    private void mergeInto(long loserId, long survivorId) {
+        // UPDATE IGNORE pula extrações que já têm a sobrevivente; o que sobrar é duplicata
+        jdbcTemplate.update("UPDATE IGNORE group_extraction_item SET group_id = ? WHERE group_id = ?", survivorId, loserId);
+        jdbcTemplate.update("DELETE FROM group_extraction_item WHERE group_id = ?", loserId);
+        jdbcTemplate.update("DELETE FROM group_catalog WHERE id = ?", loserId);
+        // listas compactadas são reescritas depois, numa passada só (rewriteMergedLists)
+        jdbcTemplate.update("INSERT IGNORE INTO group_catalog_merge (loser_id, survivor_id, merged_at) VALUES (?, ?, ?)",
+                loserId, survivorId, Timestamp.from(Instant.now()));
+    }
+
+    /**
+     * Troca, em todas as listas compactadas, os ids fundidos pelo sobrevivente (sem repetir o sobrevivente
+     * se a extração já o tinha) e acerta as contagens. Uma passada por extraction_id serve para todas as
+     * fusões pendentes; depois disso as linhas de group_catalog_merge saem.
+     */
+    private void rewriteMergedLists() {
+        Map<Long, Long> survivors = new HashMap<>();
+        jdbcTemplate.query("SELECT loser_id, survivor_id FROM group_catalog_merge",
+                rs -> { survivors.put(rs.getLong(1), rs.getLong(2)); });
+        if (survivors.isEmpty()) return;
+
+        long cursor = 0;
+        int total = 0;
+        while (true) {
+            List<Long> ids = jdbcTemplate.queryForList(
+                    "SELECT extraction_id FROM group_extraction_groups WHERE extraction_id > ? ORDER BY extraction_id LIMIT ?",
+                    Long.class, cursor, REWRITE_BATCH);
+            if (ids.isEmpty()) break;
+            Integer n = tx.execute(s -> rewriteLists(ids, survivors));
+            total += n == null ? 0 : n;
+            cursor = ids.get(ids.size() - 1);
+            redisTemplate.expire(LOCK_KEY, LOCK_TTL);
+        }
+
+        List<Long> losers = new ArrayList<>(survivors.keySet());
+        for (int from = 0; from < losers.size(); from += batchSize) {
+            namedJdbcTemplate.update("DELETE FROM group_catalog_merge WHERE loser_id IN (:ids)",
+                    new MapSqlParameterSource("ids", losers.subList(from, Math.min(losers.size(), from + batchSize))));
+        }
+        rewritten.increment(total);
+        logger.info("Backfill url_hash: {} listas compactadas reescritas para {} fusões", total, survivors.size());
+    }
+
+    private int rewriteLists(List<Long> extractionIds, Map<Long, Long> survivors) {
+        int changed = 0;
+        for (Long extractionId : extractionIds) {
+            byte[] packed = jdbcTemplate.query(
+                    "SELECT group_ids FROM group_extraction_groups WHERE extraction_id = ? FOR UPDATE",
+                    rs -> rs.next() ? rs.getBytes(1) : null, extractionId);
+            if (packed == null) continue;
+            long[] ids = PackedGroupIds.decodeAll(packed);
+            boolean hit = false;
+            for (int i = 0; i < ids.length; i++) {
+                Long survivor = survivors.get(ids[i]);
+                if (survivor != null) {
+                    ids[i] = survivor;
+                    hit = true;
+                }
+            }
+            if (!hit) continue;
+            ids = PackedGroupIds.distinct(ids);
+            jdbcTemplate.update("UPDATE group_extraction_groups SET group_ids = ?, group_count = ? WHERE extraction_id = ?",
+                    PackedGroupIds.encode(ids), ids.length, extractionId);
+            jdbcTemplate.update("UPDATE group_extraction SET groups_count = ? WHERE id = ?", ids.length, extractionId);
+            changed++;
+        }
+        return changed;
+    }
+
+    private void finish() {
+        done = true;
+        if (!dropLegacyIndex) {
+            logger.info("Backfill url_hash concluído");
+            return;
+        }
+        Integer exists = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.statistics WHERE table_schema = DATABASE() AND table_name = 'group_catalog' AND index_name = ?",
+                Integer.class, LEGACY_INDEX);
+        if (exists != null && exists > 0) {
+            jdbcTemplate.execute("ALTER TABLE group_catalog DROP INDEX " + LEGACY_INDEX);
+            logger.info("Backfill url_hash concluído; índice {} removido", LEGACY_INDEX);
+        }
+    }
+}
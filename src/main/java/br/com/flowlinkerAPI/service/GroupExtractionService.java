@@ -3,20 +3,39 @@ package br.com.flowlinkerAPI.service;
 import br.com.flowlinkerAPI.dto.desktop.GroupExtractionRequestDTO;
 import br.com.flowlinkerAPI.model.*;
 import br.com.flowlinkerAPI.repository.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.LongStream;
 import java.util.stream.Collectors;
 import br.com.flowlinkerAPI.config.security.CurrentRequest;
+import br.com.flowlinkerAPI.dto.desktop.CursorPageDTO;
 import br.com.flowlinkerAPI.dto.desktop.ExtractionSummaryDTO;
 import br.com.flowlinkerAPI.dto.desktop.ExtractionGroupDTO;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -25,23 +44,42 @@ import org.springframework.data.domain.Sort;
 @RequiredArgsConstructor
 public class GroupExtractionService {
 
-    private final GroupCatalogRepository groupCatalogRepository;
     private final GroupExtractionRepository groupExtractionRepository;
     private final GroupExtractionItemRepository groupExtractionItemRepository;
     private final br.com.flowlinkerAPI.repository.CustomerRepository customerRepository;
     private final SocialMediaAccountRepository socialMediaAccountRepository;
     private final CurrentRequest currentRequest;
+    private final GroupCatalogBulkRepository groupCatalogBulkRepository;
+    private final GroupCatalogRepository groupCatalogRepository;
+    private final GroupExtractionGroupsRepository groupExtractionGroupsRepository;
+    private final GroupCatalogMergeRepository groupCatalogMergeRepository;
+    private final PackedGroupIdsReader packedGroupIdsReader;
+    private final MeterRegistry meterRegistry;
+    private final PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier("extractionChunkExecutor")
+    private AsyncTaskExecutor extractionChunkExecutor;
+
+    @Value("${extraction.chunk.size:1000}")
+    private int chunkSize;
+
+    // Extração concluída vira uma linha em group_extraction_groups; group_extraction_item fica só como staging
+    @Value("${extraction.storage.packed:true}")
+    private boolean packedStorage;
+
+    private static final int CHUNK_LOCK_RETRIES = 3;
+    private static final int MAX_CURSOR_PAGE_SIZE = 500;
+    private static final String CURSOR_POSITION = "p";
+    private static final String CURSOR_GROUP = "g";
     private static final Logger logger = LoggerFactory.getLogger(GroupExtractionService.class);
 
     @Async("appTaskExecutor")
-    @Transactional
     public void processExtraction(GroupExtractionRequestDTO payload) {
         if (payload == null) return;
 
         long started = System.currentTimeMillis();
         GroupExtraction extraction = null;
-        Device device = currentRequest.getDevice();
-        Customer customer = null;
 
         Long customerId = currentRequest.getCustomerId();
         try {
@@ -53,123 +91,292 @@ public class GroupExtractionService {
                 payload.getKeywords(),
                 groupsSize);
 
-            if (device != null) {
-                customer = device.getCustomer();
-            } else if (customerId != null) {
-                customer = customerRepository.findById(customerId).orElse(null);
-            }
+            List<GroupCatalogBulkRepository.GroupRow> rows = payload.getGroups() != null
+                ? prepareRows(payload.getGroups(), customerId)
+                : List.of();
 
-            extraction = new GroupExtraction();
-            extraction.setDevice(device);
-            extraction.setCustomer(customer);
-            extraction.setExtractedAt(payload.getExtractedAt() != null ? payload.getExtractedAt() : Instant.now());
-            extraction.setKeywordsText(joinKeywords(payload.getKeywords()));
-            extraction.setGroupsCount(groupsSize);
+            // Cabeçalho commitado antes dos itens: a extração já aparece (PROCESSING) e groupsCount cresce a cada chunk
+            TransactionTemplate tx = new TransactionTemplate(transactionManager);
+            extraction = tx.execute(s -> createExtraction(payload, 0, GroupExtraction.STATUS_PROCESSING));
+            Long extractionId = extraction.getId();
 
-            if (customer != null && payload.getAccountUsername() != null && !payload.getAccountUsername().isBlank()) {
-                socialMediaAccountRepository.findFirstByCustomerIdAndUsernameIgnoreCase(customer.getId(), payload.getAccountUsername())
-                    .ifPresent(extraction::setSocialAccount);
-            }
-            extraction = groupExtractionRepository.save(extraction);
-
-            if (payload.getGroups() != null) {
-                java.util.Set<String> seenExternal = new java.util.HashSet<>();
-                java.util.Set<String> seenUrls = new java.util.HashSet<>();
-                java.util.List<GroupExtractionRequestDTO.SimpleGroupDTO> unique = new java.util.ArrayList<>();
-                for (GroupExtractionRequestDTO.SimpleGroupDTO g : payload.getGroups()) {
-                    if (g == null) continue;
-                    String extId = g.getExternalId();
-                    String url = g.getUrl();
-                    boolean duplicate = false;
-                    if (extId != null && !extId.isBlank() && !seenExternal.add(extId)) duplicate = true;
-                    if (url != null && !url.isBlank() && !seenUrls.add(url)) duplicate = true;
-                    if (!duplicate) unique.add(g);
-                }
-
-                java.util.Set<String> extIds = unique.stream()
-                        .map(GroupExtractionRequestDTO.SimpleGroupDTO::getExternalId)
-                        .filter(id -> id != null && !id.isBlank())
-                        .collect(java.util.stream.Collectors.toSet());
-                java.util.Set<String> urls = unique.stream()
-                        .map(GroupExtractionRequestDTO.SimpleGroupDTO::getUrl)
-                        .filter(u -> u != null && !u.isBlank())
-                        .collect(java.util.stream.Collectors.toSet());
-
-                java.util.Map<String, GroupCatalog> byExtId = new java.util.HashMap<>();
-                java.util.Map<String, GroupCatalog> byUrl = new java.util.HashMap<>();
-                if (!extIds.isEmpty()) {
-                    for (GroupCatalog gc : groupCatalogRepository.findByExternalIdIn(extIds)) {
-                        if (gc.getExternalId() != null) byExtId.put(gc.getExternalId(), gc);
-                    }
-                }
-                if (!urls.isEmpty()) {
-                    for (GroupCatalog gc : groupCatalogRepository.findByUrlIn(urls)) {
-                        if (gc.getUrl() != null) byUrl.put(gc.getUrl(), gc);
-                    }
-                }
-
-                java.util.List<GroupCatalog> toCreate = new java.util.ArrayList<>();
-                java.util.List<GroupCatalog> toUpdate = new java.util.ArrayList<>();
-                for (GroupExtractionRequestDTO.SimpleGroupDTO g : unique) {
-                    String extId = g.getExternalId();
-                    String url = g.getUrl();
-                    GroupCatalog existing = (extId != null && byExtId.containsKey(extId)) ? byExtId.get(extId)
-                            : (url != null ? byUrl.get(url) : null);
-                    if (existing == null) {
-                        GroupCatalog gc = new GroupCatalog();
-                        gc.setExternalId(extId);
-                        gc.setName(sanitizeGroupName(g.getName()));
-                        gc.setUrl(url);
-                        gc.setMemberCount(g.getMemberCount());
-                        gc.setLastSeenAt(Instant.now());
-                        toCreate.add(gc);
-                    } else {
-                        existing.setName(sanitizeGroupName(g.getName()));
-                        existing.setUrl(url);
-                        existing.setMemberCount(g.getMemberCount());
-                        existing.setLastSeenAt(Instant.now());
-                        toUpdate.add(existing);
-                    }
-                }
-
-                if (!toCreate.isEmpty()) {
-                    java.util.List<GroupCatalog> created = groupCatalogRepository.saveAll(toCreate);
-                    for (GroupCatalog gc : created) {
-                        if (gc.getExternalId() != null) byExtId.put(gc.getExternalId(), gc);
-                        if (gc.getUrl() != null) byUrl.put(gc.getUrl(), gc);
-                    }
-                }
-                if (!toUpdate.isEmpty()) {
-                    groupCatalogRepository.saveAll(toUpdate);
-                }
-
-                java.util.List<GroupExtractionItem> items = new java.util.ArrayList<>(unique.size());
-                for (GroupExtractionRequestDTO.SimpleGroupDTO g : unique) {
-                    String extId = g.getExternalId();
-                    String url = g.getUrl();
-                    GroupCatalog gc = (extId != null && byExtId.containsKey(extId)) ? byExtId.get(extId)
-                            : (url != null ? byUrl.get(url) : null);
-                    if (gc == null) continue;
-                    GroupExtractionItem item = new GroupExtractionItem();
-                    item.setExtraction(extraction);
-                    item.setGroup(gc);
-                    items.add(item);
-                }
-                if (!items.isEmpty()) {
-                    groupExtractionItemRepository.saveAll(items);
-                }
-            }
+            int chunks = writeChunks(extractionId, rows);
+            int count = tx.execute(s -> completeExtraction(extractionId));
 
-            logger.info("[Extraction] END cid={} extractionId={} durationMs={}",
+            logger.info("[Extraction] END cid={} extractionId={} groups={} chunks={} durationMs={}",
                 customerId,
-                extraction != null ? extraction.getId() : null,
+                extractionId,
+                count,
+                chunks,
                 System.currentTimeMillis() - started);
         } catch (Exception e) {
             logger.error("[Extraction] ERROR cid={} msg={}", customerId, e.getMessage(), e);
+            if (extraction != null) markFailed(extraction.getId());
             throw e;
         }
     }
 
+    /**
+     * Divide as linhas em chunks de {@code extraction.chunk.size} e grava cada um em transação própria
+     * no pool de extração. Extrações pequenas (um chunk) rodam direto nesta thread.
+     */
+    private int writeChunks(Long extractionId, List<GroupCatalogBulkRepository.GroupRow> rows) {
+        if (rows.isEmpty()) return 0;
+        if (rows.size() <= chunkSize) {
+            writeChunk(extractionId, rows, 0);
+            return 1;
+        }
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int from = 0; from < rows.size(); from += chunkSize) {
+            List<GroupCatalogBulkRepository.GroupRow> chunk = rows.subList(from, Math.min(rows.size(), from + chunkSize));
+            long firstPosition = from;
+            futures.add(CompletableFuture.runAsync(() -> writeChunk(extractionId, chunk, firstPosition), extractionChunkExecutor));
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+        return futures.size();
+    }
+
+    /** Um chunk = uma transação curta; deadlock/lock timeout entre chunks concorrentes é refeito algumas vezes. */
+    private void writeChunk(Long extractionId, List<GroupCatalogBulkRepository.GroupRow> chunk, long firstPosition) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                tx.executeWithoutResult(s -> {
+                    writeRows(extractionId, chunk, firstPosition);
+                    groupExtractionRepository.incrementGroupsCount(extractionId, chunk.size(), Instant.now());
+                });
+                break;
+            } catch (PessimisticLockingFailureException e) {
+                if (attempt >= CHUNK_LOCK_RETRIES) throw e;
+                meterRegistry.counter("extraction.chunk.retries").increment();
+                logger.warn("[Extraction] conflito de lock no chunk extractionId={} tentativa={}", extractionId, attempt);
+            }
+        }
+        sample.stop(meterRegistry.timer("extraction.chunk.write"));
+    }
+
+    private void markFailed(Long extractionId) {
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(s ->
+                groupExtractionRepository.findById(extractionId).ifPresent(e -> {
+                    e.setStatus(GroupExtraction.STATUS_FAILED);
+                    groupExtractionRepository.save(e);
+                }));
+        } catch (Exception ex) {
+            logger.warn("[Extraction] não foi possível marcar extractionId={} como FAILED: {}", extractionId, ex.getMessage());
+        }
+    }
+
+    /** Grava o cabeçalho da extração (device/cliente/conta da requisição corrente). */
+    @Transactional
+    public GroupExtraction createExtraction(GroupExtractionRequestDTO payload, int groupsCount, String status) {
+        Device device = currentRequest.getDevice();
+        Customer customer = null;
+        Long customerId = currentRequest.getCustomerId();
+        if (device != null) {
+            customer = device.getCustomer();
+        } else if (customerId != null) {
+            customer = customerRepository.findById(customerId).orElse(null);
+        }
+
+        GroupExtraction extraction = new GroupExtraction();
+        extraction.setDevice(device);
+        extraction.setCustomer(customer);
+        extraction.setExtractedAt(payload.getExtractedAt() != null ? payload.getExtractedAt() : Instant.now());
+        extraction.setKeywordsText(joinKeywords(payload.getKeywords()));
+        extraction.setGroupsCount(groupsCount);
+        extraction.setStatus(status);
+
+        if (customer != null && payload.getAccountUsername() != null && !payload.getAccountUsername().isBlank()) {
+            socialMediaAccountRepository.findFirstByCustomerIdAndUsernameIgnoreCase(customer.getId(), payload.getAccountUsername())
+                .ifPresent(extraction::setSocialAccount);
+        }
+        return groupExtractionRepository.save(extraction);
+    }
+
+    /**
+     * Deduplica os grupos recebidos, faz o upsert no catálogo e vincula à extração.
+     * Idempotente: reenviar os mesmos grupos não duplica itens (INSERT IGNORE na chave extração+grupo).
+     * {@code firstPosition} é a posição do primeiro grupo na extração (ordem de chegada entre chunks).
+     * Só grava com a extração em UPLOADING: o UPDATE inicial trava a linha até o commit do chunk, e o
+     * {@link #closeUpload} do commit espera por ele. Retorna quantos grupos válidos foram processados.
+     */
+    @Transactional
+    public int ingestGroups(Long extractionId, List<GroupExtractionRequestDTO.SimpleGroupDTO> groups, Long customerId, long firstPosition) {
+        if (groupExtractionRepository.touchIfStatus(extractionId, GroupExtraction.STATUS_UPLOADING, Instant.now()) == 0) {
+            throw new IllegalArgumentException("Sessão de upload já concluída");
+        }
+        List<GroupCatalogBulkRepository.GroupRow> rows = prepareRows(groups, customerId);
+        writeRows(extractionId, rows, firstPosition);
+        return rows.size();
+    }
+
+    /**
+     * Fecha o upload para novos chunks (UPLOADING → PROCESSING) em transação própria, antes de compactar:
+     * chunks em andamento seguram a linha da extração, então o UPDATE espera eles terminarem, e os que
+     * chegarem depois não passam do {@code touchIfStatus}. false quando já estava fechado (commit repetido).
+     */
+    @Transactional
+    public boolean closeUpload(Long extractionId) {
+        return groupExtractionRepository.transitionStatus(extractionId,
+            GroupExtraction.STATUS_UPLOADING, GroupExtraction.STATUS_PROCESSING, Instant.now()) > 0;
+    }
+
+    /**
+     * Deduplica por externalId/url normalizada e descarta grupos sem as colunas obrigatórias,
+     * mantendo a ordem de chegada.
+     */
+    private List<GroupCatalogBulkRepository.GroupRow> prepareRows(List<GroupExtractionRequestDTO.SimpleGroupDTO> groups, Long customerId) {
+        java.util.Set<String> seenExternal = new java.util.HashSet<>();
+        java.util.Set<String> seenUrls = new java.util.HashSet<>();
+        java.util.List<GroupExtractionRequestDTO.SimpleGroupDTO> unique = new java.util.ArrayList<>();
+        for (GroupExtractionRequestDTO.SimpleGroupDTO g : groups) {
+            if (g == null) continue;
+            String extId = g.getExternalId();
+            String url = GroupCatalogUrls.normalize(g.getUrl());
+            boolean duplicate = false;
+            if (extId != null && !extId.isBlank() && !seenExternal.add(extId)) duplicate = true;
+            if (url != null && !url.isBlank() && !seenUrls.add(url)) duplicate = true;
+            if (!duplicate) unique.add(g);
+        }
+
+        // Sem external_id ou url o grupo violaria as colunas NOT NULL e derrubaria a extração inteira
+        java.util.List<GroupCatalogBulkRepository.GroupRow> rows = new java.util.ArrayList<>(unique.size());
+        for (GroupExtractionRequestDTO.SimpleGroupDTO g : unique) {
+            String url = GroupCatalogUrls.normalize(g.getUrl());
+            if (g.getExternalId() == null || g.getExternalId().isBlank() || url == null || url.isBlank()) {
+                continue;
+            }
+            String name = sanitizeGroupName(g.getName());
+            rows.add(new GroupCatalogBulkRepository.GroupRow(g.getExternalId(), name != null ? name : "", url, g.getMemberCount()));
+        }
+        if (rows.size() < unique.size()) {
+            logger.warn("[Extraction] {} grupos sem externalId/url ignorados cid={}", unique.size() - rows.size(), customerId);
+        }
+        return rows;
+    }
+
+    private void writeRows(Long extractionId, List<GroupCatalogBulkRepository.GroupRow> rows, long firstPosition) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        // upsert ordenado por externalId para que transações concorrentes travem as chaves sempre na mesma ordem;
+        // os itens seguem a ordem de chegada
+        List<GroupCatalogBulkRepository.GroupRow> lockOrder = new ArrayList<>(rows);
+        lockOrder.sort(java.util.Comparator.comparing(GroupCatalogBulkRepository.GroupRow::externalId));
+        GroupCatalogBulkRepository.ResolvedIds ids = groupCatalogBulkRepository.upsertGroups(lockOrder, Instant.now());
+        java.util.Set<Long> groupIds = new java.util.LinkedHashSet<>(rows.size());
+        for (GroupCatalogBulkRepository.GroupRow row : rows) {
+            Long id = ids.idFor(row.externalId(), row.url());
+            if (id != null) groupIds.add(id);
+        }
+        groupCatalogBulkRepository.insertItems(extractionId, groupIds, firstPosition);
+        sample.stop(meterRegistry.timer("extraction.catalog.upsert"));
+        meterRegistry.summary("extraction.catalog.groups").record(rows.size());
+    }
+
+    /** Fecha a extração: groupsCount passa a ser o total real de itens vinculados. */
+    @Transactional
+    public int completeExtraction(Long extractionId) {
+        GroupExtraction extraction = groupExtractionRepository.findById(extractionId).orElse(null);
+        if (extraction == null) return 0;
+        int count = packedStorage
+            ? packItems(extractionId)
+            : (int) groupExtractionItemRepository.countByExtraction_Id(extractionId);
+        extraction.setGroupsCount(count);
+        extraction.setStatus(GroupExtraction.STATUS_COMPLETED);
+        groupExtractionRepository.save(extraction);
+        return count;
+    }
+
+    /**
+     * Move os itens em staging para a lista compactada da extração (depois do que já estiver compactado,
+     * na ordem de chegada) e apaga as linhas de group_extraction_item. Retorna o total de grupos da extração.
+     */
+    @Transactional
+    public int packItems(Long extractionId) {
+        long[] staged = groupCatalogBulkRepository.itemGroupIds(extractionId);
+        GroupExtractionGroups packed = groupExtractionGroupsRepository.findById(extractionId).orElse(null);
+        if (staged.length == 0) return packed != null ? packed.getGroupCount() : 0;
+
+        LongStream all = LongStream.of(staged);
+        if (packed != null) all = LongStream.concat(LongStream.of(PackedGroupIds.decodeAll(packed.getGroupIds())), all);
+        long[] ids = PackedGroupIds.distinct(all.toArray());
+        if (packed == null) {
+            packed = new GroupExtractionGroups();
+            packed.setExtractionId(extractionId);
+        }
+        packed.setGroupIds(PackedGroupIds.encode(ids));
+        packed.setGroupCount(ids.length);
+        groupExtractionGroupsRepository.save(packed);
+        groupCatalogBulkRepository.deleteItems(extractionId);
+        meterRegistry.summary("extraction.packed.bytes").record(packed.getGroupIds().length);
+        return ids.length;
+    }
+
+    /**
+     * Ids de grupo da extração (lista compactada mais o staging), ordenados por id e sem repetição:
+     * é a entrada das operações de conjunto, não a ordem de exibição.
+     */
+    @Transactional(readOnly = true)
+    public long[] groupIdsOf(Long extractionId) {
+        GroupExtractionGroups packed = groupExtractionGroupsRepository.findById(extractionId).orElse(null);
+        LongStream ids = LongStream.of(groupCatalogBulkRepository.itemGroupIds(extractionId));
+        if (packed != null) ids = LongStream.concat(LongStream.of(PackedGroupIds.decodeAll(packed.getGroupIds())), ids);
+        return LongStream.of(resolveMerged(ids.toArray())).sorted().distinct().toArray();
+    }
+
+    /**
+     * Troca ids fundidos pelo backfill do url_hash pelo id sobrevivente enquanto a lista compactada
+     * ainda não foi reescrita; repetições que a troca criar saem (fica a primeira ocorrência).
+     */
+    private long[] resolveMerged(long[] ids) {
+        if (ids.length == 0 || groupCatalogMergeRepository.count() == 0) return ids;
+        Map<Long, Long> survivors = groupCatalogMergeRepository.findAllById(LongStream.of(ids).boxed().toList()).stream()
+            .collect(Collectors.toMap(GroupCatalogMerge::getLoserId, GroupCatalogMerge::getSurvivorId));
+        if (survivors.isEmpty()) return ids;
+        long[] resolved = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) resolved[i] = survivors.getOrDefault(ids[i], ids[i]);
+        return PackedGroupIds.distinct(resolved);
+    }
+
+    /** Grupos do catálogo na ordem dos ids (ids fundidos viram o sobrevivente). */
+    private List<GroupCatalog> loadGroups(long[] ids) {
+        long[] resolved = resolveMerged(ids);
+        Map<Long, GroupCatalog> byId = groupCatalogRepository.findAllById(LongStream.of(resolved).boxed().toList()).stream()
+            .collect(Collectors.toMap(GroupCatalog::getId, g -> g));
+        List<GroupCatalog> groups = new ArrayList<>(resolved.length);
+        for (long id : resolved) {
+            GroupCatalog g = byId.get(id);
+            if (g != null) groups.add(g);
+        }
+        return groups;
+    }
+
+    /** Grava uma extração derivada (resultado de operação entre extrações) já concluída. */
+    @Transactional
+    public GroupExtraction saveDerived(Customer customer, String label, long[] groupIds) {
+        GroupExtraction extraction = new GroupExtraction();
+        extraction.setDevice(currentRequest.getDevice());
+        extraction.setCustomer(customer);
+        extraction.setExtractedAt(Instant.now());
+        extraction.setKeywordsText(label);
+        extraction.setGroupsCount(groupIds.length);
+        extraction.setStatus(GroupExtraction.STATUS_COMPLETED);
+        extraction = groupExtractionRepository.save(extraction);
+
+        if (packedStorage) {
+            groupExtractionGroupsRepository.save(new GroupExtractionGroups(extraction.getId(), groupIds.length, PackedGroupIds.encode(groupIds)));
+        } else {
+            groupCatalogBulkRepository.insertItems(extraction.getId(), LongStream.of(groupIds).boxed().toList());
+        }
+        return extraction;
+    }
+
     private String joinKeywords(List<String> kws) {
         if (kws == null || kws.isEmpty()) return null;
         return kws.stream().filter(s -> s != null && !s.isBlank()).collect(Collectors.joining(", "));
@@ -196,7 +403,19 @@ public class GroupExtractionService {
         if (extraction.getCustomer() != null && customerId != null && !extraction.getCustomer().getId().equals(customerId)) {
             return;
         }
-        // Como a entidade possui orphanRemoval, os itens serão apagados junto
+        purge(extraction);
+    }
+
+    /** Remove uma extração sem checar o cliente (limpeza de uploads abandonados). */
+    @Transactional
+    public void purgeExtraction(Long extractionId) {
+        groupExtractionRepository.findById(extractionId).ifPresent(this::purge);
+    }
+
+    private void purge(GroupExtraction extraction) {
+        // Lista compactada e staging saem em bulk; o orphanRemoval então só encontra a coleção vazia
+        groupExtractionGroupsRepository.deleteByExtractionId(extraction.getId());
+        groupCatalogBulkRepository.deleteItems(extraction.getId());
         groupExtractionRepository.delete(extraction);
     }
 
@@ -207,7 +426,7 @@ public class GroupExtractionService {
         Customer customer = customerRepository.findById(customerId).orElse(null);
         if (customer == null) return Page.empty();
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "extractedAt"));
-        Page<GroupExtraction> p = groupExtractionRepository.findByCustomerOrderByExtractedAtDesc(customer, pageable);
+        Page<GroupExtraction> p = groupExtractionRepository.findVisibleByCustomer(customer, pageable);
         return p.map(this::toSummaryDTO);
     }
 
@@ -221,15 +440,148 @@ public class GroupExtractionService {
             return Page.empty();
         }
         Pageable pageable = PageRequest.of(page, size);
+        Integer packedCount = groupExtractionGroupsRepository.findGroupCount(extractionId);
+        if (packedCount != null) {
+            return packedPage(extractionId, packedCount, pageable);
+        }
         Page<GroupExtractionItem> items = groupExtractionItemRepository.findByExtraction(extraction, pageable);
         return items.map(it -> toGroupDTO(it.getGroup()));
     }
 
+    /**
+     * Resumos por cursor (extractedAt, id) desc. Custo constante por página, sem COUNT
+     * (total só com {@code withTotal}).
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<ExtractionSummaryDTO> listSummariesAfter(String cursor, int size, boolean withTotal) {
+        Long customerId = currentRequest.getCustomerId();
+        if (customerId == null) return new CursorPageDTO<>(List.of(), null, withTotal ? 0L : null);
+        Customer customer = customerRepository.findById(customerId).orElse(null);
+        if (customer == null) return new CursorPageDTO<>(List.of(), null, withTotal ? 0L : null);
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        int limit = clampPageSize(size);
+        Pageable probe = PageRequest.of(0, limit + 1);
+        List<GroupExtraction> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = groupExtractionRepository.findVisibleByCustomerFirst(customer, probe);
+        } else {
+            String[] parts = decodeCursor(cursor, 2);
+            Instant extractedAt;
+            Long id;
+            try {
+                extractedAt = Instant.parse(parts[0]);
+                id = Long.valueOf(parts[1]);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+            rows = groupExtractionRepository.findVisibleByCustomerAfter(customer, extractedAt, id, probe);
+        }
+        String next = null;
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            GroupExtraction last = rows.get(limit - 1);
+            next = encodeCursor(last.getExtractedAt() + "|" + last.getId());
+        }
+        List<ExtractionSummaryDTO> items = rows.stream().map(this::toSummaryDTO).toList();
+        Long total = withTotal ? groupExtractionRepository.countVisibleByCustomer(customer) : null;
+        sample.stop(meterRegistry.timer("extraction.page", "kind", "summaries"));
+        return new CursorPageDTO<>(items, next, total);
+    }
+
+    /**
+     * Grupos da extração por cursor. Lista compactada: cursor na posição (ordem de chegada);
+     * staging (extração ainda não compactada): cursor no id do grupo.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<ExtractionGroupDTO> listGroupsAfter(Long extractionId, String cursor, int size, boolean withTotal) {
+        CursorPageDTO<ExtractionGroupDTO> empty = new CursorPageDTO<>(List.of(), null, withTotal ? 0L : null);
+        if (extractionId == null) return empty;
+        Long customerId = currentRequest.getCustomerId();
+        GroupExtraction extraction = groupExtractionRepository.findById(extractionId).orElse(null);
+        if (extraction == null) return empty;
+        if (extraction.getCustomer() != null && customerId != null && !extraction.getCustomer().getId().equals(customerId)) {
+            return empty;
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        int limit = clampPageSize(size);
+        Integer packedCount = groupExtractionGroupsRepository.findGroupCount(extractionId);
+        String kind = packedCount != null ? CURSOR_POSITION : CURSOR_GROUP;
+        long after = 0;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = decodeCursor(cursor, 2);
+            // extração compactada entre uma página e outra: o cursor antigo não vale para a lista nova
+            if (!kind.equals(parts[0])) throw new IllegalArgumentException("Cursor inválido");
+            try {
+                after = Long.parseLong(parts[1]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+        }
+
+        List<GroupCatalog> groups;
+        String next = null;
+        if (packedCount != null) {
+            int from = (int) Math.min(Math.max(after, 0), Integer.MAX_VALUE);
+            // só os blocos da página saem do banco (índice de saltos na lista): custo constante em qualquer profundidade
+            long[] ids = packedGroupIdsReader.page(extractionId, from, limit + 1);
+            if (ids.length > limit) {
+                ids = Arrays.copyOf(ids, limit);
+                next = encodeCursor(kind + "|" + (from + limit));
+            }
+            // cursor vem da lista, não do catálogo: ids removidos do catálogo não encurtam a paginação
+            groups = loadGroups(ids);
+        } else {
+            groups = groupExtractionItemRepository.findGroupsAfter(extractionId, after, PageRequest.of(0, limit + 1));
+            if (groups.size() > limit) {
+                groups = groups.subList(0, limit);
+                next = encodeCursor(kind + "|" + groups.get(limit - 1).getId());
+            }
+        }
+        List<ExtractionGroupDTO> items = groups.stream().map(this::toGroupDTO).toList();
+        Long total = null;
+        if (withTotal) {
+            total = packedCount != null ? (long) packedCount : groupExtractionItemRepository.countByExtraction_Id(extractionId);
+        }
+        sample.stop(meterRegistry.timer("extraction.page", "kind", "groups"));
+        return new CursorPageDTO<>(items, next, total);
+    }
+
+    private static int clampPageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+    }
+
+    private static String encodeCursor(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor, int parts) {
+        String[] values;
+        try {
+            values = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+        if (values.length != parts) throw new IllegalArgumentException("Cursor inválido");
+        return values;
+    }
+
+    // Lê e decodifica só os blocos da página
+    private Page<ExtractionGroupDTO> packedPage(Long extractionId, int groupCount, Pageable pageable) {
+        long offset = pageable.getOffset();
+        if (offset >= groupCount) return new PageImpl<>(List.of(), pageable, groupCount);
+        long[] ids = packedGroupIdsReader.page(extractionId, (int) offset, pageable.getPageSize());
+        List<ExtractionGroupDTO> content = loadGroups(ids).stream().map(this::toGroupDTO).toList();
+        return new PageImpl<>(content, pageable, groupCount);
+    }
+
     private ExtractionSummaryDTO toSummaryDTO(GroupExtraction e) {
         ExtractionSummaryDTO dto = new ExtractionSummaryDTO();
         dto.setId(e.getId());
         dto.setExtractedAt(e.getExtractedAt());
         dto.setGroupsCount(e.getGroupsCount());
+        dto.setStatus(e.getStatus());
         dto.setKeywords(e.getKeywordsText());
         if (e.getSocialAccount() != null) {
             dto.setSocialAccountUsername(e.getSocialAccount().getUsername());
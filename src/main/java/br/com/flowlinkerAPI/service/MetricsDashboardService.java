@@ -0,0 +1,120 @@
+package br.com.flowlinkerAPI.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Monta o painel inteiro numa chamada: cada widget vira uma consulta ao MetricsProxyService
+ * rodando em paralelo em virtual thread, todas contra o mesmo prazo. Widgets que falham ou
+ * estouram o prazo saem em "errors" e os demais são retornados (resultado parcial).
+ * No prazo o painel só para de esperar: a consulta segue e, sendo a chamada single-flight
+ * compartilhada do proxy, conclui para quem mais a aguarda e alimenta o cache.
+ */
+@Service
+public class MetricsDashboardService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsDashboardService.class);
+
+    public static final List<String> DEFAULT_WIDGETS = List.of(
+            "overview", "daily", "heatmap", "distribution/social", "ranking/personas", "errors");
+
+    private final long deadlineMs;
+    private final MeterRegistry meterRegistry;
+    private final MetricsProxyService metrics;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /** Parâmetros compartilhados entre os widgets (mesmos defaults dos endpoints individuais). */
+    public record DashboardParams(Integer hours, Integer days, Integer limit, String tz) {}
+
+    @FunctionalInterface
+    private interface Widget {
+        Object load(Long customerId, DashboardParams p);
+    }
+
+    private final Map<String, Widget> widgets = new LinkedHashMap<>();
+
+    public MetricsDashboardService(MetricsProxyService metrics,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${metrics.dashboard.deadline-ms:4000}") long deadlineMs) {
+        this.metrics = metrics;
+        this.meterRegistry = meterRegistry;
+        this.deadlineMs = deadlineMs;
+        widgets.put("overview", (cid, p) -> metrics.getOverview(cid, p.hours()));
+        widgets.put("shares/count", (cid, p) -> metrics.getSharesCount(cid, p.hours()));
+        widgets.put("people-reached", (cid, p) -> metrics.getPeopleReached(cid, p.hours()));
+        widgets.put("campaigns/count", (cid, p) -> metrics.getCampaignsCount(cid, p.hours()));
+        widgets.put("actions/summary", (cid, p) -> metrics.getActionsSummary(cid, p.hours()));
+        widgets.put("errors", (cid, p) -> metrics.getErrors(cid, p.hours()));
+        widgets.put("distribution/social", (cid, p) -> metrics.getDistributionSocial(cid, p.hours()));
+        widgets.put("ranking/personas", (cid, p) -> metrics.getRankingPersonas(cid, p.hours(), p.limit()));
+        widgets.put("recent", (cid, p) -> metrics.getRecent(cid, p.limit(), p.tz()));
+        widgets.put("extractions/events", (cid, p) -> metrics.getExtractionEvents(cid, p.limit(), p.tz()));
+        widgets.put("daily", (cid, p) -> metrics.getDaily(cid, p.days()));
+        widgets.put("heatmap", (cid, p) -> metrics.getHeatmap(cid, p.days()));
+    }
+
+    public Map<String, Object> load(Long customerId, List<String> requested, DashboardParams params) {
+        List<String> names = (requested == null || requested.isEmpty()) ? DEFAULT_WIDGETS : requested;
+        Map<String, Object> results = new LinkedHashMap<>();
+        Map<String, String> errors = new LinkedHashMap<>();
+        Map<String, Future<Object>> futures = new LinkedHashMap<>();
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        for (String name : names) {
+            Widget widget = widgets.get(name);
+            if (widget == null) {
+                errors.put(name, "widget desconhecido");
+                continue;
+            }
+            if (futures.containsKey(name)) continue;
+            // sem fallback: falha do widget precisa aparecer em "errors", não como corpo vazio
+            futures.put(name, executor.submit(() -> metrics.withoutFallback(() -> widget.load(customerId, params))));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMs);
+        for (Map.Entry<String, Future<Object>> entry : futures.entrySet()) {
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                results.put(entry.getKey(), entry.getValue().get(remaining, TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                // sem cancel(true): interromper a thread derrubaria a chamada compartilhada com outras requisições
+                errors.put(entry.getKey(), "timeout");
+            } catch (ExecutionException e) {
+                errors.put(entry.getKey(), String.valueOf(e.getCause().getMessage()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                errors.put(entry.getKey(), "interrompido");
+                break;
+            }
+        }
+        sample.stop(meterRegistry.timer("metrics.dashboard.load", "partial", String.valueOf(!errors.isEmpty())));
+        if (!errors.isEmpty()) {
+            logger.warn("Dashboard parcial customerId={} erros={}", customerId, errors);
+        }
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("widgets", results);
+        body.put("errors", errors);
+        return body;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
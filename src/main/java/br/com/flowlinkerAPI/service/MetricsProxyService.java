@@ -1,33 +1,149 @@
 package br.com.flowlinkerAPI.service;
 
+import br.com.flowlinkerAPI.exceptions.UpstreamUnavailableException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
 import java.net.URI;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
 import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
+/**
+ * Proxy das métricas do serviço de eventos com cache local por (path, parâmetros ordenados).
+ * Cada endpoint tem seu TTL; depois dele a resposta ainda é servida por stale-seconds enquanto
+ * uma única atualização roda em background (stale-while-revalidate). Requisições idênticas
+ * simultâneas sem cache compartilham a mesma chamada remota (single-flight).
+ * Indisponibilidade do upstream (circuito aberto, timeout, 5xx) sobe como UpstreamUnavailableException (503);
+ * demais falhas respondem com o corpo vazio do endpoint.
+ */
 @Service
 public class MetricsProxyService {
 
     private static final Logger logger = LoggerFactory.getLogger(MetricsProxyService.class);
     private final RestTemplate restTemplate;
     private final String baseUrl;
+    private final AsyncTaskExecutor refreshExecutor;
+    private final MeterRegistry meterRegistry;
+
+    private final long defaultTtlNanos;
+    private final long staleNanos;
+    private final Map<String, Long> endpointTtlNanos;
+    private final Cache<String, CachedResponse> cache;
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inflight = new ConcurrentHashMap<>();
+    private final ThreadLocal<Boolean> strict = ThreadLocal.withInitial(() -> Boolean.FALSE);
+    private final Counter staleServed;
+    private final Counter coalesced;
+
+    /** Resposta do upstream em bytes, com content type e ETag, para repasse direto ao cliente. */
+    public record RawResponse(byte[] body, String contentType, String etag) {
+        static final RawResponse EMPTY = new RawResponse("[]".getBytes(StandardCharsets.UTF_8), MediaType.APPLICATION_JSON_VALUE, null);
+
+        /** If-None-Match pode trazer vários ETags (ou "*"); compara ignorando o prefixo fraco W/. */
+        public boolean matches(String ifNoneMatch) {
+            if (etag == null || ifNoneMatch == null || ifNoneMatch.isBlank()) return false;
+            String current = etag.startsWith("W/") ? etag.substring(2) : etag;
+            for (String candidate : ifNoneMatch.split(",")) {
+                String c = candidate.trim();
+                if (c.equals("*")) return true;
+                if (c.startsWith("W/")) c = c.substring(2);
+                if (c.equals(current)) return true;
+            }
+            return false;
+        }
+    }
+
+    record CachedResponse(Object body, long fetchedAtNanos, long ttlNanos) {
+        boolean isFresh(long now) {
+            return now - fetchedAtNanos < ttlNanos;
+        }
+    }
 
     public MetricsProxyService(
-            @Value("${metrics.api.baseUrl:https://flowlinker-events.onrender.com}") String baseUrl
+            @Value("${metrics.api.baseUrl:https://flowlinker-events.onrender.com}") String baseUrl,
+            @Qualifier("metricsRestTemplate") RestTemplate restTemplate,
+            @Qualifier("appTaskExecutor") AsyncTaskExecutor refreshExecutor,
+            MeterRegistry meterRegistry,
+            @Value("${metrics.proxy.cache.max-size:5000}") long maxSize,
+            @Value("${metrics.proxy.cache.ttl-seconds:30}") long defaultTtlSeconds,
+            @Value("${metrics.proxy.cache.stale-seconds:60}") long staleSeconds,
+            @Value("${metrics.proxy.cache.endpoint-ttls:}") String endpointTtls
     ) {
+        this.refreshExecutor = refreshExecutor;
+        this.meterRegistry = meterRegistry;
+        this.defaultTtlNanos = Duration.ofSeconds(defaultTtlSeconds).toNanos();
+        this.staleNanos = Duration.ofSeconds(staleSeconds).toNanos();
+        this.endpointTtlNanos = parseTtls(endpointTtls);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, CachedResponse>() {
+                    @Override
+                    public long expireAfterCreate(@NonNull String key, @NonNull CachedResponse value, long currentTime) {
+                        return value.ttlNanos() + staleNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(@NonNull String key, @NonNull CachedResponse value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(@NonNull String key, @NonNull CachedResponse value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "metrics.proxy");
+        this.staleServed = Counter.builder("metrics.proxy.stale.served").register(meterRegistry);
+        this.coalesced = Counter.builder("metrics.proxy.coalesced").register(meterRegistry);
         this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
-        // RestTemplate simples (sem bean global) com timeouts razoáveis via system properties (padrões do JDK)
-        this.restTemplate = new RestTemplate();
+        // pool keep-alive, timeouts e circuit breaker vêm do OutboundHttpConfig
+        this.restTemplate = restTemplate;
+    }
+
+    /**
+     * Executa as consultas da thread corrente sem o corpo vazio de fallback: qualquer falha do upstream
+     * sobe para o chamador (usado pelo painel agregado para listar o widget em "errors").
+     */
+    public <T> T withoutFallback(Supplier<T> call) {
+        boolean previous = strict.get();
+        strict.set(Boolean.TRUE);
+        try {
+            return call.get();
+        } finally {
+            strict.set(previous);
+        }
     }
 
     public Object getSharesCount(Long customerId, Integer hours) {
@@ -47,17 +163,26 @@ public class MetricsProxyService {
     }
 
     public Object getRecent(Long customerId, Integer limit, String tz) {
+        return getObjectFromEvents("/metrics/recent", recentParams(customerId, limit, tz));
+    }
+
+    public Object getRecentRaw(Long customerId, Integer limit, String tz) {
+        return getRecent(customerId, limit, tz);
+    }
+
+    /** Corpo do /metrics/recent sem desserializar (repasse de bytes com ETag). */
+    public RawResponse getRecentBytes(Long customerId, Integer limit, String tz) {
+        return getRawFromEvents("/metrics/recent", recentParams(customerId, limit, tz));
+    }
+
+    private Map<String, String> recentParams(Long customerId, Integer limit, String tz) {
         int lim = limit != null ? Math.max(1, Math.min(limit, 100)) : 20;
         String zone = (tz != null && !tz.isBlank()) ? tz : "UTC";
-        return getObjectFromEvents("/metrics/recent", Map.of(
+        return Map.of(
                 "customerId", String.valueOf(customerId),
                 "limit", String.valueOf(lim),
                 "tz", zone
-        ));
-    }
-
-    public Object getRecentRaw(Long customerId, Integer limit, String tz) {
-        return getRecent(customerId, limit, tz);
+        );
     }
 
     public Object getActionsSummary(Long customerId, Integer hours) {
@@ -113,19 +238,27 @@ public class MetricsProxyService {
     }
 
     public Object getDaily(Long customerId, Integer days) {
-        int d = days != null ? days : 7;
-        return getObjectFromEvents("/metrics/daily", Map.of(
-                "customerId", String.valueOf(customerId),
-                "days", String.valueOf(d)
-        ));
+        return getObjectFromEvents("/metrics/daily", daysParams(customerId, days));
+    }
+
+    public RawResponse getDailyBytes(Long customerId, Integer days) {
+        return getRawFromEvents("/metrics/daily", daysParams(customerId, days));
     }
 
     public Object getHeatmap(Long customerId, Integer days) {
+        return getObjectFromEvents("/metrics/heatmap", daysParams(customerId, days));
+    }
+
+    public RawResponse getHeatmapBytes(Long customerId, Integer days) {
+        return getRawFromEvents("/metrics/heatmap", daysParams(customerId, days));
+    }
+
+    private Map<String, String> daysParams(Long customerId, Integer days) {
         int d = days != null ? days : 7;
-        return getObjectFromEvents("/metrics/heatmap", Map.of(
+        return Map.of(
                 "customerId", String.valueOf(customerId),
                 "days", String.valueOf(d)
-        ));
+        );
     }
 
     public Object getRankingPersonas(Long customerId, Integer hours, Integer limit) {
@@ -190,16 +323,154 @@ public class MetricsProxyService {
     }
 
     private Object getObjectFromEvents(String path, Map<String, String> params) {
+        return cached(path, params, "", () -> fetch(path, params), Collections.emptyList());
+    }
+
+    private RawResponse getRawFromEvents(String path, Map<String, String> params) {
+        return (RawResponse) cached(path, params, "raw:", () -> fetchRaw(path, params), RawResponse.EMPTY);
+    }
+
+    private Object cached(String path, Map<String, String> params, String kind, Supplier<Object> loader, Object fallback) {
+        long ttl = endpointTtlNanos.getOrDefault(path, defaultTtlNanos);
         try {
-            URI uri = Objects.requireNonNull(buildUri(path, params));
-            ResponseEntity<Object> resp = restTemplate.getForEntity(uri, Object.class);
-            Object body = resp.getBody();
-            logger.info("MetricsProxy → {} params={} response={}", path, params, body);
+            if (ttl <= 0) {
+                return loader.get();
+            }
+            String key = kind + cacheKey(path, params);
+            CachedResponse cached = cache.getIfPresent(key);
+            if (cached != null) {
+                if (!cached.isFresh(System.nanoTime())) {
+                    staleServed.increment();
+                    refreshInBackground(key, path, ttl, loader);
+                }
+                return cached.body();
+            }
+            return singleFlight(key, ttl, loader);
+        } catch (UpstreamUnavailableException e) {
+            // circuito aberto: 503 no GlobalExceptionsHandler em vez de corpo vazio com 200
+            throw e;
+        } catch (ResourceAccessException | HttpServerErrorException e) {
+            // timeout, conexão recusada ou 5xx: o painel precisa distinguir indisponibilidade de "sem dados"
+            logger.warn("Serviço de eventos indisponível em {}: {}", path, e.getMessage());
+            throw new UpstreamUnavailableException("Serviço de métricas indisponível", e);
+        } catch (RuntimeException e) {
+            logger.warn("Falha ao consultar {}: {}", path, e.getMessage());
+            if (strict.get()) throw e;
+            return fallback;
+        }
+    }
+
+    /** Uma única chamada remota por chave: quem chega enquanto ela roda espera o mesmo resultado. */
+    private Object singleFlight(String key, long ttl, Supplier<Object> loader) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> running = inflight.putIfAbsent(key, mine);
+        if (running != null) {
+            coalesced.increment();
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException re ? re : e;
+            }
+        }
+        try {
+            Object body = loader.get();
+            // erros não entram no cache; só respostas 2xx
+            cache.put(key, new CachedResponse(body, System.nanoTime(), ttl));
+            mine.complete(body);
             return body;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inflight.remove(key, mine);
+        }
+    }
+
+    private void refreshInBackground(String key, String path, long ttl, Supplier<Object> loader) {
+        if (inflight.containsKey(key)) return;
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    singleFlight(key, ttl, loader);
+                } catch (Exception e) {
+                    // mantém a resposta antiga até o fim da janela stale
+                    logger.warn("Falha ao revalidar {}: {}", path, e.getMessage());
+                }
+            });
         } catch (Exception e) {
-            logger.warn("Falha ao consultar {}: {}", path, e.getMessage());
-            return Collections.emptyList();
+            logger.warn("Revalidação de {} não agendada: {}", path, e.getMessage());
+        }
+    }
+
+    private Object fetch(String path, Map<String, String> params) {
+        URI uri = Objects.requireNonNull(buildUri(path, params));
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            ResponseEntity<Object> resp = restTemplate.getForEntity(uri, Object.class);
+            outcome = "success";
+            return resp.getBody();
+        } finally {
+            long nanos = sample.stop(meterRegistry.timer("metrics.proxy.upstream", "path", path, "outcome", outcome));
+            logger.debug("MetricsProxy → {} params={} outcome={} {}ms", path, params, outcome, nanos / 1_000_000);
+        }
+    }
+
+    /** Lê o corpo como bytes (sem montar o grafo de objetos) e usa o ETag do upstream ou um hash do conteúdo. */
+    private RawResponse fetchRaw(String path, Map<String, String> params) {
+        URI uri = Objects.requireNonNull(buildUri(path, params));
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            RawResponse raw = restTemplate.execute(uri, HttpMethod.GET, null, response -> {
+                byte[] body = response.getBody().readAllBytes();
+                MediaType contentType = response.getHeaders().getContentType();
+                String etag = response.getHeaders().getETag();
+                return new RawResponse(body,
+                        contentType != null ? contentType.toString() : MediaType.APPLICATION_JSON_VALUE,
+                        etag != null ? etag : contentEtag(body));
+            });
+            outcome = "success";
+            return raw;
+        } finally {
+            long nanos = sample.stop(meterRegistry.timer("metrics.proxy.upstream", "path", path, "outcome", outcome));
+            logger.debug("MetricsProxy (raw) → {} params={} outcome={} {}ms", path, params, outcome, nanos / 1_000_000);
+        }
+    }
+
+    private static String contentEtag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String cacheKey(String path, Map<String, String> params) {
+        StringBuilder sb = new StringBuilder(path);
+        if (params != null) {
+            new TreeMap<>(params).forEach((k, v) -> {
+                if (v != null) sb.append('|').append(k).append('=').append(v);
+            });
+        }
+        return sb.toString();
+    }
+
+    /** Formato: "/metrics/recent=5,/metrics/daily=300" (segundos; 0 desliga o cache do endpoint). */
+    private static Map<String, Long> parseTtls(String spec) {
+        Map<String, Long> ttls = new HashMap<>();
+        if (spec == null || spec.isBlank()) return ttls;
+        for (String entry : spec.split(",")) {
+            String[] kv = entry.trim().split("=", 2);
+            if (kv.length != 2) continue;
+            try {
+                ttls.put(kv[0].trim(), Duration.ofSeconds(Long.parseLong(kv[1].trim())).toNanos());
+            } catch (NumberFormatException e) {
+                logger.warn("TTL inválido para {}: {}", kv[0], kv[1]);
+            }
         }
+        return ttls;
     }
 }
 
@@ -0,0 +1,30 @@
+package br.com.flowlinkerAPI.service;
+
+import br.com.flowlinkerAPI.config.EventIngestionRabbitConfig;
+import br.com.flowlinkerAPI.dto.event.EnrichedEventDTO;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Consome a fila events.rollup (cópia dos eventos de atividade/campanha) em lotes
+ * e atualiza os rollups locais. Fila própria para não competir com o serviço de eventos
+ * pelas mensagens de events.activity/events.campaign.
+ */
+@Component
+public class MetricsRollupConsumer {
+
+    private final MetricsRollupService rollupService;
+
+    public MetricsRollupConsumer(MetricsRollupService rollupService) {
+        this.rollupService = rollupService;
+    }
+
+    @RabbitListener(queues = EventIngestionRabbitConfig.QUEUE_ROLLUP,
+            containerFactory = "rollupListenerContainerFactory",
+            autoStartup = "${metrics.rollup.enabled:false}")
+    public void onEvents(List<EnrichedEventDTO> events) {
+        rollupService.apply(events);
+    }
+}
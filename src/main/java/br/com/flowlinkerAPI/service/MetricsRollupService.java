@@ -0,0 +1,300 @@
+package br.com.flowlinkerAPI.service;
+
+import br.com.flowlinkerAPI.dto.event.EnrichedEventDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Rollups horários por cliente em metrics_rollup_hourly, alimentados pelo próprio stream de eventos
+ * (fila events.rollup). Cada lote do consumidor é agregado em memória e gravado com um único
+ * batch de upserts. Eventos já contados (reentrega do RabbitMQ) são descartados pela chave gravada em
+ * metrics_rollup_event na mesma transação do upsert.
+ * As leituras (séries diárias, heatmap 7x24, distribuição por rede, ranking de personas) têm formato
+ * próprio (/metrics/rollups/*, não o do serviço de eventos) e retornam null quando os rollups não cobrem
+ * a janela pedida. A cobertura vem de metrics_rollup_state, gravado uma vez quando o consumidor começa,
+ * e fica em memória depois de lido.
+ */
+@Service
+public class MetricsRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsRollupService.class);
+
+    private static final String UPSERT = """
+            INSERT INTO metrics_rollup_hourly (customer_id, hour_epoch, event_type, platform, persona, event_count)
+            VALUES (?, ?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE event_count = event_count + VALUES(event_count)""";
+    private static final String STATE_NAME = "hourly";
+    private static final int KEY_LOOKUP_CHUNK = 1000;
+    private static final int PRUNE_BATCH = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final List<String> platformFields;
+    private final List<String> personaFields;
+    private final long processedRetentionHours;
+    private final Timer writeTimer;
+    private final Counter duplicates;
+    private volatile Long startedHour;
+    private volatile boolean startMarked;
+
+    private record BucketKey(long customerId, long hour, String eventType, String platform, String persona) {}
+
+    public MetricsRollupService(JdbcTemplate jdbcTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${metrics.rollup.enabled:false}") boolean enabled,
+                                @Value("${metrics.rollup.platform-fields:platform,socialNetwork,network}") String platformFields,
+                                @Value("${metrics.rollup.persona-fields:persona,personaName,account}") String personaFields,
+                                @Value("${metrics.rollup.processed-retention-hours:48}") long processedRetentionHours) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.platformFields = csvList(platformFields);
+        this.personaFields = csvList(personaFields);
+        this.processedRetentionHours = Math.max(1, processedRetentionHours);
+        this.writeTimer = Timer.builder("metrics.rollup.write").register(meterRegistry);
+        this.duplicates = Counter.builder("metrics.rollup.duplicates").register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Agrega o lote por (cliente, hora, tipo, rede, persona) e grava tudo num batch de upserts.
+     * Só entram eventos cuja chave ainda não está em metrics_rollup_event; as chaves novas são gravadas
+     * (INSERT simples) na mesma transação. Se outro consumidor gravar a mesma chave ao mesmo tempo,
+     * o INSERT falha, a transação volta e a reentrega encontra a chave já registrada.
+     */
+    @Transactional
+    public void apply(List<EnrichedEventDTO> events) {
+        Set<Long> seen = processedKeys(events);
+        Set<Long> fresh = new HashSet<>();
+        Map<BucketKey, long[]> buckets = new HashMap<>();
+        for (EnrichedEventDTO e : events) {
+            if (e == null || e.customerId() == null) continue;
+            Instant at = e.eventAt() != null ? e.eventAt() : e.receivedAt();
+            if (at == null) continue;
+            Long eventKey = eventKey(e);
+            // sem eventId não há como reconhecer a reentrega; o publisher sempre preenche
+            if (eventKey != null && (seen.contains(eventKey) || !fresh.add(eventKey))) {
+                duplicates.increment();
+                continue;
+            }
+            BucketKey key = new BucketKey(
+                    e.customerId(),
+                    at.getEpochSecond() / 3600,
+                    truncate(e.eventType() == null ? "" : e.eventType().toLowerCase(Locale.ROOT).replace(' ', '.'), 100),
+                    truncate(firstValue(e.payload(), platformFields).toLowerCase(Locale.ROOT), 40),
+                    truncate(firstValue(e.payload(), personaFields), 150));
+            buckets.computeIfAbsent(key, k -> new long[1])[0]++;
+        }
+        markStarted();
+        if (buckets.isEmpty()) return;
+
+        long processedHour = Instant.now().getEpochSecond() / 3600;
+        List<Object[]> keys = new ArrayList<>(fresh.size());
+        for (Long key : fresh) keys.add(new Object[]{key, processedHour});
+        List<Object[]> rows = new ArrayList<>(buckets.size());
+        buckets.forEach((k, count) -> rows.add(new Object[]{k.customerId(), k.hour(), k.eventType(), k.platform(), k.persona(), count[0]}));
+        writeTimer.record(() -> {
+            jdbcTemplate.batchUpdate("INSERT INTO metrics_rollup_event (event_key, processed_hour) VALUES (?, ?)", keys);
+            jdbcTemplate.batchUpdate(UPSERT, rows);
+        });
+        logger.debug("Rollup: {} eventos agregados em {} buckets", events.size(), rows.size());
+    }
+
+    /** Remove as chaves de eventos processados há mais que a retenção (reentregas chegam bem antes disso). */
+    @Scheduled(fixedDelayString = "${metrics.rollup.processed-prune-interval-ms:600000}", initialDelayString = "${metrics.rollup.processed-prune-initial-delay-ms:120000}")
+    public void pruneProcessed() {
+        if (!enabled) return;
+        long cutoff = Instant.now().getEpochSecond() / 3600 - processedRetentionHours;
+        try {
+            int total = 0;
+            int deleted;
+            do {
+                deleted = jdbcTemplate.update("DELETE FROM metrics_rollup_event WHERE processed_hour < ? LIMIT " + PRUNE_BATCH, cutoff);
+                total += deleted;
+            } while (deleted == PRUNE_BATCH);
+            if (total > 0) logger.debug("Rollup: {} chaves de eventos processados removidas", total);
+        } catch (Exception e) {
+            logger.warn("Limpeza de metrics_rollup_event falhou: {}", e.getMessage());
+        }
+    }
+
+    private Set<Long> processedKeys(List<EnrichedEventDTO> events) {
+        List<Long> keys = new ArrayList<>(events.size());
+        for (EnrichedEventDTO e : events) {
+            Long key = e != null && e.customerId() != null ? eventKey(e) : null;
+            if (key != null) keys.add(key);
+        }
+        Set<Long> seen = new HashSet<>();
+        for (int from = 0; from < keys.size(); from += KEY_LOOKUP_CHUNK) {
+            List<Long> chunk = keys.subList(from, Math.min(keys.size(), from + KEY_LOOKUP_CHUNK));
+            String in = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            seen.addAll(jdbcTemplate.queryForList(
+                    "SELECT event_key FROM metrics_rollup_event WHERE event_key IN (" + in + ")", Long.class, chunk.toArray()));
+        }
+        return seen;
+    }
+
+    /** 64 bits do SHA-256 de "customerId:eventId"; null quando o evento não tem id. */
+    static Long eventKey(EnrichedEventDTO e) {
+        if (e.eventId() == null || e.eventId().isBlank()) return null;
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest((e.customerId() + ":" + e.eventId()).getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest, 0, 8).getLong();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /** Total por dia (UTC) nos últimos {@code days} dias, incluindo hoje. */
+    public Map<String, Object> daily(Long customerId, int days) {
+        long firstDay = LocalDate.now(ZoneOffset.UTC).toEpochDay() - days + 1;
+        if (!covers(customerId, firstDay * 24)) return null;
+        long[] totals = new long[days];
+        jdbcTemplate.query(
+                "SELECT hour_epoch, SUM(event_count) FROM metrics_rollup_hourly WHERE customer_id = ? AND hour_epoch >= ? GROUP BY hour_epoch",
+                rs -> {
+                    int idx = (int) (rs.getLong(1) / 24 - firstDay);
+                    if (idx >= 0 && idx < days) totals[idx] += rs.getLong(2);
+                },
+                customerId, firstDay * 24);
+
+        List<Map<String, Object>> series = new ArrayList<>(days);
+        for (int i = 0; i < days; i++) {
+            Map<String, Object> point = new LinkedHashMap<>();
+            point.put("date", LocalDate.ofEpochDay(firstDay + i).toString());
+            point.put("count", totals[i]);
+            series.add(point);
+        }
+        return result("days", days, "series", series);
+    }
+
+    /** Matriz 7x24 (linha 0 = segunda-feira, coluna = hora UTC) com o total de eventos dos últimos {@code days} dias. */
+    public Map<String, Object> heatmap(Long customerId, int days) {
+        long firstDay = LocalDate.now(ZoneOffset.UTC).toEpochDay() - days + 1;
+        if (!covers(customerId, firstDay * 24)) return null;
+        long[][] matrix = new long[7][24];
+        jdbcTemplate.query(
+                "SELECT hour_epoch, SUM(event_count) FROM metrics_rollup_hourly WHERE customer_id = ? AND hour_epoch >= ? GROUP BY hour_epoch",
+                rs -> {
+                    long hour = rs.getLong(1);
+                    DayOfWeek dow = LocalDate.ofEpochDay(hour / 24).getDayOfWeek();
+                    matrix[dow.getValue() - 1][(int) (hour % 24)] += rs.getLong(2);
+                },
+                customerId, firstDay * 24);
+        List<List<Long>> rows = new ArrayList<>(7);
+        for (long[] row : matrix) rows.add(Arrays.stream(row).boxed().toList());
+        return result("days", days, "matrix", rows);
+    }
+
+    public Map<String, Object> distributionSocial(Long customerId, int hours) {
+        return ranking(customerId, hours, "platform", Integer.MAX_VALUE);
+    }
+
+    public Map<String, Object> rankingPersonas(Long customerId, int hours, int limit) {
+        return ranking(customerId, hours, "persona", limit);
+    }
+
+    private Map<String, Object> ranking(Long customerId, int hours, String column, int limit) {
+        long fromHour = Instant.now().getEpochSecond() / 3600 - hours + 1;
+        if (!covers(customerId, fromHour)) return null;
+        List<Map<String, Object>> items = new ArrayList<>();
+        // coluna vem só das constantes acima, nunca do request
+        jdbcTemplate.query(
+                "SELECT " + column + ", SUM(event_count) AS total FROM metrics_rollup_hourly"
+                        + " WHERE customer_id = ? AND hour_epoch >= ? AND " + column + " <> ''"
+                        + " GROUP BY " + column + " ORDER BY total DESC LIMIT ?",
+                rs -> {
+                    Map<String, Object> item = new LinkedHashMap<>();
+                    item.put(column, rs.getString(1));
+                    item.put("count", rs.getLong(2));
+                    items.add(item);
+                },
+                customerId, fromHour, limit);
+        return result("hours", hours, "items", items);
+    }
+
+    /** Só responde se a janela começa depois que o consumidor passou a alimentar os rollups (dados completos). */
+    private boolean covers(Long customerId, long fromHour) {
+        if (!enabled || customerId == null) return false;
+        Long started = startedHour;
+        if (started == null) {
+            try {
+                List<Long> rows = jdbcTemplate.queryForList(
+                        "SELECT started_hour FROM metrics_rollup_state WHERE name = ?", Long.class, STATE_NAME);
+                if (rows.isEmpty()) return false;
+                started = rows.get(0);
+                startedHour = started;
+            } catch (Exception e) {
+                logger.warn("Rollups indisponíveis customerId={}: {}", customerId, e.getMessage());
+                return false;
+            }
+        }
+        return started <= fromHour;
+    }
+
+    // a hora corrente já tinha eventos antes do consumidor subir; a cobertura começa na próxima hora cheia
+    private void markStarted() {
+        if (startMarked) return;
+        long next = Instant.now().getEpochSecond() / 3600 + 1;
+        if (jdbcTemplate.update("INSERT IGNORE INTO metrics_rollup_state (name, started_hour) VALUES (?, ?)", STATE_NAME, next) > 0) {
+            logger.info("Rollups iniciados; janelas completas a partir da hora {}", next);
+        }
+        startMarked = true;
+    }
+
+    private static Map<String, Object> result(String windowName, int window, String name, Object values) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put(windowName, window);
+        body.put(name, values);
+        return body;
+    }
+
+    private static String firstValue(Map<String, Object> payload, List<String> fields) {
+        if (payload == null) return "";
+        for (String field : fields) {
+            Object v = payload.get(field);
+            if (v != null && !String.valueOf(v).isBlank()) return String.valueOf(v).trim();
+        }
+        return "";
+    }
+
+    private static String truncate(String value, int max) {
+        return value.length() <= max ? value : value.substring(0, max);
+    }
+
+    private static List<String> csvList(String csv) {
+        if (csv == null || csv.isBlank()) return List.of();
+        return Arrays.stream(csv.split(",")).map(String::trim).filter(s -> !s.isEmpty()).collect(Collectors.toList());
+    }
+}
@@ -18,13 +18,16 @@ public class PendingPlanScheduler {
     private final CustomerRepository customerRepository;
     private final DevicePolicyService devicePolicyService;
     private final DeviceService deviceService;
+    private final EntitlementSnapshotService entitlementSnapshotService;
 
     public PendingPlanScheduler(CustomerRepository customerRepository,
                                 DevicePolicyService devicePolicyService,
-                                DeviceService deviceService) {
+                                DeviceService deviceService,
+                                EntitlementSnapshotService entitlementSnapshotService) {
         this.customerRepository = customerRepository;
         this.devicePolicyService = devicePolicyService;
         this.deviceService = deviceService;
+        this.entitlementSnapshotService = entitlementSnapshotService;
     }
 
     // Executa diariamente às 03:15
@@ -40,6 +43,7 @@ public class PendingPlanScheduler {
             c.setPendingOfferType(null);
             c.setPendingOfferEffectiveAt(null);
             customerRepository.save(c);
+            entitlementSnapshotService.refresh(c.getId());
             logger.info("Applied pending plan {} -> {} for customer {}", oldOffer, newOffer, c.getEmail());
             // Se novo limite for menor que anterior, desativar devices excedentes
             int newLimit = devicePolicyService.getAllowedDevices(c.getId(), newOffer);
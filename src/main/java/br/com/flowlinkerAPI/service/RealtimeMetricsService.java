@@ -0,0 +1,326 @@
+package br.com.flowlinkerAPI.service;
+
+import br.com.flowlinkerAPI.dto.event.EnrichedEventDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Contadores pré-agregados no momento da ingestão, por cliente e por hora (UTC):
+ * hash {@code metrics:rt:{cid}:{hora}} com totais e HyperLogLog para pessoas e grupos distintos.
+ * Servido em /metrics/realtime/* com formato próprio (campos calculados aqui mais hours/source); os
+ * endpoints de proxy continuam com o corpo do serviço de eventos.
+ * A janela é arredondada para horas cheias (inclui a hora corrente).
+ * Só responde quando os contadores cobrem a janela inteira; caso contrário retorna null.
+ * <p>
+ * A cobertura é global ({@code metrics:rt:since}): um heartbeat renova {@code metrics:rt:alive} a cada
+ * heartbeat-ms enquanto algum nó grava. Se o heartbeat some (flag desligada, todos os nós parados, Redis
+ * reiniciado sem os contadores), a marca volta para a próxima hora cheia em vez de contar as horas sem
+ * gravação como zero. A marca expira junto com os buckets.
+ */
+@Service
+public class RealtimeMetricsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RealtimeMetricsService.class);
+    private static final String PREFIX = "metrics:rt:";
+    private static final String F_EVENTS = "events";
+    private static final String F_SHARES = "shares";
+    private static final String F_CAMPAIGNS = "campaigns";
+    private static final String SINCE_KEY = PREFIX + "since";
+    private static final String ALIVE_KEY = PREFIX + "alive";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final boolean enabled;
+    private final int maxHours;
+    private final long ttlSeconds;
+    private final Duration aliveTtl;
+    private final Set<String> shareTokens;
+    private final Set<String> campaignTypes;
+    private final List<String> peopleFields;
+    private final List<String> groupFields;
+    private final Timer readTimer;
+
+    public RealtimeMetricsService(@Qualifier("stringRedisTemplate") RedisTemplate<String, String> redisTemplate,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${metrics.realtime.enabled:false}") boolean enabled,
+                                  @Value("${metrics.realtime.max-hours:168}") int maxHours,
+                                  @Value("${metrics.realtime.share-tokens:share,shared}") String shareTokens,
+                                  @Value("${metrics.realtime.campaign-types:campaign.started,campaign.start}") String campaignTypes,
+                                  @Value("${metrics.realtime.people-fields:personId,profileId,memberId}") String peopleFields,
+                                  @Value("${metrics.realtime.group-fields:groupId,groupUrl}") String groupFields,
+                                  @Value("${metrics.realtime.heartbeat-ms:60000}") long heartbeatMs) {
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.maxHours = Math.max(1, maxHours);
+        // mantém uma hora extra além da janela máxima para o bucket parcial do início
+        this.ttlSeconds = (this.maxHours + 2L) * 3600L;
+        // tolera até dois heartbeats perdidos antes de considerar que a gravação parou
+        this.aliveTtl = Duration.ofMillis(Math.max(1000L, heartbeatMs) * 3);
+        this.shareTokens = csvSet(shareTokens);
+        this.campaignTypes = csvSet(campaignTypes);
+        this.peopleFields = csvList(peopleFields);
+        this.groupFields = csvList(groupFields);
+        this.readTimer = Timer.builder("metrics.realtime.read").register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int maxHours() {
+        return maxHours;
+    }
+
+    /** Atualiza os contadores com eventos já aceitos (após deduplicação). Falhas não afetam a ingestão. */
+    public void record(Long customerId, List<EnrichedEventDTO> events) {
+        if (!enabled || customerId == null || events.isEmpty()) return;
+        long nowHour = hourOf(Instant.now());
+        Map<Long, Map<String, Long>> counters = new HashMap<>();
+        Map<Long, List<String>> people = new HashMap<>();
+        Map<Long, List<String>> groups = new HashMap<>();
+
+        for (EnrichedEventDTO e : events) {
+            Instant at = e.eventAt() != null ? e.eventAt() : e.receivedAt();
+            long hour = Math.min(hourOf(at), nowHour);
+            // eventos fora da retenção não entram (a janela local já não os cobre)
+            if (hour <= nowHour - maxHours) continue;
+            String type = e.eventType() == null ? "" : e.eventType().toLowerCase(Locale.ROOT).replace(' ', '.');
+            Map<String, Long> c = counters.computeIfAbsent(hour, h -> new HashMap<>());
+            c.merge(F_EVENTS, 1L, Long::sum);
+            if (isShare(type)) c.merge(F_SHARES, 1L, Long::sum);
+            if (campaignTypes.contains(type)) c.merge(F_CAMPAIGNS, 1L, Long::sum);
+            collect(e.payload(), peopleFields, people.computeIfAbsent(hour, h -> new ArrayList<>()));
+            collect(e.payload(), groupFields, groups.computeIfAbsent(hour, h -> new ArrayList<>()));
+        }
+        if (counters.isEmpty()) return;
+
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (Map.Entry<Long, Map<String, Long>> entry : counters.entrySet()) {
+                    byte[] key = bytes(bucketKey(customerId, entry.getKey()));
+                    for (Map.Entry<String, Long> field : entry.getValue().entrySet()) {
+                        connection.hashCommands().hIncrBy(key, bytes(field.getKey()), field.getValue());
+                    }
+                    connection.keyCommands().expire(key, ttlSeconds);
+                    pfAdd(connection, peopleKey(customerId, entry.getKey()), people.get(entry.getKey()));
+                    pfAdd(connection, groupsKey(customerId, entry.getKey()), groups.get(entry.getKey()));
+                }
+                return null;
+            });
+        } catch (Exception ex) {
+            logger.warn("Falha ao atualizar contadores em tempo real customerId={}: {}", customerId, ex.getMessage());
+        }
+    }
+
+    /**
+     * Mantém a marca de cobertura. Heartbeat ausente significa que houve um intervalo sem gravação (ou os
+     * contadores se perderam): a cobertura recomeça na próxima hora cheia, porque a corrente já teve eventos
+     * não contados. Com heartbeat presente só garante a marca e renova os TTLs.
+     */
+    @Scheduled(fixedDelayString = "${metrics.realtime.heartbeat-ms:60000}")
+    public void heartbeat() {
+        if (!enabled) return;
+        String next = String.valueOf(hourOf(Instant.now()) + 1);
+        Duration sinceTtl = Duration.ofSeconds(ttlSeconds);
+        try {
+            if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(ALIVE_KEY, "1", aliveTtl))) {
+                redisTemplate.opsForValue().set(SINCE_KEY, next, sinceTtl);
+                logger.info("Contadores em tempo real (re)iniciados; janelas completas a partir da hora {}", next);
+                return;
+            }
+            redisTemplate.expire(ALIVE_KEY, aliveTtl);
+            if (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(SINCE_KEY, next, sinceTtl))) {
+                redisTemplate.expire(SINCE_KEY, sinceTtl);
+            }
+        } catch (Exception e) {
+            logger.warn("Heartbeat dos contadores em tempo real falhou: {}", e.getMessage());
+        }
+    }
+
+    public Map<String, Object> sharesCount(Long customerId, int hours) {
+        Map<String, Long> totals = totals(customerId, hours);
+        if (totals == null) return null;
+        return result(hours, Map.of("count", totals.get(F_SHARES)));
+    }
+
+    public Map<String, Object> campaignsCount(Long customerId, int hours) {
+        Map<String, Long> totals = totals(customerId, hours);
+        if (totals == null) return null;
+        return result(hours, Map.of("count", totals.get(F_CAMPAIGNS)));
+    }
+
+    public Map<String, Object> peopleReached(Long customerId, int hours) {
+        if (!covers(customerId, hours)) return null;
+        return timed(() -> {
+            List<String> hoursRange = window(hours);
+            Long peopleCount = redisTemplate.opsForHyperLogLog().size(keys(hoursRange, h -> peopleKey(customerId, Long.parseLong(h))));
+            Long groupsCount = redisTemplate.opsForHyperLogLog().size(keys(hoursRange, h -> groupsKey(customerId, Long.parseLong(h))));
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("peopleReached", peopleCount != null ? peopleCount : 0L);
+            values.put("groupsReached", groupsCount != null ? groupsCount : 0L);
+            return result(hours, values);
+        });
+    }
+
+    public Map<String, Object> overview(Long customerId, int hours) {
+        Map<String, Long> totals = totals(customerId, hours);
+        if (totals == null) return null;
+        Map<String, Object> reach = peopleReached(customerId, hours);
+        if (reach == null) return null;
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("events", totals.get(F_EVENTS));
+        values.put("shares", totals.get(F_SHARES));
+        values.put("campaigns", totals.get(F_CAMPAIGNS));
+        values.put("peopleReached", reach.get("peopleReached"));
+        values.put("groupsReached", reach.get("groupsReached"));
+        return result(hours, values);
+    }
+
+    private Map<String, Long> totals(Long customerId, int hours) {
+        if (!covers(customerId, hours)) return null;
+        return timed(() -> {
+            List<String> hoursRange = window(hours);
+            byte[][] fields = {bytes(F_EVENTS), bytes(F_SHARES), bytes(F_CAMPAIGNS)};
+            List<Object> rows = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (String h : hoursRange) {
+                    connection.hashCommands().hMGet(bytes(bucketKey(customerId, Long.parseLong(h))), fields);
+                }
+                return null;
+            });
+            long[] sums = new long[fields.length];
+            for (Object row : rows) {
+                if (!(row instanceof List<?> values)) continue;
+                for (int i = 0; i < sums.length && i < values.size(); i++) {
+                    Object v = values.get(i);
+                    if (v != null) sums[i] += Long.parseLong(String.valueOf(v));
+                }
+            }
+            Map<String, Long> totals = new HashMap<>();
+            totals.put(F_EVENTS, sums[0]);
+            totals.put(F_SHARES, sums[1]);
+            totals.put(F_CAMPAIGNS, sums[2]);
+            return totals;
+        });
+    }
+
+    /** A janela só é servida localmente se começa na primeira hora cheia após o (re)início dos contadores e cabe na retenção. */
+    private boolean covers(Long customerId, int hours) {
+        if (!enabled || customerId == null || hours < 1 || hours > maxHours) return false;
+        try {
+            String since = redisTemplate.opsForValue().get(SINCE_KEY);
+            if (since == null) return false;
+            long firstHour = hourOf(Instant.now()) - hours + 1;
+            return firstHour >= Long.parseLong(since);
+        } catch (Exception e) {
+            logger.warn("Contadores em tempo real indisponíveis customerId={}: {}", customerId, e.getMessage());
+            return false;
+        }
+    }
+
+    private <T> T timed(java.util.function.Supplier<T> read) {
+        try {
+            return readTimer.record(read);
+        } catch (Exception e) {
+            logger.warn("Falha ao ler contadores em tempo real: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private List<String> window(int hours) {
+        long now = hourOf(Instant.now());
+        List<String> range = new ArrayList<>(hours);
+        for (long h = now - hours + 1; h <= now; h++) {
+            range.add(String.valueOf(h));
+        }
+        return range;
+    }
+
+    private static String[] keys(List<String> hours, java.util.function.Function<String, String> keyFn) {
+        return hours.stream().map(keyFn).toArray(String[]::new);
+    }
+
+    private boolean isShare(String type) {
+        for (String token : type.split("\\.")) {
+            if (shareTokens.contains(token)) return true;
+        }
+        return false;
+    }
+
+    private static void collect(Map<String, Object> payload, List<String> fields, List<String> target) {
+        if (payload == null) return;
+        for (String field : fields) {
+            Object v = payload.get(field);
+            if (v instanceof Iterable<?> values) {
+                for (Object item : values) {
+                    if (item != null) target.add(String.valueOf(item));
+                }
+            } else if (v != null && !String.valueOf(v).isBlank()) {
+                target.add(String.valueOf(v));
+            }
+        }
+    }
+
+    private void pfAdd(RedisConnection connection, String key, List<String> values) {
+        if (values == null || values.isEmpty()) return;
+        byte[] k = bytes(key);
+        connection.hyperLogLogCommands().pfAdd(k, values.stream().map(RealtimeMetricsService::bytes).toArray(byte[][]::new));
+        connection.keyCommands().expire(k, ttlSeconds);
+    }
+
+    private static Map<String, Object> result(int hours, Map<String, ?> values) {
+        Map<String, Object> body = new LinkedHashMap<>(values);
+        body.put("hours", hours);
+        body.put("source", "realtime");
+        return body;
+    }
+
+    private static long hourOf(Instant instant) {
+        return instant.getEpochSecond() / 3600;
+    }
+
+    private static String bucketKey(Long customerId, long hour) {
+        return PREFIX + customerId + ":" + hour;
+    }
+
+    private static String peopleKey(Long customerId, long hour) {
+        return PREFIX + "people:" + customerId + ":" + hour;
+    }
+
+    private static String groupsKey(Long customerId, long hour) {
+        return PREFIX + "groups:" + customerId + ":" + hour;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Set<String> csvSet(String csv) {
+        return Set.copyOf(csvList(csv.toLowerCase(Locale.ROOT)));
+    }
+
+    private static List<String> csvList(String csv) {
+        if (csv == null || csv.isBlank()) return List.of();
+        return Arrays.stream(csv.split(",")).map(String::trim).filter(s -> !s.isEmpty()).collect(Collectors.toList());
+    }
+}
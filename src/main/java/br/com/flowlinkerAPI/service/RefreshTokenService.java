@@ -0,0 +1,128 @@
+package br.com.flowlinkerAPI.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * Refresh tokens opacos guardados no Redis (somente o SHA-256, nunca o valor em claro).
+ * Cada sessão (web por usuário, device por customerId+fingerprint) aponta para um único
+ * refresh ativo: um novo login ou uma rotação substitui o anterior.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final String TOKEN_PREFIX = "refresh:token:";
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+    private final RedisTemplate<String, String> redisTemplate;
+
+    public RefreshTokenService(@Qualifier("stringRedisTemplate") RedisTemplate<String, String> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    public record RefreshSession(String sessionKey, String username, String type, String role,
+                                 String customerId, String fingerprint, Duration ttl) {}
+
+    public static String userSessionKey(String type, String username) {
+        return type + ":refresh:" + username;
+    }
+
+    public static String deviceSessionKey(Object customerId, Object fingerprint) {
+        return "device:refresh:" + customerId + ":" + fingerprint;
+    }
+
+    /** Emite um refresh token para a sessão, revogando o anterior da mesma sessão. */
+    public String issue(RefreshSession session) {
+        revokeSession(session.sessionKey());
+        byte[] raw = new byte[32];
+        RANDOM.nextBytes(raw);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+        String hash = sha256(token);
+
+        Map<String, String> data = new HashMap<>();
+        data.put("sessionKey", session.sessionKey());
+        data.put("username", session.username());
+        data.put("type", session.type());
+        data.put("role", session.role());
+        data.put("ttlSeconds", String.valueOf(session.ttl().toSeconds()));
+        if (session.customerId() != null) data.put("customerId", session.customerId());
+        if (session.fingerprint() != null) data.put("fingerprint", session.fingerprint());
+
+        String key = TOKEN_PREFIX + hash;
+        redisTemplate.opsForHash().putAll(key, data);
+        redisTemplate.expire(key, session.ttl());
+        redisTemplate.opsForValue().set(session.sessionKey(), hash, session.ttl());
+        return token;
+    }
+
+    /**
+     * Consome o refresh token (uso único). Retorna a sessão para que o chamador emita o novo par,
+     * ou null se o token não existe, expirou, já foi usado ou a sessão foi substituída.
+     */
+    public RefreshSession consume(String token) {
+        if (token == null || token.isBlank()) return null;
+        String hash = sha256(token);
+        String key = TOKEN_PREFIX + hash;
+        Map<Object, Object> data = redisTemplate.opsForHash().entries(key);
+        if (data == null || data.isEmpty()) return null;
+        // delete é atômico: em refresh concorrente com o mesmo token só um vence
+        if (!Boolean.TRUE.equals(redisTemplate.delete(key))) return null;
+
+        String sessionKey = (String) data.get("sessionKey");
+        String current = redisTemplate.opsForValue().get(sessionKey);
+        if (!hash.equals(current)) {
+            logger.warn("Refresh token de sessão substituída rejeitado sessionKey={}", sessionKey);
+            return null;
+        }
+        return new RefreshSession(
+                sessionKey,
+                (String) data.get("username"),
+                (String) data.get("type"),
+                (String) data.get("role"),
+                (String) data.get("customerId"),
+                (String) data.get("fingerprint"),
+                Duration.ofSeconds(Long.parseLong((String) data.get("ttlSeconds")))
+        );
+    }
+
+    public void revoke(String token) {
+        if (token == null || token.isBlank()) return;
+        String hash = sha256(token);
+        String key = TOKEN_PREFIX + hash;
+        Object sessionKey = redisTemplate.opsForHash().get(key, "sessionKey");
+        redisTemplate.delete(key);
+        if (sessionKey != null && hash.equals(redisTemplate.opsForValue().get(String.valueOf(sessionKey)))) {
+            redisTemplate.delete(String.valueOf(sessionKey));
+        }
+    }
+
+    public void revokeSession(String sessionKey) {
+        String hash = redisTemplate.opsForValue().get(sessionKey);
+        if (hash != null) {
+            redisTemplate.delete(TOKEN_PREFIX + hash);
+            redisTemplate.delete(sessionKey);
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -27,17 +27,20 @@ public class SubscriptionSyncService {
     private final SubscriptionRepository subscriptionRepository;
     private final SubscriptionItemRepository subscriptionItemRepository;
     private final DevicePolicyService devicePolicyService;
+    private final EntitlementSnapshotService entitlementSnapshotService;
 
     public SubscriptionSyncService(CustomerRepository customerRepository,
                                    ProductRepository productRepository,
                                    SubscriptionRepository subscriptionRepository,
                                    SubscriptionItemRepository subscriptionItemRepository,
-                                   DevicePolicyService devicePolicyService) {
+                                   DevicePolicyService devicePolicyService,
+                                   EntitlementSnapshotService entitlementSnapshotService) {
         this.customerRepository = customerRepository;
         this.productRepository = productRepository;
         this.subscriptionRepository = subscriptionRepository;
         this.subscriptionItemRepository = subscriptionItemRepository;
         this.devicePolicyService = devicePolicyService;
+        this.entitlementSnapshotService = entitlementSnapshotService;
     }
 
     @Transactional
@@ -171,6 +174,8 @@ public class SubscriptionSyncService {
             sub.setUpdatedAt(Instant.now());
             subscriptionRepository.save(sub);
         }
+        // Itens/quantidades alteram o limite de devices do snapshot
+        entitlementSnapshotService.refresh(customer.getId());
         logger.info("Subscription sync completed for customer {} ({})", customer.getEmail(), stripeSub.getId());
     }
 }
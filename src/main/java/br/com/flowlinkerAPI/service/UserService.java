@@ -32,6 +32,13 @@ import javax.crypto.SecretKey;
 import io.jsonwebtoken.security.Keys;
 import java.nio.charset.StandardCharsets;
 import br.com.flowlinkerAPI.exceptions.DeviceChangedException;
+import br.com.flowlinkerAPI.config.security.TokenPrincipalCache;
+import br.com.flowlinkerAPI.config.security.DeviceNearCache;
+import br.com.flowlinkerAPI.config.security.AccessTokenService;
+import br.com.flowlinkerAPI.service.RefreshTokenService.RefreshSession;
+import br.com.flowlinkerAPI.dto.auth.TokenPairDTO;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
 
 @Service
 public class UserService {
@@ -56,6 +63,14 @@ public class UserService {
     private final Logger logger = LoggerFactory.getLogger(UserService.class);
     @Autowired
     private DevicePolicyService devicePolicyService;
+    @Autowired
+    private TokenPrincipalCache tokenPrincipalCache;
+    @Autowired
+    private DeviceNearCache deviceNearCache;
+    @Autowired
+    private AccessTokenService accessTokenService;
+    @Autowired
+    private RefreshTokenService refreshTokenService;
 
     public UserService(UserRepository userRepository) {
         this.userRepository = userRepository;
@@ -105,7 +120,7 @@ public class UserService {
         return userRepository.save(user);
     }
 
-    public String loginAndGenerateToken(String username, String password, String type, String fingerprint, String deviceId, String hwHash,
+    public TokenPairDTO loginAndGenerateToken(String username, String password, String type, String fingerprint, String deviceId, String hwHash,
                                         String osName, String osVersion, String arch, String hostname, String appVersion,
                                         HttpServletRequest request, HttpServletResponse response) {
        
@@ -129,6 +144,7 @@ public class UserService {
         claims.put("role", role.name());
         
         String redisKey;
+        String sessionKey;
         
         if ("device".equals(type)) {
             logger.info("Fluxo device authentication username={} deviceId={} fingerprint={}", username, deviceId, fingerprint);
@@ -213,17 +229,31 @@ public class UserService {
                     String.valueOf(customerId), device.getDeviceId(), device.getFingerprint(), device.getOsName(), device.getOsVersion(), device.getAppVersion(), device.getLastIp(), device.getStatus());
             }
     
+            deviceNearCache.invalidate(customerId, device.getFingerprint());
             redisKey = "device:token:" + customerId + ":" + fingerprint;
+            sessionKey = RefreshTokenService.deviceSessionKey(customerId, fingerprint);
         } else {
             // incluir customerId também para web
             if (user.getCustomer() != null && user.getCustomer().getId() != null) {
                 claims.put("customerId", user.getCustomer().getId());
             }
             redisKey = type + ":token:" + username;
+            sessionKey = RefreshTokenService.userSessionKey(type, username);
             logger.info("Fluxo web authentication username={} customerId={}", username, (user.getCustomer() != null ? String.valueOf(user.getCustomer().getId()) : null));
         }
             
         
+        if (accessTokenService.isStateless()) {
+            // Novo login substitui também uma eventual sessão legada do mesmo usuário/device
+            redisTemplate.delete(redisKey);
+            tokenPrincipalCache.invalidate(redisKey);
+            Object cid = claims.get("customerId");
+            RefreshSession session = new RefreshSession(sessionKey, username, type, role.name(),
+                cid != null ? String.valueOf(cid) : null, "device".equals(type) ? fingerprint : null,
+                Duration.ofMillis(expirationMillis));
+            return issueTokenPair(session, claims, request, response);
+        }
+
         SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
 
         String token = Jwts.builder()
@@ -235,54 +265,115 @@ public class UserService {
             .compact();
                 
             if("web".equals(type)) {
-                // Ajusta flags do cookie conforme o contexto da requisição
-                boolean isHttps = false;
-                boolean isCrossSite = false;
-                try {
-                    String xfProto = request != null ? request.getHeader("X-Forwarded-Proto") : null;
-                    isHttps = (xfProto != null && xfProto.equalsIgnoreCase("https")) || (request != null && request.isSecure());
-
-                    String origin = request != null ? request.getHeader("Origin") : null;
-                    if (origin != null && !origin.isBlank()) {
-                        java.net.URI o = java.net.URI.create(origin);
-                        String originHost = o.getHost();
-                        String serverName = request.getServerName();
-                        isCrossSite = originHost != null && serverName != null && !originHost.equalsIgnoreCase(serverName);
-                        // se a origem é https, consideramos seguro mesmo que o conector local esteja http
-                        if (!isHttps && "https".equalsIgnoreCase(o.getScheme())) {
-                            isHttps = true;
-                        }
-                    }
-                } catch (Exception ignored) {}
-
-                // Para cenários cross-site (ex.: frontend em domínio ngrok e API em outro),
-                // precisamos de SameSite=None e Secure=true para o cookie ser armazenado/enviado.
-                // Heurística: se cross-site OU conexão https detectada → None+Secure
-                String sameSite = (isCrossSite || isHttps) ? "None" : "Lax";
-                boolean secure = (isCrossSite || isHttps);
-
-                ResponseCookie cookie = ResponseCookie.from("jwtToken", token)
-                    .httpOnly(true)
-                    .secure(secure)
-                    .sameSite(sameSite)
-                    .path("/")
-                    .maxAge(Duration.ofDays(1))
-                    .build();
+                ResponseCookie cookie = buildAuthCookie(request, "jwtToken", token, "/", Duration.ofDays(1));
                 response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
-                logger.info("Cookie jwtToken emitido sameSite={} secure={} serverName={} origin={}", sameSite, secure, (request!=null?request.getServerName():null), (request!=null?request.getHeader("Origin"):null));
+                logger.info("Cookie jwtToken emitido sameSite={} secure={} serverName={} origin={}", cookie.getSameSite(), cookie.isSecure(), (request!=null?request.getServerName():null), (request!=null?request.getHeader("Origin"):null));
                 
                 redisTemplate.opsForValue().set(redisKey, token, Duration.ofMillis(expirationMillis));
+                tokenPrincipalCache.invalidate(redisKey);
                 logger.info("Token web emitido username={} expMs={}", username, expirationMillis);
                 return null;
 
             }
 
             redisTemplate.opsForValue().set(redisKey, token, Duration.ofMillis(expirationMillis));
+            tokenPrincipalCache.invalidate(redisKey);
             logger.info("Token device emitido username={} fingerprint={} expMs={}", username, fingerprint, expirationMillis);
-            return token;
+            return TokenPairDTO.bearer(token, null, expirationMillis / 1000);
         
     }
 
+    /**
+     * Rotaciona o refresh token (modo stateless) e emite um novo access token.
+     * Web lê o refresh do cookie httpOnly `refreshToken`; device envia no corpo/header.
+     */
+    public TokenPairDTO refresh(String refreshToken, HttpServletRequest request, HttpServletResponse response) {
+        if (!accessTokenService.isStateless()) {
+            throw new BadCredentialsException("Refresh token não suportado com auth.token.mode=legacy");
+        }
+        String token = (refreshToken != null && !refreshToken.isBlank()) ? refreshToken : readCookie(request, "refreshToken");
+        RefreshSession session = refreshTokenService.consume(token);
+        if (session == null) {
+            throw new BadCredentialsException("Invalid refresh token");
+        }
+        // Papel lido do banco: mudanças de role/remoção do usuário valem a partir do próximo refresh
+        User user = userRepository.findByUsername(session.username())
+            .orElseThrow(() -> new BadCredentialsException("Invalid refresh token"));
+        String role = user.getRole() != null ? user.getRole().name() : User.Role.USER.name();
+
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("type", session.type());
+        claims.put("role", role);
+        if (session.customerId() != null) claims.put("customerId", Long.valueOf(session.customerId()));
+        if (session.fingerprint() != null) claims.put("fingerprint", session.fingerprint());
+
+        RefreshSession renewed = new RefreshSession(session.sessionKey(), session.username(), session.type(), role,
+            session.customerId(), session.fingerprint(), session.ttl());
+        return issueTokenPair(renewed, claims, request, response);
+    }
+
+    private TokenPairDTO issueTokenPair(RefreshSession session, Map<String, Object> claims,
+                                        HttpServletRequest request, HttpServletResponse response) {
+        String accessToken = accessTokenService.issueAccessToken(session.username(), claims);
+        String refreshToken = refreshTokenService.issue(session);
+        long expiresIn = accessTokenService.getAccessTtl().toSeconds();
+
+        if ("web".equals(session.type())) {
+            // Cookie do access vive tanto quanto a sessão para o filtro responder ACCESS_TOKEN_EXPIRED (e não 403)
+            ResponseCookie access = buildAuthCookie(request, "jwtToken", accessToken, "/", session.ttl());
+            ResponseCookie refresh = buildAuthCookie(request, "refreshToken", refreshToken, "/auth", session.ttl());
+            response.addHeader(HttpHeaders.SET_COOKIE, access.toString());
+            response.addHeader(HttpHeaders.SET_COOKIE, refresh.toString());
+            logger.info("Tokens web (stateless) emitidos username={} accessTtlS={}", session.username(), expiresIn);
+            return null;
+        }
+        logger.info("Tokens device (stateless) emitidos username={} fingerprint={} accessTtlS={}", session.username(), session.fingerprint(), expiresIn);
+        return TokenPairDTO.bearer(accessToken, refreshToken, expiresIn);
+    }
+
+    // Para cenários cross-site (ex.: frontend em domínio ngrok e API em outro),
+    // precisamos de SameSite=None e Secure=true para o cookie ser armazenado/enviado.
+    // Heurística: se cross-site OU conexão https detectada → None+Secure
+    private ResponseCookie buildAuthCookie(HttpServletRequest request, String name, String value, String path, Duration maxAge) {
+        boolean isHttps = false;
+        boolean isCrossSite = false;
+        try {
+            String xfProto = request != null ? request.getHeader("X-Forwarded-Proto") : null;
+            isHttps = (xfProto != null && xfProto.equalsIgnoreCase("https")) || (request != null && request.isSecure());
+
+            String origin = request != null ? request.getHeader("Origin") : null;
+            if (origin != null && !origin.isBlank()) {
+                java.net.URI o = java.net.URI.create(origin);
+                String originHost = o.getHost();
+                String serverName = request.getServerName();
+                isCrossSite = originHost != null && serverName != null && !originHost.equalsIgnoreCase(serverName);
+                // se a origem é https, consideramos seguro mesmo que o conector local esteja http
+                if (!isHttps && "https".equalsIgnoreCase(o.getScheme())) {
+                    isHttps = true;
+                }
+            }
+        } catch (Exception ignored) {}
+
+        boolean secure = (isCrossSite || isHttps);
+        return ResponseCookie.from(name, value)
+            .httpOnly(true)
+            .secure(secure)
+            .sameSite(secure ? "None" : "Lax")
+            .path(path)
+            .maxAge(maxAge)
+            .build();
+    }
+
+    private String readCookie(HttpServletRequest request, String name) {
+        if (request == null || request.getCookies() == null) return null;
+        for (jakarta.servlet.http.Cookie c : request.getCookies()) {
+            if (name.equals(c.getName())) {
+                return c.getValue();
+            }
+        }
+        return null;
+    }
+
     private String extractClientIp(HttpServletRequest request) {
         if (request == null) return null;
         String xf = request.getHeader("X-Forwarded-For");
@@ -310,9 +401,26 @@ public class UserService {
                 }
             }
 
+            // Web no modo stateless: o refresh vem no cookie e vale mesmo com o access já expirado
+            refreshTokenService.revoke(readCookie(request, "refreshToken"));
+
             if (token != null && !token.isEmpty()) {
-                SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
-                var claims = Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload();
+                Claims claims;
+                boolean stateless;
+                try {
+                    AccessTokenService.ParsedToken parsed = accessTokenService.parse(token);
+                    claims = parsed.claims();
+                    stateless = parsed.stateless();
+                } catch (ExpiredJwtException e) {
+                    // access curto expirado ainda identifica a sessão a encerrar
+                    if (!accessTokenService.isStatelessHeader(e.getHeader())) throw e;
+                    claims = e.getClaims();
+                    stateless = true;
+                }
+
+                if (stateless) {
+                    accessTokenService.revoke(claims);
+                }
 
                 String subject = claims.getSubject();
                 Object typeObj = claims.get("type");
@@ -323,16 +431,22 @@ public class UserService {
                     Object fp = claims.get("fingerprint");
                     if (cid != null && fp != null) {
                         String redisKey = "device:token:" + cid + ":" + fp;
+                        refreshTokenService.revokeSession(RefreshTokenService.deviceSessionKey(cid, fp));
                         redisTemplate.delete(redisKey);
+                        tokenPrincipalCache.invalidate(redisKey);
                         logger.info("Logout device efetuado subject={} key={}", subject, redisKey);
                     }
                 } else {
                     String key1 = "web:token:" + subject;
+                    refreshTokenService.revokeSession(RefreshTokenService.userSessionKey("web", subject));
                     redisTemplate.delete(key1);
+                    tokenPrincipalCache.invalidate(key1);
                     String headerType = request != null ? request.getHeader("X-Auth-Type") : null;
                     if (headerType != null && !headerType.isBlank() && !"web".equals(headerType)) {
                         String key2 = headerType + ":token:" + subject;
+                        refreshTokenService.revokeSession(RefreshTokenService.userSessionKey(headerType, subject));
                         redisTemplate.delete(key2);
+                        tokenPrincipalCache.invalidate(key2);
                     }
                     logger.info("Logout web efetuado subject={}", subject);
                 }
@@ -341,34 +455,11 @@ public class UserService {
             logger.warn("Erro ao processar logout: {}", e.getMessage());
         } finally {
             try {
-                boolean isHttps = false;
-                boolean isCrossSite = false;
-                if (request != null) {
-                    String xfProto = request.getHeader("X-Forwarded-Proto");
-                    isHttps = (xfProto != null && xfProto.equalsIgnoreCase("https")) || request.isSecure();
-                    String origin = request.getHeader("Origin");
-                    if (origin != null && !origin.isBlank()) {
-                        java.net.URI o = java.net.URI.create(origin);
-                        String originHost = o.getHost();
-                        String serverName = request.getServerName();
-                        isCrossSite = originHost != null && serverName != null && !originHost.equalsIgnoreCase(serverName);
-                        if (!isHttps && "https".equalsIgnoreCase(o.getScheme())) {
-                            isHttps = true;
-                        }
-                    }
-                }
-                String sameSite = (isCrossSite || isHttps) ? "None" : "Lax";
-                boolean secure = (isCrossSite || isHttps);
-
-                ResponseCookie clear = ResponseCookie.from("jwtToken", "")
-                    .httpOnly(true)
-                    .secure(secure)
-                    .sameSite(sameSite)
-                    .path("/")
-                    .maxAge(0)
-                    .build();
+                ResponseCookie clear = buildAuthCookie(request, "jwtToken", "", "/", Duration.ZERO);
+                ResponseCookie clearRefresh = buildAuthCookie(request, "refreshToken", "", "/auth", Duration.ZERO);
                 if (response != null) {
                     response.addHeader(HttpHeaders.SET_COOKIE, clear.toString());
+                    response.addHeader(HttpHeaders.SET_COOKIE, clearRefresh.toString());
                 }
             } catch (Exception ignored) {}
         }
@@ -1,7 +1,9 @@
 package br.com.flowlinkerAPI.service.email;
 
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import java.util.Map;
 import java.util.HashMap;
@@ -9,6 +11,7 @@ import java.util.Collections;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.ResponseEntity;
+import br.com.flowlinkerAPI.exceptions.UpstreamUnavailableException;
 import br.com.flowlinkerAPI.exceptions.WelcomeEmailNotSendException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,7 +21,7 @@ import org.slf4j.LoggerFactory;
 @Service
 public class Smtp2GoClient {
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final RestTemplate restTemplate;
 
     @Value("${smtp2go.api.key}")
     private String apiKey;
@@ -28,6 +31,10 @@ public class Smtp2GoClient {
 
     private final Logger logger = LoggerFactory.getLogger(Smtp2GoClient.class);
 
+    public Smtp2GoClient(@Qualifier("smtp2goRestTemplate") RestTemplate restTemplate) {
+        this.restTemplate = restTemplate;
+    }
+
     public void  sendEmail(String from, String fromName, String toEmail, String subject, String htmlBody, String textBody){
 
         String url = apiUrl + "/email/send";
@@ -46,7 +53,13 @@ public class Smtp2GoClient {
         headers.set("X-Smtp2go-Api-Key", apiKey);
 
         HttpEntity<Map<String, Object>> requestEntity = new HttpEntity<>(payload, headers);
-        ResponseEntity<String> response = restTemplate.postForEntity(url, requestEntity, String.class);
+        ResponseEntity<String> response;
+        try {
+            response = restTemplate.postForEntity(url, requestEntity, String.class);
+        } catch (RestClientException | UpstreamUnavailableException e) {
+            // timeout ou circuito aberto: o chamador já trata WelcomeEmailNotSendException
+            throw new WelcomeEmailNotSendException("Error sending welcome email: " + e.getMessage());
+        }
         
         if(!response.getStatusCode().is2xxSuccessful()){
           throw new WelcomeEmailNotSendException("Error sending welcome email: " + response.getBody());
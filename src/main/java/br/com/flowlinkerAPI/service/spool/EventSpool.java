@@ -0,0 +1,349 @@
+package br.com.flowlinkerAPI.service.spool;
+
+import br.com.flowlinkerAPI.dto.event.EnrichedEventDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead spool em disco para eventos que não puderam ser publicados no RabbitMQ.
+ * Log append-only em segmentos de tamanho fixo mapeados em memória; cada registro é
+ * [int tamanho][int crc32][json do EnrichedEventDTO]. Tamanho 0 marca o fim dos dados do segmento.
+ * A posição de leitura fica num arquivo de checkpoint e segmentos totalmente drenados são apagados.
+ * Um único leitor (EventSpoolDrainer) consome na ordem de escrita.
+ */
+@Component
+public class EventSpool {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventSpool.class);
+    private static final int HEADER_BYTES = 8;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    public enum FsyncPolicy { ALWAYS, INTERVAL, NEVER }
+
+    public record Batch(List<EnrichedEventDTO> events, long segment, int nextOffset) {}
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Path dir;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final FsyncPolicy fsyncPolicy;
+
+    private final ConcurrentSkipListMap<Long, Path> segments = new ConcurrentSkipListMap<>();
+    private final Object writeLock = new Object();
+    private long writeSegment;
+    private MappedByteBuffer writeBuffer;
+    private boolean dirty;
+
+    // Estado do leitor (acessado só pelo drainer)
+    private volatile long readSegment;
+    private volatile int readOffset;
+    private MappedByteBuffer readBuffer;
+    private long readBufferSegment = -1;
+
+    public EventSpool(ObjectMapper objectMapper,
+                      MeterRegistry meterRegistry,
+                      @Value("${events.spool.enabled:true}") boolean enabled,
+                      @Value("${events.spool.dir:${java.io.tmpdir}/flowlinker/event-spool}") String dir,
+                      @Value("${events.spool.segment-bytes:67108864}") int segmentBytes,
+                      @Value("${events.spool.max-bytes:1073741824}") long maxBytes,
+                      @Value("${events.spool.fsync:interval}") String fsync) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.dir = Paths.get(dir);
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = (int) Math.max(1, maxBytes / segmentBytes);
+        this.fsyncPolicy = FsyncPolicy.valueOf(fsync.trim().toUpperCase());
+        meterRegistry.gauge("events.spool.segments", segments, Map::size);
+    }
+
+    @PostConstruct
+    void open() throws IOException {
+        if (!enabled) return;
+        Files.createDirectories(dir);
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                 .forEach(p -> segments.put(parseSegment(p), p));
+        }
+        long[] checkpoint = readCheckpoint();
+        if (segments.isEmpty()) {
+            createSegment(checkpoint[0] + 1);
+        }
+        writeSegment = segments.lastKey();
+        writeBuffer = map(segments.get(writeSegment), FileChannel.MapMode.READ_WRITE);
+        writeBuffer.position(scanEnd(writeBuffer));
+
+        if (checkpoint[0] < segments.firstKey()) {
+            readSegment = segments.firstKey();
+            readOffset = 0;
+        } else {
+            readSegment = checkpoint[0];
+            readOffset = (int) checkpoint[1];
+        }
+        logger.info("Spool de eventos aberto dir={} segmentos={} fsync={}", dir, segments.size(), fsyncPolicy);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Grava o lote no spool. Retorna false se o spool estiver desabilitado ou cheio
+     * (events.spool.max-bytes); nesse caso o chamador mantém o erro original.
+     */
+    public boolean append(List<EnrichedEventDTO> events) {
+        if (!enabled || events.isEmpty()) return false;
+        List<byte[]> records = new ArrayList<>(events.size());
+        try {
+            for (EnrichedEventDTO e : events) {
+                records.add(objectMapper.writeValueAsBytes(e));
+            }
+        } catch (Exception e) {
+            logger.error("Falha ao serializar eventos para o spool: {}", e.getMessage());
+            return false;
+        }
+        for (byte[] record : records) {
+            if (HEADER_BYTES + record.length > segmentBytes - HEADER_BYTES) {
+                logger.error("Evento de {} bytes maior que o segmento do spool, lote recusado", record.length);
+                return false;
+            }
+        }
+        synchronized (writeLock) {
+            // Recusa o lote inteiro antes de gravar para não deixar lote parcial no spool
+            if (!fits(records)) {
+                logger.warn("Spool de eventos cheio ({} segmentos), lote de {} eventos recusado", segments.size(), records.size());
+                return false;
+            }
+            try {
+                for (byte[] record : records) {
+                    if (writeBuffer.remaining() < HEADER_BYTES + record.length + HEADER_BYTES) {
+                        rotate();
+                    }
+                    CRC32 crc = new CRC32();
+                    crc.update(record);
+                    writeBuffer.putInt(record.length);
+                    writeBuffer.putInt((int) crc.getValue());
+                    writeBuffer.put(record);
+                }
+                if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+                    writeBuffer.force();
+                } else {
+                    dirty = true;
+                }
+                return true;
+            } catch (IOException e) {
+                logger.error("Falha ao gravar no spool de eventos: {}", e.getMessage());
+                return false;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${events.spool.fsync-interval-ms:1000}")
+    public void flush() {
+        if (!enabled || fsyncPolicy != FsyncPolicy.INTERVAL) return;
+        synchronized (writeLock) {
+            if (dirty) {
+                writeBuffer.force();
+                dirty = false;
+            }
+        }
+    }
+
+    public boolean hasPending() {
+        if (!enabled) return false;
+        synchronized (writeLock) {
+            return readSegment < writeSegment || readOffset < writeBuffer.position();
+        }
+    }
+
+    /**
+     * Lê até max eventos a partir do checkpoint sem avançá-lo; confirme com commit(batch)
+     * depois que o broker aceitou os eventos.
+     */
+    public Batch peek(int max) throws IOException {
+        List<EnrichedEventDTO> events = new ArrayList<>();
+        long segment = readSegment;
+        int offset = readOffset;
+        while (events.size() < max) {
+            int limit;
+            synchronized (writeLock) {
+                limit = segment == writeSegment ? writeBuffer.position() : segmentBytes;
+            }
+            if (!segments.containsKey(segment)) {
+                Long next = segments.higherKey(segment);
+                if (next == null) break;
+                segment = next;
+                offset = 0;
+                continue;
+            }
+            ByteBuffer buf = readerFor(segment);
+            if (offset + HEADER_BYTES > limit || buf.getInt(offset) == 0) {
+                // fim do segmento: avança apenas se ele já foi selado pelo writer
+                Long next = segments.higherKey(segment);
+                if (next == null || segment == writeSegment) break;
+                segment = next;
+                offset = 0;
+                continue;
+            }
+            int length = buf.getInt(offset);
+            if (length < 0 || offset + HEADER_BYTES + length > limit) {
+                logger.error("Registro inválido no spool segmento={} offset={}, restante do segmento ignorado", segment, offset);
+                offset = limit;
+                continue;
+            }
+            int crc = buf.getInt(offset + 4);
+            byte[] record = new byte[length];
+            buf.get(offset + HEADER_BYTES, record);
+            CRC32 check = new CRC32();
+            check.update(record);
+            if ((int) check.getValue() != crc) {
+                logger.error("Registro corrompido no spool segmento={} offset={}, restante do segmento ignorado", segment, offset);
+                offset = limit;
+                continue;
+            }
+            events.add(objectMapper.readValue(record, EnrichedEventDTO.class));
+            offset += HEADER_BYTES + length;
+        }
+        return new Batch(events, segment, offset);
+    }
+
+    /** Avança o checkpoint até o fim do lote e apaga segmentos já drenados. */
+    public void commit(Batch batch) throws IOException {
+        if (batch.segment() == readSegment && batch.nextOffset() == readOffset) return;
+        readSegment = batch.segment();
+        readOffset = batch.nextOffset();
+        writeCheckpoint(readSegment, readOffset);
+        for (Long seg : new ArrayList<>(segments.headMap(readSegment).keySet())) {
+            Path path = segments.remove(seg);
+            if (readBufferSegment == seg) {
+                readBuffer = null;
+                readBufferSegment = -1;
+            }
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        if (!enabled) return;
+        synchronized (writeLock) {
+            if (writeBuffer != null) writeBuffer.force();
+        }
+    }
+
+    private ByteBuffer readerFor(long segment) throws IOException {
+        if (readBufferSegment != segment) {
+            readBuffer = map(segments.get(segment), FileChannel.MapMode.READ_ONLY);
+            readBufferSegment = segment;
+        }
+        return readBuffer;
+    }
+
+    /**
+     * Simula a gravação do lote com a mesma regra de rotação do append: a sobra no fim de cada
+     * segmento que não comporta o próximo registro é perdida, então somar só os bytes não basta.
+     */
+    private boolean fits(List<byte[]> records) {
+        long remaining = writeBuffer.remaining();
+        int freeSegments = maxSegments - segments.size();
+        for (byte[] record : records) {
+            int size = HEADER_BYTES + record.length;
+            if (remaining < size + HEADER_BYTES) {
+                if (freeSegments-- <= 0) return false;
+                remaining = segmentBytes;
+            }
+            remaining -= size;
+        }
+        return true;
+    }
+
+    private void rotate() throws IOException {
+        writeBuffer.force();
+        dirty = false;
+        long next = writeSegment + 1;
+        createSegment(next);
+        writeSegment = next;
+        writeBuffer = map(segments.get(next), FileChannel.MapMode.READ_WRITE);
+    }
+
+    private void createSegment(long seq) throws IOException {
+        Path path = dir.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, seq, SEGMENT_SUFFIX));
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // pré-aloca com zeros: tamanho 0 no header marca o fim dos dados
+            ch.write(ByteBuffer.allocate(1), segmentBytes - 1);
+        }
+        segments.put(seq, path);
+    }
+
+    private MappedByteBuffer map(Path path, FileChannel.MapMode mode) throws IOException {
+        StandardOpenOption[] options = mode == FileChannel.MapMode.READ_ONLY
+                ? new StandardOpenOption[]{StandardOpenOption.READ}
+                : new StandardOpenOption[]{StandardOpenOption.READ, StandardOpenOption.WRITE};
+        try (FileChannel ch = FileChannel.open(path, options)) {
+            return ch.map(mode, 0, segmentBytes);
+        }
+    }
+
+    // Recupera a posição de escrita após restart; registro parcial (crc inválido) é sobrescrito
+    private int scanEnd(MappedByteBuffer buf) {
+        int offset = 0;
+        while (offset + HEADER_BYTES <= segmentBytes) {
+            int length = buf.getInt(offset);
+            if (length <= 0 || offset + HEADER_BYTES + length > segmentBytes) break;
+            byte[] record = new byte[length];
+            buf.get(offset + HEADER_BYTES, record);
+            CRC32 check = new CRC32();
+            check.update(record);
+            if ((int) check.getValue() != buf.getInt(offset + 4)) break;
+            offset += HEADER_BYTES + length;
+        }
+        buf.putInt(offset, 0);
+        return offset;
+    }
+
+    private long[] readCheckpoint() throws IOException {
+        Path path = dir.resolve("checkpoint");
+        if (!Files.exists(path)) return new long[]{0, 0};
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(path));
+        if (buf.remaining() < 12) return new long[]{0, 0};
+        return new long[]{buf.getLong(), buf.getInt()};
+    }
+
+    private void writeCheckpoint(long segment, int offset) throws IOException {
+        Path tmp = dir.resolve("checkpoint.tmp");
+        ByteBuffer buf = ByteBuffer.allocate(12).putLong(segment).putInt(offset).flip();
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ch.write(buf);
+            ch.force(true);
+        }
+        Files.move(tmp, dir.resolve("checkpoint"), java.nio.file.StandardCopyOption.REPLACE_EXISTING, java.nio.file.StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static long parseSegment(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
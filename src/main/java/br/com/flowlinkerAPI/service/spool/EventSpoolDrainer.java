@@ -0,0 +1,75 @@
+package br.com.flowlinkerAPI.service.spool;
+
+import br.com.flowlinkerAPI.service.EventPublisherService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reenvia para o events.exchange, em ordem, os eventos gravados no EventSpool.
+ * O checkpoint só avança após o confirm do broker; a taxa é limitada por
+ * events.spool.replay-rate-per-second para a recuperação não inundar o broker.
+ */
+@Component
+public class EventSpoolDrainer {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventSpoolDrainer.class);
+
+    private final EventSpool spool;
+    private final EventPublisherService publisher;
+    private final int ratePerSecond;
+    private final int chunkSize;
+    private final Counter replayed;
+
+    public EventSpoolDrainer(EventSpool spool,
+                             EventPublisherService publisher,
+                             MeterRegistry meterRegistry,
+                             @Value("${events.spool.replay-rate-per-second:1000}") int ratePerSecond,
+                             @Value("${events.spool.replay-chunk-size:200}") int chunkSize) {
+        this.spool = spool;
+        this.publisher = publisher;
+        this.ratePerSecond = Math.max(1, ratePerSecond);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.replayed = Counter.builder("events.spool.replayed").register(meterRegistry);
+    }
+
+    // Cada execução drena no máximo ~1s de eventos na taxa configurada
+    @Scheduled(fixedDelayString = "${events.spool.drain-interval-ms:500}")
+    public void drain() {
+        if (!spool.hasPending()) return;
+        long started = System.nanoTime();
+        int sent = 0;
+        try {
+            while (sent < ratePerSecond) {
+                EventSpool.Batch batch = spool.peek(Math.min(chunkSize, ratePerSecond - sent));
+                if (batch.events().isEmpty()) {
+                    spool.commit(batch);
+                    break;
+                }
+                publisher.publishConfirmed(batch.events());
+                spool.commit(batch);
+                sent += batch.events().size();
+                replayed.increment(batch.events().size());
+
+                long expectedNanos = TimeUnit.SECONDS.toNanos(sent) / ratePerSecond;
+                long elapsed = System.nanoTime() - started;
+                if (expectedNanos > elapsed) {
+                    TimeUnit.NANOSECONDS.sleep(expectedNanos - elapsed);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.warn("Replay do spool de eventos interrompido (nova tentativa no próximo ciclo): {}", e.getMessage());
+        }
+        if (sent > 0) {
+            logger.info("Spool de eventos: {} eventos reenviados", sent);
+        }
+    }
+}
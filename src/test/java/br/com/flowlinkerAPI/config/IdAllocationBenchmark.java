@@ -0,0 +1,112 @@
+package br.com.flowlinkerAPI.config;
+
+import br.com.flowlinkerAPI.model.IdSequences;
+import br.com.flowlinkerAPI.support.TestDatabases;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Vazão de insert de campaign_account antes e depois dos ids em bloco, no nível dos statements que o
+ * Hibernate emite: com IDENTITY um INSERT por entidade para obter o id (batch desligado); com a
+ * sequência em id_sequences uma ida à tabela a cada ALLOCATION_SIZE ids e INSERTs em lote de jdbc.batch_size.
+ * Rode com {@code mvn test -Pbenchmark -Dtest=IdAllocationBenchmark}; veja {@link TestDatabases} para MySQL.
+ */
+@Tag("benchmark")
+class IdAllocationBenchmark {
+
+    private static final int ROWS = 5_000;
+    private static final int BATCH_SIZE = 50;
+    private static final int WARMUP = 2;
+    private static final int RUNS = 5;
+
+    @Test
+    void identityContraIdsEmBloco() {
+        DriverManagerDataSource target = TestDatabases.benchmark();
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(target.getUrl(), target.getUsername(), target.getPassword(), true);
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        TransactionTemplate tx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        double identity = TestDatabases.medianMillis(WARMUP, RUNS, run -> recreate(jdbc),
+                run -> tx.executeWithoutResult(s -> insertWithIdentity(jdbc)));
+        assertEquals(ROWS, count(jdbc));
+
+        double pooled = TestDatabases.medianMillis(WARMUP, RUNS, run -> recreate(jdbc),
+                run -> tx.executeWithoutResult(s -> insertWithPooledIds(jdbc)));
+        assertEquals(ROWS, count(jdbc));
+        dataSource.destroy();
+
+        System.out.printf("[benchmark] campaign_account %d inserts (%s): IDENTITY %.1f ms (%.0f/s), ids em bloco %.1f ms (%.0f/s)%n",
+                ROWS, TestDatabases.isMySql(target) ? "MySQL" : "H2",
+                identity, ROWS / (identity / 1000), pooled, ROWS / (pooled / 1000));
+    }
+
+    private static void recreate(JdbcTemplate jdbc) {
+        jdbc.execute("DROP TABLE IF EXISTS campaign_account");
+        jdbc.execute("DROP TABLE IF EXISTS " + IdSequences.TABLE);
+        jdbc.execute("""
+                CREATE TABLE campaign_account (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                    campaign_id BIGINT NOT NULL,
+                    social_account_id BIGINT NOT NULL
+                )""");
+        jdbc.execute("CREATE TABLE " + IdSequences.TABLE + " (" + IdSequences.PK_COLUMN + " VARCHAR(255) PRIMARY KEY, "
+                + IdSequences.VALUE_COLUMN + " BIGINT)");
+        jdbc.update("INSERT INTO " + IdSequences.TABLE + " VALUES (?, ?)", IdSequences.CAMPAIGN_ACCOUNT, 1);
+    }
+
+    // IDENTITY: o Hibernate executa cada INSERT na hora para ler o id gerado
+    private static void insertWithIdentity(JdbcTemplate jdbc) {
+        for (int i = 0; i < ROWS; i++) {
+            long account = i;
+            jdbc.update(con -> {
+                PreparedStatement ps = con.prepareStatement(
+                        "INSERT INTO campaign_account (campaign_id, social_account_id) VALUES (?, ?)", Statement.RETURN_GENERATED_KEYS);
+                ps.setLong(1, 1L);
+                ps.setLong(2, account);
+                return ps;
+            }, new GeneratedKeyHolder());
+        }
+    }
+
+    // pooled: lê e avança a sequência uma vez por bloco e manda os INSERTs com id explícito em lote
+    private static void insertWithPooledIds(JdbcTemplate jdbc) {
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        long next = 0;
+        long blockEnd = 0;
+        for (int i = 0; i < ROWS; i++) {
+            if (next >= blockEnd) {
+                Long value = jdbc.queryForObject("SELECT " + IdSequences.VALUE_COLUMN + " FROM " + IdSequences.TABLE
+                        + " WHERE " + IdSequences.PK_COLUMN + " = ? FOR UPDATE", Long.class, IdSequences.CAMPAIGN_ACCOUNT);
+                jdbc.update("UPDATE " + IdSequences.TABLE + " SET " + IdSequences.VALUE_COLUMN + " = ? WHERE " + IdSequences.PK_COLUMN + " = ?",
+                        value + IdSequences.ALLOCATION_SIZE, IdSequences.CAMPAIGN_ACCOUNT);
+                next = value;
+                blockEnd = value + IdSequences.ALLOCATION_SIZE;
+            }
+            batch.add(new Object[]{next++, 1L, (long) i});
+            if (batch.size() == BATCH_SIZE) {
+                jdbc.batchUpdate("INSERT INTO campaign_account (id, campaign_id, social_account_id) VALUES (?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbc.batchUpdate("INSERT INTO campaign_account (id, campaign_id, social_account_id) VALUES (?, ?, ?)", batch);
+        }
+    }
+
+    private static int count(JdbcTemplate jdbc) {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM campaign_account", Integer.class);
+    }
+}
@@ -0,0 +1,72 @@
+package br.com.flowlinkerAPI.config.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    @Test
+    void abreAposFalhasConsecutivasERejeitaEnquantoAberto() {
+        CircuitBreaker breaker = new CircuitBreaker(3, 60_000, now::get);
+
+        breaker.onFailure();
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    void sucessoZeraContagemDeFalhas() {
+        CircuitBreaker breaker = new CircuitBreaker(2, 60_000, now::get);
+
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void abertoParaHalfOpenParaFechado() {
+        CircuitBreaker breaker = new CircuitBreaker(1, 50, now::get);
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+        now.addAndGet(49);
+        assertFalse(breaker.tryAcquire());
+
+        now.addAndGet(1);
+        // passado o tempo de abertura só a chamada de teste passa
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void falhaNoHalfOpenReabre() {
+        CircuitBreaker breaker = new CircuitBreaker(5, 50, now::get);
+        for (int i = 0; i < 5; i++) breaker.onFailure();
+
+        now.addAndGet(50);
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+    }
+}
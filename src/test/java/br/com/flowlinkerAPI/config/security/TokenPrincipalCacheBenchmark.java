@@ -0,0 +1,60 @@
+package br.com.flowlinkerAPI.config.security;
+
+import br.com.flowlinkerAPI.support.TestDatabases;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Custo por request da autenticação de um token legado (HS512) antes e depois do TokenPrincipalCache:
+ * antes, chave HMAC e JwtParser novos e verificação da assinatura a cada request; depois, SHA-256 do token
+ * e leitura no Caffeine. O GET no Redis que o caminho antigo também fazia fica de fora (só aumentaria a diferença).
+ * Rode com {@code mvn test -Pbenchmark -Dtest=TokenPrincipalCacheBenchmark}.
+ */
+@Tag("benchmark")
+class TokenPrincipalCacheBenchmark {
+
+    private static final String SECRET = "benchmark-secret-".repeat(8);
+    private static final int REQUESTS = 20_000;
+    private static final int WARMUP = 2;
+    private static final int RUNS = 5;
+
+    @Test
+    void verificacaoPorRequestContraCache() {
+        String token = Jwts.builder()
+                .subject("user@example.com")
+                .claim("customerId", 42L)
+                .expiration(new Date(System.currentTimeMillis() + 3_600_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)), Jwts.SIG.HS512)
+                .compact();
+        TokenPrincipalCache cache = new TokenPrincipalCache(null, new SimpleMeterRegistry(), true, 10_000, 60);
+        cache.put(token, "web", null, "web:token:user@example.com",
+                new CurrentUser("user@example.com", 42L, null, "USER"), new Date(System.currentTimeMillis() + 3_600_000));
+
+        double verify = TestDatabases.medianMillis(WARMUP, RUNS, run -> {}, run -> {
+            for (int i = 0; i < REQUESTS; i++) {
+                SecretKey key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+                Claims claims = Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload();
+                assertEquals("user@example.com", claims.getSubject());
+            }
+        });
+        double cached = TestDatabases.medianMillis(WARMUP, RUNS, run -> {}, run -> {
+            for (int i = 0; i < REQUESTS; i++) {
+                assertNotNull(cache.get(token, "web", null));
+            }
+        });
+
+        System.out.printf("[benchmark] autenticação de %d requests: verificação HS512 %.1f ms (%.2f µs/req), cache %.1f ms (%.2f µs/req)%n",
+                REQUESTS, verify, verify * 1000 / REQUESTS, cached, cached * 1000 / REQUESTS);
+    }
+}
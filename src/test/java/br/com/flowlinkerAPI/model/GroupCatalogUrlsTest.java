@@ -0,0 +1,31 @@
+package br.com.flowlinkerAPI.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GroupCatalogUrlsTest {
+
+    @Test
+    void unificaVariantesDeHostDoFacebook() {
+        String expected = "https://www.facebook.com/groups/123";
+        for (String host : new String[]{"facebook.com", "www.facebook.com", "m.facebook.com", "mobile.facebook.com",
+                "mbasic.facebook.com", "web.facebook.com", "touch.facebook.com", "M.Facebook.com"}) {
+            assertEquals(expected, GroupCatalogUrls.normalize("http://" + host + "/groups/123/"), host);
+        }
+    }
+
+    @Test
+    void mantemHostDeOutrosSites() {
+        assertEquals("https://web.whatsapp.com/groups/1", GroupCatalogUrls.normalize("https://web.whatsapp.com/groups/1"));
+        assertEquals("https://example.com/g", GroupCatalogUrls.normalize("example.com/g"));
+        assertEquals("https://m.example.com/g", GroupCatalogUrls.normalize("https://m.example.com/g/"));
+        assertEquals("https://m.notfacebook.com/g", GroupCatalogUrls.normalize("https://m.notfacebook.com/g"));
+    }
+
+    @Test
+    void removeRastreamentoEOrdenaParametros() {
+        assertEquals("https://www.facebook.com/groups/123?a=1&b=2",
+                GroupCatalogUrls.normalize("https://m.facebook.com/groups/123?b=2&fbclid=x&utm_source=y&a=1"));
+    }
+}
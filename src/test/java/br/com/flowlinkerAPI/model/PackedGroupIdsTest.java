@@ -0,0 +1,77 @@
+package br.com.flowlinkerAPI.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class PackedGroupIdsTest {
+
+    @Test
+    void preservaOrdemDeChegadaComDiferencasNegativas() {
+        long[] ids = {900_000L, 12L, 5_000_000_000L, 13L, 1L};
+
+        assertArrayEquals(ids, PackedGroupIds.decodeAll(PackedGroupIds.encode(ids)));
+    }
+
+    @Test
+    void decodificaFatiaPorPosicao() {
+        long[] ids = {40L, 7L, 300L, 2L, 99L};
+        byte[] packed = PackedGroupIds.encode(ids);
+
+        assertArrayEquals(new long[]{300L, 2L}, PackedGroupIds.decode(packed, 2, 2));
+        assertArrayEquals(new long[]{99L}, PackedGroupIds.decode(packed, 4, 10));
+        assertArrayEquals(new long[0], PackedGroupIds.decode(packed, 5, 10));
+    }
+
+    @Test
+    void distinctMantemPrimeiraOcorrencia() {
+        assertArrayEquals(new long[]{5L, 3L, 9L}, PackedGroupIds.distinct(new long[]{5L, 3L, 5L, 9L, 3L}));
+    }
+
+    @Test
+    void paginaEmQualquerBlocoIgualALeituraSequencial() {
+        long[] ids = arrival(1_000);
+        byte[] packed = PackedGroupIds.encode(ids);
+
+        for (int from : new int[]{0, 127, 128, 129, 500, 990}) {
+            long[] expected = Arrays.copyOfRange(ids, from, Math.min(ids.length, from + 20));
+            assertArrayEquals(expected, PackedGroupIds.decode(packed, from, 20), "from=" + from);
+        }
+        assertArrayEquals(ids, PackedGroupIds.decodeAll(packed));
+    }
+
+    @Test
+    void fatiaDoIndiceDecodificaSoOsBlocosDaPagina() {
+        long[] ids = arrival(1_000);
+        byte[] packed = PackedGroupIds.encode(ids);
+        int from = 300;
+        int limit = 100;
+
+        // o que o PackedGroupIdsReader pede ao banco: entradas do índice e os bytes entre elas
+        int first = PackedGroupIds.blockOf(from);
+        int last = PackedGroupIds.blockOf(from + limit - 1);
+        int data = PackedGroupIds.dataStart(ids.length);
+        int start = data + readInt(packed, PackedGroupIds.indexPosition(first));
+        int end = data + readInt(packed, PackedGroupIds.indexPosition(last + 1));
+        long[] page = PackedGroupIds.decodeBlocks(Arrays.copyOfRange(packed, start, end),
+                from - first * PackedGroupIds.SKIP_INTERVAL, limit);
+
+        assertArrayEquals(Arrays.copyOfRange(ids, from, from + limit), page);
+    }
+
+    // ids de catálogo espalhados, como chegam numa extração real
+    private static long[] arrival(int n) {
+        Random random = new Random(42);
+        long[] ids = new long[n];
+        for (int i = 0; i < n; i++) ids[i] = 1 + random.nextInt(5_000_000);
+        return PackedGroupIds.distinct(ids);
+    }
+
+    private static int readInt(byte[] buf, int pos) {
+        return ByteBuffer.wrap(buf, pos, 4).getInt();
+    }
+}
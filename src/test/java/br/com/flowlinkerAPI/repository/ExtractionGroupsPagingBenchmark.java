@@ -0,0 +1,98 @@
+package br.com.flowlinkerAPI.repository;
+
+import br.com.flowlinkerAPI.model.PackedGroupIds;
+import br.com.flowlinkerAPI.support.CatalogSchema;
+import br.com.flowlinkerAPI.support.TestDatabases;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.LongConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * Página de 100 grupos numa extração de 50.000, no início e no fim da lista: lista compactada lida por
+ * fatias ({@link PackedGroupIdsReader}, índice de saltos) contra LIMIT/OFFSET em group_extraction_item
+ * (o listGroups paginado). A primeira deve custar o mesmo em qualquer profundidade; o OFFSET cresce com ela.
+ * Rode com {@code mvn test -Pbenchmark -Dtest=ExtractionGroupsPagingBenchmark}; veja {@link TestDatabases} para MySQL.
+ */
+@Tag("benchmark")
+class ExtractionGroupsPagingBenchmark {
+
+    private static final long EXTRACTION_ID = 1L;
+    private static final int GROUPS = 50_000;
+    private static final int PAGE = 100;
+    private static final int PAGES_PER_RUN = 50;
+    private static final int WARMUP = 2;
+    private static final int RUNS = 5;
+
+    @Test
+    void paginaFundaCustaOMesmoQueAPrimeira() {
+        DriverManagerDataSource target = TestDatabases.benchmark();
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(target.getUrl(), target.getUsername(), target.getPassword(), true);
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        long[] ids = seed(jdbc);
+        PackedGroupIdsReader reader = new PackedGroupIdsReader(jdbc);
+
+        int deep = GROUPS - PAGE;
+        assertArrayEquals(Arrays.copyOfRange(ids, deep, GROUPS), reader.page(EXTRACTION_ID, deep, PAGE));
+        assertArrayEquals(Arrays.copyOfRange(ids, deep, GROUPS), offsetPage(jdbc, deep));
+
+        double packedFirst = perPage(run -> reader.page(EXTRACTION_ID, 0, PAGE));
+        double packedDeep = perPage(run -> reader.page(EXTRACTION_ID, deep, PAGE));
+        double offsetFirst = perPage(run -> offsetPage(jdbc, 0));
+        double offsetDeep = perPage(run -> offsetPage(jdbc, deep));
+        dataSource.destroy();
+
+        System.out.printf("[benchmark] página de %d em %d grupos (%s): lista compactada %.3f ms no início, %.3f ms no fim (%.1fx);"
+                        + " OFFSET %.3f ms no início, %.3f ms no fim (%.1fx)%n",
+                PAGE, GROUPS, TestDatabases.isMySql(target) ? "MySQL" : "H2",
+                packedFirst, packedDeep, packedDeep / packedFirst, offsetFirst, offsetDeep, offsetDeep / offsetFirst);
+    }
+
+    private static double perPage(LongConsumer page) {
+        return TestDatabases.medianMillis(WARMUP, RUNS, run -> {}, run -> {
+            for (int i = 0; i < PAGES_PER_RUN; i++) page.accept(run);
+        }) / PAGES_PER_RUN;
+    }
+
+    private static long[] offsetPage(JdbcTemplate jdbc, int from) {
+        return jdbc.queryForList("SELECT group_id FROM group_extraction_item WHERE extraction_id = ? ORDER BY item_position LIMIT ? OFFSET ?",
+                Long.class, EXTRACTION_ID, PAGE, from).stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /** A mesma extração nos dois formatos: lista compactada e uma linha por grupo. */
+    private static long[] seed(JdbcTemplate jdbc) {
+        CatalogSchema.recreate(jdbc);
+        CatalogSchema.recreatePacked(jdbc);
+        Random random = new Random(11);
+        long[] ids = new long[GROUPS];
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < GROUPS; ) {
+            long id = 1 + random.nextInt(20_000_000);
+            if (seen.add(id)) ids[i++] = id;
+        }
+        jdbc.update("INSERT INTO group_extraction_groups (extraction_id, group_count, group_ids) VALUES (?, ?, ?)",
+                EXTRACTION_ID, GROUPS, PackedGroupIds.encode(ids));
+        jdbc.execute("CREATE INDEX idx_item_position ON group_extraction_item (extraction_id, item_position)");
+        List<Long> groupIds = new ArrayList<>(GROUPS);
+        for (long id : ids) groupIds.add(id);
+        long[] position = {0};
+        jdbc.batchUpdate("INSERT INTO group_extraction_item (extraction_id, group_id, item_position) VALUES (?, ?, ?)",
+                groupIds, 1_000, (ps, groupId) -> {
+                    ps.setLong(1, EXTRACTION_ID);
+                    ps.setLong(2, groupId);
+                    ps.setLong(3, position[0]++);
+                });
+        return ids;
+    }
+}
@@ -0,0 +1,111 @@
+package br.com.flowlinkerAPI.repository;
+
+import br.com.flowlinkerAPI.model.GroupCatalogUrls;
+import br.com.flowlinkerAPI.repository.GroupCatalogBulkRepository.GroupRow;
+import br.com.flowlinkerAPI.repository.GroupCatalogBulkRepository.ResolvedIds;
+import br.com.flowlinkerAPI.support.CatalogSchema;
+import br.com.flowlinkerAPI.support.TestDatabases;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GroupCatalogBulkRepositoryTest {
+
+    private static final String URL_A = GroupCatalogUrls.normalize("https://www.facebook.com/groups/a");
+    private static final String URL_B = GroupCatalogUrls.normalize("https://www.facebook.com/groups/b");
+    private static final String URL_C = GroupCatalogUrls.normalize("https://www.facebook.com/groups/c");
+
+    private JdbcTemplate jdbc;
+    private GroupCatalogBulkRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = new JdbcTemplate(TestDatabases.h2());
+        CatalogSchema.recreate(jdbc);
+        // cache desligado: toda resolução vai ao banco
+        GroupCatalogKeyCache cache = new GroupCatalogKeyCache(null, new SimpleMeterRegistry(), false, 10, 1);
+        repository = new GroupCatalogBulkRepository(jdbc, cache, 100);
+    }
+
+    @Test
+    void insereNovosEResolveIds() {
+        ResolvedIds ids = repository.upsertGroups(List.of(
+                new GroupRow("1", "Grupo A", URL_A, 10L),
+                new GroupRow("2", "Grupo B", URL_B, null)), Instant.now());
+
+        assertEquals(2, count());
+        assertEquals(idOf("1"), ids.idFor("1", URL_A));
+        assertEquals(idOf("2"), ids.idFor("2", URL_B));
+    }
+
+    @Test
+    void externalIdEUrlEmLinhasDiferentesNaoDerrubamOLote() {
+        repository.upsertGroups(List.of(
+                new GroupRow("1", "Grupo A", URL_A, 10L),
+                new GroupRow("2", "Grupo B", URL_B, 20L)), Instant.now());
+
+        // external_id 1 chega com a url do grupo 2: antes o ODKU estourava uk_group_url_hash
+        ResolvedIds ids = repository.upsertGroups(List.of(
+                new GroupRow("1", "Grupo A renomeado", URL_B, 11L),
+                new GroupRow("3", "Grupo C", URL_C, 30L)), Instant.now());
+
+        assertEquals(3, count());
+        assertEquals(idOf("1"), ids.idFor("1", URL_B));
+        assertEquals(URL_A, urlOf("1"));
+        assertEquals("Grupo A", jdbc.queryForObject("SELECT name FROM group_catalog WHERE external_id = '1'", String.class));
+        assertEquals(idOf("3"), ids.idFor("3", URL_C));
+    }
+
+    @Test
+    void externalIdNovoComUrlExistenteResolvePelaUrl() {
+        repository.upsertGroups(List.of(new GroupRow("1", "Grupo A", URL_A, 10L)), Instant.now());
+
+        ResolvedIds ids = repository.upsertGroups(List.of(new GroupRow("9", "Grupo A (novo id)", URL_A, 10L)), Instant.now());
+
+        assertEquals(1, count());
+        assertEquals(idOf("1"), ids.idFor("9", URL_A));
+    }
+
+    @Test
+    void atualizaUrlQuandoNaoPertenceAOutraLinha() {
+        repository.upsertGroups(List.of(new GroupRow("1", "Grupo A", URL_A, 10L)), Instant.now());
+
+        repository.upsertGroups(List.of(new GroupRow("1", "Grupo A", URL_C, 12L)), Instant.now());
+
+        assertEquals(URL_C, urlOf("1"));
+        assertEquals(12L, jdbc.queryForObject("SELECT member_count FROM group_catalog WHERE external_id = '1'", Long.class));
+    }
+
+    @Test
+    void urlAntigaNaoFicaEmCacheDepoisDeMudar() {
+        // cache ligado só no nível local (sem Redis): um hit de url antiga ligaria o grupo errado
+        GroupCatalogKeyCache cache = new GroupCatalogKeyCache(null, new SimpleMeterRegistry(), true, 10, 1);
+        GroupCatalogBulkRepository cached = new GroupCatalogBulkRepository(jdbc, cache, 100);
+        cached.upsertGroups(List.of(new GroupRow("1", "Grupo A", URL_A, 10L)), Instant.now());
+        cached.upsertGroups(List.of(new GroupRow("1", "Grupo A", URL_C, 10L)), Instant.now());
+
+        ResolvedIds ids = cached.upsertGroups(List.of(new GroupRow("2", "Grupo B", URL_A, 20L)), Instant.now());
+
+        assertEquals(2, count());
+        assertEquals(idOf("2"), ids.idFor("2", URL_A));
+        assertEquals(URL_A, urlOf("2"));
+    }
+
+    private int count() {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM group_catalog", Integer.class);
+    }
+
+    private Long idOf(String externalId) {
+        return jdbc.queryForObject("SELECT id FROM group_catalog WHERE external_id = ?", Long.class, externalId);
+    }
+
+    private String urlOf(String externalId) {
+        return jdbc.queryForObject("SELECT url FROM group_catalog WHERE external_id = ?", String.class, externalId);
+    }
+}
@@ -0,0 +1,135 @@
+package br.com.flowlinkerAPI.repository;
+
+import br.com.flowlinkerAPI.model.GroupCatalogUrls;
+import br.com.flowlinkerAPI.repository.GroupCatalogBulkRepository.GroupRow;
+import br.com.flowlinkerAPI.repository.GroupCatalogBulkRepository.ResolvedIds;
+import br.com.flowlinkerAPI.support.CatalogSchema;
+import br.com.flowlinkerAPI.support.TestDatabases;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Ingestão de uma extração de 5.000 grupos (metade já no catálogo): fluxo antigo (findByExternalIdIn/findByUrlIn
+ * + um INSERT/UPDATE por grupo com IDENTITY, como o saveAll do Hibernate emitia) contra o upsert em lote.
+ * Rode com {@code mvn test -Pbenchmark -Dtest=GroupCatalogUpsertBenchmark}; veja {@link TestDatabases} para MySQL.
+ */
+@Tag("benchmark")
+class GroupCatalogUpsertBenchmark {
+
+    private static final int GROUPS = 5_000;
+    private static final int WARMUP = 2;
+    private static final int RUNS = 5;
+
+    @Test
+    void upsertEmLoteContraUmStatementPorGrupo() {
+        DriverManagerDataSource target = TestDatabases.benchmark();
+        // uma conexão para os dois lados: mede statements e round trips, não o pool
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(target.getUrl(), target.getUsername(), target.getPassword(), true);
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        TransactionTemplate tx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        GroupCatalogBulkRepository bulk = new GroupCatalogBulkRepository(jdbc,
+                new GroupCatalogKeyCache(null, new SimpleMeterRegistry(), false, 10, 1), 500);
+
+        List<GroupRow> rows = rows();
+        double perRow = TestDatabases.medianMillis(WARMUP, RUNS, run -> seed(jdbc, rows),
+                run -> tx.executeWithoutResult(s -> perRowIngest(jdbc, run + 1, rows)));
+        assertEquals(GROUPS, items(jdbc, WARMUP + RUNS));
+
+        double batched = TestDatabases.medianMillis(WARMUP, RUNS, run -> seed(jdbc, rows),
+                run -> tx.executeWithoutResult(s -> {
+                    ResolvedIds ids = bulk.upsertGroups(rows, Instant.now());
+                    List<Long> groupIds = new ArrayList<>(rows.size());
+                    for (GroupRow row : rows) groupIds.add(ids.idFor(row.externalId(), row.url()));
+                    bulk.insertItems(run + 1, groupIds);
+                }));
+        assertEquals(GROUPS, items(jdbc, WARMUP + RUNS));
+        dataSource.destroy();
+
+        System.out.printf("[benchmark] group_catalog %d grupos (%s): um statement por grupo %.1f ms, upsert em lote %.1f ms (%.1fx)%n",
+                GROUPS, TestDatabases.isMySql(target) ? "MySQL" : "H2", perRow, batched, perRow / batched);
+    }
+
+    private static List<GroupRow> rows() {
+        List<GroupRow> rows = new ArrayList<>(GROUPS);
+        for (int i = 0; i < GROUPS; i++) {
+            rows.add(new GroupRow("g" + i, "Grupo " + i, GroupCatalogUrls.normalize("https://facebook.com/groups/" + i), (long) i));
+        }
+        return rows;
+    }
+
+    /** Tabelas recriadas com metade dos grupos da extração já no catálogo. */
+    private static void seed(JdbcTemplate jdbc, List<GroupRow> rows) {
+        CatalogSchema.recreate(jdbc);
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbc.batchUpdate("INSERT INTO group_catalog (external_id, name, url, url_hash, member_count, last_seen_at) VALUES (?, ?, ?, ?, ?, ?)",
+                rows.subList(0, GROUPS / 2), 500, (ps, row) -> {
+                    ps.setString(1, row.externalId());
+                    ps.setString(2, row.name());
+                    ps.setString(3, row.url());
+                    ps.setBytes(4, GroupCatalogUrls.hash(row.url()));
+                    ps.setLong(5, row.memberCount());
+                    ps.setTimestamp(6, now);
+                });
+    }
+
+    // o que o fluxo JPA fazia: duas buscas IN e um statement por entidade (IDENTITY desliga o batch)
+    private static void perRowIngest(JdbcTemplate jdbc, long extractionId, List<GroupRow> rows) {
+        NamedParameterJdbcTemplate named = new NamedParameterJdbcTemplate(jdbc);
+        Map<String, Long> existing = new HashMap<>();
+        List<String> externalIds = rows.stream().map(GroupRow::externalId).toList();
+        for (int from = 0; from < externalIds.size(); from += 1000) {
+            named.query("SELECT id, external_id FROM group_catalog WHERE external_id IN (:ids)",
+                    new MapSqlParameterSource("ids", externalIds.subList(from, Math.min(externalIds.size(), from + 1000))),
+                    rs -> { existing.put(rs.getString(2), rs.getLong(1)); });
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        for (GroupRow row : rows) {
+            Long id = existing.get(row.externalId());
+            if (id != null) {
+                jdbc.update("UPDATE group_catalog SET name = ?, url = ?, member_count = ?, last_seen_at = ? WHERE id = ?",
+                        row.name(), row.url(), row.memberCount(), now, id);
+            } else {
+                KeyHolder key = new GeneratedKeyHolder();
+                jdbc.update(con -> {
+                    PreparedStatement ps = con.prepareStatement(
+                            "INSERT INTO group_catalog (external_id, name, url, url_hash, member_count, last_seen_at) VALUES (?, ?, ?, ?, ?, ?)",
+                            Statement.RETURN_GENERATED_KEYS);
+                    ps.setString(1, row.externalId());
+                    ps.setString(2, row.name());
+                    ps.setString(3, row.url());
+                    ps.setBytes(4, GroupCatalogUrls.hash(row.url()));
+                    ps.setLong(5, row.memberCount());
+                    ps.setTimestamp(6, now);
+                    return ps;
+                }, key);
+                id = key.getKey().longValue();
+            }
+            jdbc.update("INSERT INTO group_extraction_item (extraction_id, group_id) VALUES (?, ?)", extractionId, id);
+        }
+    }
+
+    private static int items(JdbcTemplate jdbc, long extractionId) {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM group_extraction_item WHERE extraction_id = ?", Integer.class, extractionId);
+    }
+}
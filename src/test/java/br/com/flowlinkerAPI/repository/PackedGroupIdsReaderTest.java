@@ -0,0 +1,58 @@
+package br.com.flowlinkerAPI.repository;
+
+import br.com.flowlinkerAPI.model.PackedGroupIds;
+import br.com.flowlinkerAPI.support.CatalogSchema;
+import br.com.flowlinkerAPI.support.TestDatabases;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PackedGroupIdsReaderTest {
+
+    private JdbcTemplate jdbc;
+    private PackedGroupIdsReader reader;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = new JdbcTemplate(TestDatabases.h2());
+        CatalogSchema.recreatePacked(jdbc);
+        reader = new PackedGroupIdsReader(jdbc);
+    }
+
+    @Test
+    void paginasLidasPorFatiaIguaisALista() {
+        long[] ids = ids(2_000);
+        save(1L, ids);
+
+        for (int from : new int[]{0, 127, 128, 1_000, 1_950}) {
+            long[] expected = Arrays.copyOfRange(ids, from, Math.min(ids.length, from + 100));
+            assertArrayEquals(expected, reader.page(1L, from, 100), "from=" + from);
+        }
+    }
+
+    @Test
+    void posicaoAlemDoFimOuExtracaoSemListaDevolveVazio() {
+        save(1L, ids(10));
+
+        assertEquals(0, reader.page(1L, 10, 50).length);
+        assertEquals(0, reader.page(2L, 0, 50).length);
+    }
+
+    private void save(long extractionId, long[] ids) {
+        jdbc.update("INSERT INTO group_extraction_groups (extraction_id, group_count, group_ids) VALUES (?, ?, ?)",
+                extractionId, ids.length, PackedGroupIds.encode(ids));
+    }
+
+    private static long[] ids(int n) {
+        Random random = new Random(7);
+        long[] ids = new long[n];
+        for (int i = 0; i < n; i++) ids[i] = 1 + random.nextInt(5_000_000);
+        return PackedGroupIds.distinct(ids);
+    }
+}
@@ -0,0 +1,68 @@
+package br.com.flowlinkerAPI.service;
+
+import br.com.flowlinkerAPI.dto.event.IngestEventsRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EventStreamIngestionServiceTest {
+
+    private static final String VALID = "{\"eventType\":\"activity.share\",\"eventAt\":\"2026-01-05T10:00:00Z\"}\n";
+
+    private EventStreamIngestionService service;
+
+    @BeforeEach
+    void setUp() {
+        EventPublisherService publisher = mock(EventPublisherService.class);
+        when(publisher.publishBatch(any(), any(), any(), any(), any())).thenAnswer(inv ->
+                new EventPublisherService.PublishResult(((IngestEventsRequest) inv.getArgument(0)).events().size(), 0));
+        service = new EventStreamIngestionService(new ObjectMapper().findAndRegisterModules(),
+                Validation.buildDefaultValidatorFactory().getValidator(), publisher, 2);
+    }
+
+    @Test
+    void tokenInvalidoNoInicioDaLinhaRetomaNelaMesma() throws Exception {
+        // a falha acontece em hasNextValue, antes de qualquer valor da linha 4
+        EventStreamIngestionService.StreamIngestResult result = ingest(VALID + VALID + VALID + "xyz\n" + VALID);
+
+        assertTrue(result.malformed());
+        assertEquals(3, result.processed());
+        assertEquals(3, result.accepted());
+        assertEquals("linha 4: ", result.errors().get(0).substring(0, 9));
+    }
+
+    @Test
+    void jsonInvalidoNoMeioDoValorRetomaNaLinhaDele() throws Exception {
+        // a falha acontece em nextValue, depois de hasNextValue ter achado o início do objeto
+        EventStreamIngestionService.StreamIngestResult result = ingest(VALID + VALID + VALID + "{\"eventType\": }\n" + VALID);
+
+        assertTrue(result.malformed());
+        assertEquals(3, result.processed());
+        assertEquals(3, result.accepted());
+        assertEquals("linha 4: ", result.errors().get(0).substring(0, 9));
+    }
+
+    @Test
+    void streamCompletoProcessaTodasAsLinhas() throws Exception {
+        EventStreamIngestionService.StreamIngestResult result = ingest(VALID + VALID + VALID);
+
+        assertEquals(3, result.processed());
+        assertEquals(3, result.accepted());
+        assertTrue(result.errors().isEmpty());
+    }
+
+    private EventStreamIngestionService.StreamIngestResult ingest(String body) throws Exception {
+        return service.ingest(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), 1L, null, null, Instant.now());
+    }
+}
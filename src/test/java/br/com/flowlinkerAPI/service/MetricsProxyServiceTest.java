@@ -0,0 +1,164 @@
+package br.com.flowlinkerAPI.service;
+
+import br.com.flowlinkerAPI.config.http.OutboundHttpConfig;
+import br.com.flowlinkerAPI.exceptions.UpstreamUnavailableException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Proxy contra um servidor HTTP local, com o RestTemplate do OutboundHttpConfig (HttpClient do JDK,
+ * timeouts, interceptor com circuit breaker): o mesmo caminho de produção, sem mock de request factory.
+ */
+class MetricsProxyServiceTest {
+
+    private static final int FAILURE_THRESHOLD = 3;
+    private static final long READ_TIMEOUT_MS = 300;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private final AtomicReference<Handler> handler = new AtomicReference<>();
+    private final AtomicReference<String> lastUpgrade = new AtomicReference<>();
+    private HttpServer server;
+    private ExecutorService serverThreads;
+
+    interface Handler {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.createContext("/", exchange -> {
+            upstreamCalls.incrementAndGet();
+            lastUpgrade.set(exchange.getRequestHeaders().getFirst("Upgrade"));
+            try (exchange) {
+                handler.get().handle(exchange);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    void timeoutDoUpstreamViraUpstreamUnavailable() {
+        handler.set(exchange -> {
+            try {
+                Thread.sleep(READ_TIMEOUT_MS * 4);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, 200, "[]", Map.of());
+        });
+        MetricsProxyService proxy = proxy("");
+
+        UpstreamUnavailableException e = assertThrows(UpstreamUnavailableException.class,
+                () -> proxy.getActionsSummary(1L, 24));
+
+        assertInstanceOf(ResourceAccessException.class, e.getCause());
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void circuitoAbertoFalhaSemChamarUpstream() {
+        handler.set(exchange -> respond(exchange, 502, "", Map.of()));
+        MetricsProxyService proxy = proxy("");
+
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            assertThrows(UpstreamUnavailableException.class, () -> proxy.getErrors(1L, 24));
+        }
+        UpstreamUnavailableException e = assertThrows(UpstreamUnavailableException.class,
+                () -> proxy.getErrors(1L, 24));
+
+        assertEquals(FAILURE_THRESHOLD, upstreamCalls.get());
+        assertNull(e.getCause());
+    }
+
+    @Test
+    void erro5xxViraUpstreamUnavailable() {
+        handler.set(exchange -> respond(exchange, 502, "", Map.of()));
+
+        assertThrows(UpstreamUnavailableException.class, () -> proxy("").getActionsSummary(1L, 24));
+    }
+
+    @Test
+    void erro4xxMantemCorpoVazio() {
+        handler.set(exchange -> respond(exchange, 404, "", Map.of()));
+
+        assertEquals(List.of(), proxy("").getActionsSummary(1L, 24));
+    }
+
+    @Test
+    void repassaBytesEETagDoUpstreamEServeDoCache() {
+        String body = "{\"days\":7,\"series\":[]}";
+        handler.set(exchange -> respond(exchange, 200, body, Map.of("ETag", "\"v1\"")));
+        MetricsProxyService proxy = proxy("");
+
+        MetricsProxyService.RawResponse first = proxy.getDailyBytes(1L, 7);
+        MetricsProxyService.RawResponse second = proxy.getDailyBytes(1L, 7);
+
+        assertArrayEquals(body.getBytes(StandardCharsets.UTF_8), first.body());
+        assertEquals("\"v1\"", first.etag());
+        assertEquals("application/json", first.contentType());
+        assertEquals(first, second);
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void versaoConfiguradaHttp11NaoPedeUpgradeH2c() {
+        handler.set(exchange -> respond(exchange, 200, "{\"count\":1}", Map.of()));
+
+        assertEquals(Map.of("count", 1), proxy("HTTP_1_1").getErrors(1L, 24));
+        assertNull(lastUpgrade.get());
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body, Map<String, String> headers) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        headers.forEach((k, v) -> exchange.getResponseHeaders().set(k, v));
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) exchange.getResponseBody().write(bytes);
+    }
+
+    private MetricsProxyService proxy(String httpVersion) {
+        OutboundHttpConfig config = new OutboundHttpConfig();
+        ReflectionTestUtils.setField(config, "failureThreshold", FAILURE_THRESHOLD);
+        ReflectionTestUtils.setField(config, "openMillis", 60_000L);
+        return new MetricsProxyService(
+                "http://127.0.0.1:" + server.getAddress().getPort(),
+                config.metricsRestTemplate(meterRegistry, 1_000, READ_TIMEOUT_MS, httpVersion),
+                new SimpleAsyncTaskExecutor(),
+                meterRegistry,
+                100, 30, 60, "");
+    }
+}
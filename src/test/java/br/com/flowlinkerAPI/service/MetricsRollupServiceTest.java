@@ -0,0 +1,77 @@
+package br.com.flowlinkerAPI.service;
+
+import br.com.flowlinkerAPI.dto.event.EnrichedEventDTO;
+import br.com.flowlinkerAPI.support.TestDatabases;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MetricsRollupServiceTest {
+
+    private static final Instant AT = Instant.parse("2026-01-05T10:15:00Z");
+
+    private JdbcTemplate jdbc;
+    private MetricsRollupService service;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = new JdbcTemplate(TestDatabases.h2());
+        jdbc.execute("""
+                CREATE TABLE metrics_rollup_hourly (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                    customer_id BIGINT NOT NULL,
+                    hour_epoch BIGINT NOT NULL,
+                    event_type VARCHAR(100) NOT NULL,
+                    platform VARCHAR(40) NOT NULL,
+                    persona VARCHAR(150) NOT NULL,
+                    event_count BIGINT NOT NULL,
+                    CONSTRAINT uk_rollup_bucket UNIQUE (customer_id, hour_epoch, event_type, platform, persona)
+                )""");
+        jdbc.execute("CREATE TABLE metrics_rollup_state (name VARCHAR(40) PRIMARY KEY, started_hour BIGINT NOT NULL)");
+        jdbc.execute("CREATE TABLE metrics_rollup_event (event_key BIGINT PRIMARY KEY, processed_hour BIGINT NOT NULL)");
+        service = new MetricsRollupService(jdbc, new SimpleMeterRegistry(), true, "platform", "persona", 48);
+    }
+
+    @Test
+    void reentregaDoMesmoLoteNaoContaDuasVezes() {
+        List<EnrichedEventDTO> batch = List.of(event("e1", 1L), event("e2", 1L), event("e3", 2L));
+
+        service.apply(batch);
+        service.apply(batch);
+
+        assertEquals(2L, countOf(1L));
+        assertEquals(1L, countOf(2L));
+    }
+
+    @Test
+    void eventoRepetidoNoLoteESomadoUmaVez() {
+        service.apply(List.of(event("e1", 1L), event("e1", 1L), event("e2", 1L)));
+
+        assertEquals(2L, countOf(1L));
+    }
+
+    @Test
+    void mesmoEventIdDeClientesDiferentesContaParaCada() {
+        service.apply(List.of(event("e1", 1L)));
+        service.apply(List.of(event("e1", 2L), event("e9", 1L)));
+
+        assertEquals(2L, countOf(1L));
+        assertEquals(1L, countOf(2L));
+    }
+
+    private long countOf(long customerId) {
+        return jdbc.queryForObject("SELECT COALESCE(SUM(event_count), 0) FROM metrics_rollup_hourly WHERE customer_id = ?",
+                Long.class, customerId);
+    }
+
+    private static EnrichedEventDTO event(String eventId, long customerId) {
+        return new EnrichedEventDTO(eventId, "activity.share", AT, AT, Map.of("platform", "facebook"), customerId, 10L, null);
+    }
+}
@@ -0,0 +1,47 @@
+package br.com.flowlinkerAPI.support;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * group_catalog, group_extraction_item e group_extraction_groups com as mesmas chaves das entidades
+ * (H2 modo MySQL ou MySQL).
+ */
+public final class CatalogSchema {
+
+    private CatalogSchema() {}
+
+    public static void recreate(JdbcTemplate jdbc) {
+        jdbc.execute("DROP TABLE IF EXISTS group_extraction_item");
+        jdbc.execute("DROP TABLE IF EXISTS group_catalog");
+        jdbc.execute("""
+                CREATE TABLE group_catalog (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                    external_id VARCHAR(255) NOT NULL,
+                    name VARCHAR(512) NOT NULL,
+                    url VARCHAR(700) NOT NULL,
+                    url_hash BINARY(16),
+                    member_count BIGINT,
+                    last_seen_at TIMESTAMP NULL,
+                    CONSTRAINT uk_group_external_id UNIQUE (external_id),
+                    CONSTRAINT uk_group_url_hash UNIQUE (url_hash)
+                )""");
+        jdbc.execute("""
+                CREATE TABLE group_extraction_item (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                    extraction_id BIGINT NOT NULL,
+                    group_id BIGINT NOT NULL,
+                    item_position BIGINT,
+                    CONSTRAINT uk_extraction_group UNIQUE (extraction_id, group_id)
+                )""");
+    }
+
+    public static void recreatePacked(JdbcTemplate jdbc) {
+        jdbc.execute("DROP TABLE IF EXISTS group_extraction_groups");
+        jdbc.execute("""
+                CREATE TABLE group_extraction_groups (
+                    extraction_id BIGINT PRIMARY KEY,
+                    group_count INT NOT NULL,
+                    group_ids MEDIUMBLOB NOT NULL
+                )""");
+    }
+}
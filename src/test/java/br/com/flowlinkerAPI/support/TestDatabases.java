@@ -0,0 +1,51 @@
+package br.com.flowlinkerAPI.support;
+
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.function.LongConsumer;
+
+/**
+ * Bancos para testes do caminho JDBC. Por padrão H2 em memória no modo MySQL (INSERT IGNORE,
+ * ON DUPLICATE KEY UPDATE). Benchmarks aceitam um MySQL descartável via
+ * {@code -Dbench.jdbc.url=jdbc:mysql://...&rewriteBatchedStatements=true -Dbench.jdbc.user= -Dbench.jdbc.password=}:
+ * as tabelas usadas são recriadas, então nunca aponte para um banco com dados.
+ */
+public final class TestDatabases {
+
+    private TestDatabases() {}
+
+    public static DriverManagerDataSource h2() {
+        return new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+    }
+
+    public static DriverManagerDataSource benchmark() {
+        String url = System.getProperty("bench.jdbc.url");
+        if (url == null || url.isBlank()) return h2();
+        return new DriverManagerDataSource(url,
+                System.getProperty("bench.jdbc.user", "root"),
+                System.getProperty("bench.jdbc.password", ""));
+    }
+
+    public static boolean isMySql(DriverManagerDataSource dataSource) {
+        return dataSource.getUrl() != null && dataSource.getUrl().startsWith("jdbc:mysql:");
+    }
+
+    /**
+     * Mediana em ms de {@code runs} execuções após {@code warmup} descartadas. setup roda antes de cada
+     * execução fora da medição; ambos recebem o índice da rodada.
+     */
+    public static double medianMillis(int warmup, int runs, LongConsumer setup, LongConsumer run) {
+        long[] nanos = new long[runs];
+        for (int i = 0; i < warmup + runs; i++) {
+            setup.accept(i);
+            long start = System.nanoTime();
+            run.accept(i);
+            if (i >= warmup) nanos[i - warmup] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos[runs / 2] / 1_000_000.0;
+    }
+}